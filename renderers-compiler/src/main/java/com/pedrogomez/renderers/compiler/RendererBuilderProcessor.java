@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor generating a RendererBuilder subtype for every model class used in a
+ * RendererFor annotation. The generated RendererBuilder resolves the view type evaluating the
+ * predicates declared in the annotations and creates Renderer instances invoking the Renderer
+ * constructors, so no reflection, hashing or cloning is needed to render the model.
+ *
+ * Every mistake found in the binding declaration is reported as a compilation error.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public final class RendererBuilderProcessor extends AbstractProcessor {
+
+  static final String RENDERER_FOR = "com.pedrogomez.renderers.annotation.RendererFor";
+  static final String GENERATED_CLASS_SUFFIX = "_RendererBuilder";
+
+  private static final String RENDERER = "com.pedrogomez.renderers.Renderer";
+  private static final String RENDERER_BUILDER = "com.pedrogomez.renderers.RendererBuilder";
+  private static final String PROTOTYPE_NOT_FOUND_EXCEPTION =
+      "com.pedrogomez.renderers.exception.PrototypeNotFoundException";
+
+  private Elements elements;
+  private Types types;
+  private Filer filer;
+  private Messager messager;
+  private final Set<String> generatedModels = new HashSet<>();
+
+  @Override public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    elements = processingEnv.getElementUtils();
+    types = processingEnv.getTypeUtils();
+    filer = processingEnv.getFiler();
+    messager = processingEnv.getMessager();
+  }
+
+  @Override public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton(RENDERER_FOR);
+  }
+
+  @Override public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    TypeElement rendererFor = elements.getTypeElement(RENDERER_FOR);
+    TypeElement renderer = elements.getTypeElement(RENDERER);
+    if (rendererFor == null || renderer == null) {
+      return false;
+    }
+    Map<TypeElement, List<Binding>> bindings = new LinkedHashMap<>();
+    for (Element element : roundEnv.getElementsAnnotatedWith(rendererFor)) {
+      Binding binding = parseBinding(element, rendererFor, renderer);
+      if (binding == null) {
+        continue;
+      }
+      List<Binding> modelBindings = bindings.get(binding.model);
+      if (modelBindings == null) {
+        modelBindings = new ArrayList<>();
+        bindings.put(binding.model, modelBindings);
+      }
+      modelBindings.add(binding);
+    }
+    for (Map.Entry<TypeElement, List<Binding>> entry : bindings.entrySet()) {
+      TypeElement model = entry.getKey();
+      List<Binding> modelBindings = entry.getValue();
+      if (!generatedModels.add(model.getQualifiedName().toString())) {
+        error(model, "Renderers bound to %s have to be declared in the same compilation round",
+            model.getQualifiedName());
+        continue;
+      }
+      if (validateBindings(modelBindings)) {
+        sortBindings(modelBindings);
+        generateRendererBuilder(model, modelBindings);
+      }
+    }
+    return true;
+  }
+
+  private Binding parseBinding(Element element, TypeElement rendererFor, TypeElement renderer) {
+    if (element.getKind() != ElementKind.CLASS) {
+      error(element, "@RendererFor can only be used with Renderer classes");
+      return null;
+    }
+    TypeElement rendererElement = (TypeElement) element;
+    AnnotationMirror annotation = getAnnotationMirror(rendererElement, rendererFor);
+    TypeMirror modelType = (TypeMirror) getAnnotationValue(annotation, "value");
+    String predicate = (String) getAnnotationValue(annotation, "predicate");
+    int priority = (Integer) getAnnotationValue(annotation, "priority");
+    if (modelType.getKind() != TypeKind.DECLARED) {
+      error(rendererElement, "@RendererFor model has to be a class or an interface");
+      return null;
+    }
+    TypeElement model = (TypeElement) types.asElement(modelType);
+    boolean isValid = validateRenderer(rendererElement, renderer, model);
+    ExecutableElement predicateMethod = null;
+    if (!predicate.isEmpty()) {
+      predicateMethod = findPredicate(model, predicate);
+      if (predicateMethod == null) {
+        error(rendererElement, "%s has to declare a public boolean %s() method to be used as predicate",
+            model.getQualifiedName(), predicate);
+        isValid = false;
+      }
+    }
+    return isValid ? new Binding(model, rendererElement, predicateMethod, priority) : null;
+  }
+
+  private boolean validateRenderer(TypeElement rendererElement, TypeElement renderer, TypeElement model) {
+    Set<Modifier> modifiers = rendererElement.getModifiers();
+    boolean isNested = rendererElement.getNestingKind() != NestingKind.TOP_LEVEL;
+    if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)
+        || isNested && !modifiers.contains(Modifier.STATIC)) {
+      error(rendererElement, "%s has to be a public, static and non abstract class to be used with @RendererFor",
+          rendererElement.getQualifiedName());
+      return false;
+    }
+    DeclaredType rendererSupertype = findRendererSupertype(rendererElement.asType(), renderer);
+    if (rendererSupertype == null) {
+      error(rendererElement, "%s has to extend Renderer to be used with @RendererFor",
+          rendererElement.getQualifiedName());
+      return false;
+    }
+    List<? extends TypeMirror> typeArguments = rendererSupertype.getTypeArguments();
+    if (typeArguments.size() != 1
+        || !types.isSameType(types.erasure(typeArguments.get(0)), types.erasure(model.asType()))) {
+      error(rendererElement, "%s has to extend Renderer<%s> to be bound to %s",
+          rendererElement.getQualifiedName(), model.getSimpleName(), model.getQualifiedName());
+      return false;
+    }
+    if (!hasPublicEmptyConstructor(rendererElement)) {
+      error(rendererElement, "%s has to declare a public constructor without arguments to be used with @RendererFor",
+          rendererElement.getQualifiedName());
+      return false;
+    }
+    return true;
+  }
+
+  private boolean validateBindings(List<Binding> bindings) {
+    boolean isValid = true;
+    Binding defaultBinding = null;
+    Set<String> predicates = new HashSet<>();
+    for (Binding binding : bindings) {
+      if (binding.predicate == null) {
+        if (defaultBinding != null) {
+          error(binding.renderer, "%s and %s are both bound to %s without predicate",
+              defaultBinding.renderer.getQualifiedName(), binding.renderer.getQualifiedName(),
+              binding.model.getQualifiedName());
+          isValid = false;
+        }
+        defaultBinding = binding;
+      } else if (!predicates.add(binding.predicate.getSimpleName().toString())) {
+        error(binding.renderer, "The predicate %s is used by more than one Renderer bound to %s",
+            binding.predicate.getSimpleName(), binding.model.getQualifiedName());
+        isValid = false;
+      }
+    }
+    return isValid;
+  }
+
+  /**
+   * Renderers with predicate go first sorted by priority and name. The Renderer used by default
+   * goes at the end of the list.
+   */
+  private void sortBindings(List<Binding> bindings) {
+    Collections.sort(bindings, new Comparator<Binding>() {
+      @Override public int compare(Binding first, Binding second) {
+        if ((first.predicate == null) != (second.predicate == null)) {
+          return first.predicate == null ? 1 : -1;
+        }
+        if (first.priority != second.priority) {
+          return first.priority > second.priority ? -1 : 1;
+        }
+        return first.renderer.getQualifiedName().toString()
+            .compareTo(second.renderer.getQualifiedName().toString());
+      }
+    });
+  }
+
+  private void generateRendererBuilder(TypeElement model, List<Binding> bindings) {
+    String packageName = elements.getPackageOf(model).getQualifiedName().toString();
+    String className = getGeneratedClassName(model);
+    String modelName = model.getQualifiedName().toString();
+    StringBuilder source = new StringBuilder();
+    source.append("// Generated code from Renderers annotation processor. Do not modify!\n");
+    if (!packageName.isEmpty()) {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+    source.append("import ").append(RENDERER).append(";\n");
+    source.append("import ").append(RENDERER_BUILDER).append(";\n");
+    source.append("import ").append(PROTOTYPE_NOT_FOUND_EXCEPTION).append(";\n");
+    source.append("import java.util.Arrays;\n\n");
+    source.append("public final class ").append(className)
+        .append(" extends RendererBuilder<").append(modelName).append("> {\n\n");
+
+    source.append("  public ").append(className).append("() {\n");
+    source.append("    super(Arrays.<Renderer<? extends ").append(modelName).append(">>asList(");
+    for (int i = 0; i < bindings.size(); i++) {
+      source.append(i == 0 ? "\n" : ",\n");
+      source.append("        new ").append(bindings.get(i).renderer.getQualifiedName()).append("()");
+    }
+    source.append("));\n");
+    source.append("  }\n\n");
+
+    source.append("  @Override protected int getItemViewType(").append(modelName).append(" content) {\n");
+    Binding defaultBinding = null;
+    for (int viewType = 0; viewType < bindings.size(); viewType++) {
+      Binding binding = bindings.get(viewType);
+      if (binding.predicate == null) {
+        defaultBinding = binding;
+        continue;
+      }
+      source.append("    if (content.").append(binding.predicate.getSimpleName()).append("()) {\n");
+      source.append("      return ").append(viewType).append(";\n");
+      source.append("    }\n");
+    }
+    if (defaultBinding != null) {
+      source.append("    return ").append(bindings.size() - 1).append(";\n");
+    } else {
+      source.append("    throw new PrototypeNotFoundException(\"There is no Renderer bound to \" + content);\n");
+    }
+    source.append("  }\n\n");
+
+    source.append("  @Override protected Class getPrototypeClass(").append(modelName).append(" content) {\n");
+    source.append("    switch (getItemViewType(content)) {\n");
+    for (int viewType = 0; viewType < bindings.size(); viewType++) {
+      source.append("      case ").append(viewType).append(":\n");
+      source.append("        return ").append(bindings.get(viewType).renderer.getQualifiedName())
+          .append(".class;\n");
+    }
+    source.append("      default:\n");
+    source.append("        return null;\n");
+    source.append("    }\n");
+    source.append("  }\n\n");
+
+    source.append("  @Override protected Renderer instantiateRenderer(int viewType) {\n");
+    source.append("    switch (viewType) {\n");
+    for (int viewType = 0; viewType < bindings.size(); viewType++) {
+      source.append("      case ").append(viewType).append(":\n");
+      source.append("        return new ").append(bindings.get(viewType).renderer.getQualifiedName())
+          .append("();\n");
+    }
+    source.append("      default:\n");
+    source.append("        throw new PrototypeNotFoundException(\"There is no Renderer for view type \"\n");
+    source.append("            + viewType);\n");
+    source.append("    }\n");
+    source.append("  }\n");
+    source.append("}\n");
+
+    String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+    Element[] originatingElements = new Element[bindings.size()];
+    for (int i = 0; i < bindings.size(); i++) {
+      originatingElements[i] = bindings.get(i).renderer;
+    }
+    try {
+      Writer writer = filer.createSourceFile(qualifiedName, originatingElements).openWriter();
+      try {
+        writer.write(source.toString());
+      } finally {
+        writer.close();
+      }
+    } catch (IOException e) {
+      error(model, "Unable to generate %s: %s", qualifiedName, e.getMessage());
+    }
+  }
+
+  static String getGeneratedClassName(TypeElement model) {
+    String className = model.getSimpleName().toString();
+    Element enclosing = model.getEnclosingElement();
+    while (enclosing.getKind().isClass() || enclosing.getKind().isInterface()) {
+      className = enclosing.getSimpleName() + "_" + className;
+      enclosing = enclosing.getEnclosingElement();
+    }
+    return className + GENERATED_CLASS_SUFFIX;
+  }
+
+  private DeclaredType findRendererSupertype(TypeMirror type, TypeElement renderer) {
+    for (TypeMirror supertype : types.directSupertypes(type)) {
+      if (supertype.getKind() != TypeKind.DECLARED) {
+        continue;
+      }
+      if (types.isSameType(types.erasure(supertype), types.erasure(renderer.asType()))) {
+        return (DeclaredType) supertype;
+      }
+      DeclaredType rendererSupertype = findRendererSupertype(supertype, renderer);
+      if (rendererSupertype != null) {
+        return rendererSupertype;
+      }
+    }
+    return null;
+  }
+
+  private ExecutableElement findPredicate(TypeElement model, String predicate) {
+    for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(model))) {
+      Set<Modifier> modifiers = method.getModifiers();
+      if (method.getSimpleName().contentEquals(predicate)
+          && method.getParameters().isEmpty()
+          && method.getReturnType().getKind() == TypeKind.BOOLEAN
+          && modifiers.contains(Modifier.PUBLIC)
+          && !modifiers.contains(Modifier.STATIC)) {
+        return method;
+      }
+    }
+    return null;
+  }
+
+  private boolean hasPublicEmptyConstructor(TypeElement rendererElement) {
+    List<? extends Element> enclosedElements = rendererElement.getEnclosedElements();
+    for (ExecutableElement constructor : ElementFilter.constructorsIn(enclosedElements)) {
+      if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private AnnotationMirror getAnnotationMirror(Element element, TypeElement annotation) {
+    for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      if (types.isSameType(mirror.getAnnotationType(), annotation.asType())) {
+        return mirror;
+      }
+    }
+    return null;
+  }
+
+  private Object getAnnotationValue(AnnotationMirror annotation, String name) {
+    Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+        elements.getElementValuesWithDefaults(annotation);
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals(name)) {
+        return entry.getValue().getValue();
+      }
+    }
+    return null;
+  }
+
+  private void error(Element element, String message, Object... args) {
+    messager.printMessage(Diagnostic.Kind.ERROR, String.format(message, args), element);
+  }
+
+  /**
+   * Binding between a model class and a Renderer declared using a RendererFor annotation.
+   */
+  private static final class Binding {
+
+    private final TypeElement model;
+    private final TypeElement renderer;
+    private final ExecutableElement predicate;
+    private final int priority;
+
+    Binding(TypeElement model, TypeElement renderer, ExecutableElement predicate, int priority) {
+      this.model = model;
+      this.renderer = renderer;
+      this.predicate = predicate;
+      this.priority = priority;
+    }
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class created to check the correct behaviour of RendererBuilderProcessor.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class RendererBuilderProcessorTest {
+
+  private static final String RENDERER = "package com.pedrogomez.renderers;\n"
+      + "public abstract class Renderer<T> {\n"
+      + "  public abstract void render();\n"
+      + "}\n";
+  private static final String RENDERER_BUILDER = "package com.pedrogomez.renderers;\n"
+      + "import java.util.Collection;\n"
+      + "public class RendererBuilder<T> {\n"
+      + "  public RendererBuilder(Collection<? extends Renderer<? extends T>> prototypes) { }\n"
+      + "  protected int getItemViewType(T content) { return 0; }\n"
+      + "  protected Class getPrototypeClass(T content) { return null; }\n"
+      + "  protected Renderer instantiateRenderer(int viewType) { return null; }\n"
+      + "}\n";
+  private static final String PROTOTYPE_NOT_FOUND_EXCEPTION =
+      "package com.pedrogomez.renderers.exception;\n"
+          + "public class PrototypeNotFoundException extends RuntimeException {\n"
+          + "  public PrototypeNotFoundException(String message) { super(message); }\n"
+          + "}\n";
+  private static final String RENDERER_FOR = "package com.pedrogomez.renderers.annotation;\n"
+      + "public @interface RendererFor {\n"
+      + "  Class<?> value();\n"
+      + "  String predicate() default \"\";\n"
+      + "  int priority() default 0;\n"
+      + "}\n";
+  private static final String VIDEO = "package com.example;\n"
+      + "public class Video {\n"
+      + "  public boolean isFavorite() { return false; }\n"
+      + "  public boolean isLive() { return false; }\n"
+      + "}\n";
+
+  @Test public void shouldGenerateARendererBuilderForTheModelClass() {
+    Compilation compilation = compile(
+        renderer("LikeVideoRenderer", "@RendererFor(Video.class)"),
+        renderer("FavoriteVideoRenderer", "@RendererFor(value = Video.class, predicate = \"isFavorite\")"),
+        renderer("LiveVideoRenderer",
+            "@RendererFor(value = Video.class, predicate = \"isLive\", priority = 1)"));
+
+    assertTrue(compilation.errors.toString(), compilation.errors.isEmpty());
+    String source = compilation.generatedSources.get("com.example.Video_RendererBuilder");
+    assertTrue(source.contains("public final class Video_RendererBuilder"
+        + " extends RendererBuilder<com.example.Video>"));
+    assertTrue(source.contains("    if (content.isLive()) {\n      return 0;\n    }\n"
+        + "    if (content.isFavorite()) {\n      return 1;\n    }\n    return 2;\n"));
+    assertTrue(source.contains("      case 2:\n        return new com.example.LikeVideoRenderer();\n"));
+  }
+
+  @Test public void shouldThrowPrototypeNotFoundExceptionIfThereIsNoDefaultRenderer() {
+    Compilation compilation = compile(
+        renderer("FavoriteVideoRenderer", "@RendererFor(value = Video.class, predicate = \"isFavorite\")"));
+
+    assertTrue(compilation.errors.toString(), compilation.errors.isEmpty());
+    String source = compilation.generatedSources.get("com.example.Video_RendererBuilder");
+    assertTrue(source.contains("throw new PrototypeNotFoundException(\"There is no Renderer bound to \""));
+  }
+
+  @Test public void shouldFailIfMoreThanOneRendererIsBoundWithoutPredicate() {
+    Compilation compilation = compile(
+        renderer("LikeVideoRenderer", "@RendererFor(Video.class)"),
+        renderer("FavoriteVideoRenderer", "@RendererFor(Video.class)"));
+
+    assertEquals(1, compilation.errors.size());
+    assertTrue(compilation.errors.get(0).contains("without predicate"));
+  }
+
+  @Test public void shouldFailIfThePredicateIsNotDeclaredInTheModel() {
+    Compilation compilation = compile(
+        renderer("FavoriteVideoRenderer", "@RendererFor(value = Video.class, predicate = \"isShort\")"));
+
+    assertEquals(1, compilation.errors.size());
+    assertTrue(compilation.errors.get(0).contains("public boolean isShort()"));
+  }
+
+  @Test public void shouldFailIfTheRendererHasNoPublicEmptyConstructor() {
+    Compilation compilation = compile(source("com.example.LikeVideoRenderer", "package com.example;\n"
+        + "import com.pedrogomez.renderers.Renderer;\n"
+        + "import com.pedrogomez.renderers.annotation.RendererFor;\n"
+        + "@RendererFor(Video.class)\n"
+        + "public class LikeVideoRenderer extends Renderer<Video> {\n"
+        + "  public LikeVideoRenderer(String title) { }\n"
+        + "  @Override public void render() { }\n"
+        + "}\n"));
+
+    assertEquals(1, compilation.errors.size());
+    assertTrue(compilation.errors.get(0).contains("public constructor without arguments"));
+  }
+
+  @Test public void shouldFailIfTheRendererDoesNotRenderTheModel() {
+    Compilation compilation = compile(source("com.example.LikeVideoRenderer", "package com.example;\n"
+        + "import com.pedrogomez.renderers.Renderer;\n"
+        + "import com.pedrogomez.renderers.annotation.RendererFor;\n"
+        + "@RendererFor(Video.class)\n"
+        + "public class LikeVideoRenderer extends Renderer<String> {\n"
+        + "  @Override public void render() { }\n"
+        + "}\n"));
+
+    assertEquals(1, compilation.errors.size());
+    assertTrue(compilation.errors.get(0).contains("has to extend Renderer<Video>"));
+  }
+
+  private JavaFileObject renderer(String name, String annotation) {
+    return source("com.example." + name, "package com.example;\n"
+        + "import com.pedrogomez.renderers.Renderer;\n"
+        + "import com.pedrogomez.renderers.annotation.RendererFor;\n"
+        + annotation + "\n"
+        + "public class " + name + " extends Renderer<Video> {\n"
+        + "  @Override public void render() { }\n"
+        + "}\n");
+  }
+
+  private Compilation compile(JavaFileObject... renderers) {
+    List<JavaFileObject> sources = new ArrayList<>(Arrays.asList(renderers));
+    sources.add(source("com.pedrogomez.renderers.Renderer", RENDERER));
+    sources.add(source("com.pedrogomez.renderers.RendererBuilder", RENDERER_BUILDER));
+    sources.add(source("com.pedrogomez.renderers.exception.PrototypeNotFoundException",
+        PROTOTYPE_NOT_FOUND_EXCEPTION));
+    sources.add(source("com.pedrogomez.renderers.annotation.RendererFor", RENDERER_FOR));
+    sources.add(source("com.example.Video", VIDEO));
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, null, null);
+    InMemoryFileManager fileManager = new InMemoryFileManager(standardFileManager);
+    JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+        Collections.<String>emptyList(), null, sources);
+    task.setProcessors(Collections.singletonList(new RendererBuilderProcessor()));
+    task.call();
+
+    Compilation compilation = new Compilation();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        compilation.errors.add(diagnostic.getMessage(null));
+      }
+    }
+    compilation.generatedSources.putAll(fileManager.generatedSources);
+    return compilation;
+  }
+
+  private static JavaFileObject source(String qualifiedName, final String code) {
+    URI uri = URI.create("string:///" + qualifiedName.replace('.', '/') + ".java");
+    return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+      @Override public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return code;
+      }
+    };
+  }
+
+  private static class Compilation {
+
+    private final List<String> errors = new ArrayList<>();
+    private final Map<String, String> generatedSources = new HashMap<>();
+  }
+
+  /**
+   * JavaFileManager keeping the compilation output in memory.
+   */
+  private static class InMemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+    private final Map<String, String> generatedSources = new HashMap<>();
+
+    InMemoryFileManager(JavaFileManager fileManager) {
+      super(fileManager);
+    }
+
+    @Override public JavaFileObject getJavaFileForOutput(Location location, final String className,
+        final JavaFileObject.Kind kind, FileObject sibling) {
+      URI uri = URI.create("memory:///" + className.replace('.', '/') + kind.extension);
+      return new SimpleJavaFileObject(uri, kind) {
+        @Override public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+          return generatedSources.get(className);
+        }
+
+        @Override public OutputStream openOutputStream() {
+          return new ByteArrayOutputStream() {
+            @Override public void close() throws IOException {
+              super.close();
+              if (kind == JavaFileObject.Kind.SOURCE) {
+                generatedSources.put(className, toString("UTF-8"));
+              }
+            }
+          };
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+/**
+ * Provides the payload describing the changes between two versions of the same item. The adapters
+ * dispatch the payload returned with the change notification, so the Renderer associated to the
+ * item can apply just the changes described in its render(List) method.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public interface ChangePayloadProvider<T> {
+
+  /**
+   * @param oldItem previous version of the item.
+   * @param newItem new version of the item.
+   * @return the payload describing the changes or null to render the whole item again.
+   */
+  Object getChangePayload(T oldItem, T newItem);
+}
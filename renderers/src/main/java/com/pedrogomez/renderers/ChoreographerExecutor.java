@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor implementation running every task at the beginning of the next frame using the main
+ * thread Choreographer. It has to be created from the main thread, but tasks can be executed from
+ * any thread.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+final class ChoreographerExecutor implements Executor {
+
+  private final Choreographer choreographer = Choreographer.getInstance();
+
+  @Override public void execute(final Runnable command) {
+    choreographer.postFrameCallback(new Choreographer.FrameCallback() {
+      @Override public void doFrame(long frameTimeNanos) {
+        command.run();
+      }
+    });
+  }
+}
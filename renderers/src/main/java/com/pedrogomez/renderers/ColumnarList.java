@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * List storing the fields of its rows in columns of primitive arrays instead of one object per
+ * row. String columns store every different value just once. The rows are read using a
+ * Flyweight Row repositioned by every get invocation, so the Row returned is only valid until the
+ * next one and the adapters release it from the Renderer once rendered. Diff updates are not
+ * supported because every position returns the same Row instance, so RVRendererAdapter diffUpdate
+ * throws FlyweightDiffUpdateException and the view types cache is not preloaded.
+ * <p>
+ * The columns have to be added before adding rows, and the values of every row are configured
+ * using the columns:
+ * <pre>
+ * ColumnarList videos = new ColumnarList();
+ * ColumnarList.StringColumn title = videos.addStringColumn();
+ * ColumnarList.IntColumn likes = videos.addIntColumn();
+ * int position = videos.addRow();
+ * title.set(position, "Renderers");
+ * likes.set(position, 42);
+ * </pre>
+ * This list has to be used from the main thread and its mutator methods, except clear, throw
+ * UnsupportedOperationException.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class ColumnarList extends AbstractList<ColumnarList.Row> implements RandomAccess {
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private final List<Column> columns = new ArrayList<>();
+  private final Row row = new Row();
+  private int capacity = DEFAULT_CAPACITY;
+  private int size;
+
+  public IntColumn addIntColumn() {
+    return addColumn(new IntColumn());
+  }
+
+  public LongColumn addLongColumn() {
+    return addColumn(new LongColumn());
+  }
+
+  public DoubleColumn addDoubleColumn() {
+    return addColumn(new DoubleColumn());
+  }
+
+  public BooleanColumn addBooleanColumn() {
+    return addColumn(new BooleanColumn());
+  }
+
+  public StringColumn addStringColumn() {
+    return addColumn(new StringColumn());
+  }
+
+  /**
+   * Adds a new row with the default value of every column: zero, false or null.
+   *
+   * @return the position of the new row.
+   */
+  public int addRow() {
+    if (size == capacity) {
+      capacity *= 2;
+      for (Column column : columns) {
+        column.resize(capacity);
+      }
+    }
+    return size++;
+  }
+
+  /**
+   * Returns the Row shared by every position repositioned to the position passed as argument.
+   */
+  @Override public Row get(int position) {
+    checkPosition(position);
+    row.position = position;
+    return row;
+  }
+
+  @Override public int size() {
+    return size;
+  }
+
+  /**
+   * Removes every row keeping the columns.
+   */
+  @Override public void clear() {
+    size = 0;
+    for (Column column : columns) {
+      column.clear();
+    }
+  }
+
+  private <C extends Column> C addColumn(C column) {
+    column.resize(capacity);
+    columns.add(column);
+    return column;
+  }
+
+  private void checkPosition(int position) {
+    if (position < 0 || position >= size) {
+      throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size);
+    }
+  }
+
+  /**
+   * Returns true if the list passed as argument returns Flyweight content, like the rows of a
+   * ColumnarList. Copying this kind of list keeps the same instance once per position, placed in
+   * the last position read.
+   */
+  static boolean containsFlyweights(List<?> list) {
+    return list instanceof ColumnarList || (!list.isEmpty() && list.get(0) instanceof Flyweight);
+  }
+
+  /**
+   * Flyweight giving access to the values of one row.
+   */
+  public final class Row implements Flyweight {
+
+    private int position;
+
+    private Row() {
+    }
+
+    @Override public int getPosition() {
+      return position;
+    }
+
+    public int get(IntColumn column) {
+      return column.get(position);
+    }
+
+    public long get(LongColumn column) {
+      return column.get(position);
+    }
+
+    public double get(DoubleColumn column) {
+      return column.get(position);
+    }
+
+    public boolean get(BooleanColumn column) {
+      return column.get(position);
+    }
+
+    public String get(StringColumn column) {
+      return column.get(position);
+    }
+  }
+
+  /**
+   * Storage of one field of every row.
+   */
+  abstract class Column {
+
+    abstract void resize(int capacity);
+
+    void clear() {
+    }
+  }
+
+  public final class IntColumn extends Column {
+
+    private int[] values = new int[0];
+
+    private IntColumn() {
+    }
+
+    public int get(int position) {
+      checkPosition(position);
+      return values[position];
+    }
+
+    public void set(int position, int value) {
+      checkPosition(position);
+      values[position] = value;
+    }
+
+    @Override void resize(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override void clear() {
+      Arrays.fill(values, 0);
+    }
+  }
+
+  public final class LongColumn extends Column {
+
+    private long[] values = new long[0];
+
+    private LongColumn() {
+    }
+
+    public long get(int position) {
+      checkPosition(position);
+      return values[position];
+    }
+
+    public void set(int position, long value) {
+      checkPosition(position);
+      values[position] = value;
+    }
+
+    @Override void resize(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override void clear() {
+      Arrays.fill(values, 0L);
+    }
+  }
+
+  public final class DoubleColumn extends Column {
+
+    private double[] values = new double[0];
+
+    private DoubleColumn() {
+    }
+
+    public double get(int position) {
+      checkPosition(position);
+      return values[position];
+    }
+
+    public void set(int position, double value) {
+      checkPosition(position);
+      values[position] = value;
+    }
+
+    @Override void resize(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override void clear() {
+      Arrays.fill(values, 0d);
+    }
+  }
+
+  public final class BooleanColumn extends Column {
+
+    private boolean[] values = new boolean[0];
+
+    private BooleanColumn() {
+    }
+
+    public boolean get(int position) {
+      checkPosition(position);
+      return values[position];
+    }
+
+    public void set(int position, boolean value) {
+      checkPosition(position);
+      values[position] = value;
+    }
+
+    @Override void resize(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override void clear() {
+      Arrays.fill(values, false);
+    }
+  }
+
+  /**
+   * Column storing the index of every value in a pool of the different values stored.
+   */
+  public final class StringColumn extends Column {
+
+    private static final int NULL_VALUE = -1;
+
+    private final List<String> pool = new ArrayList<>();
+    private final Map<String, Integer> poolIndexes = new HashMap<>();
+    private int[] indexes = new int[0];
+
+    private StringColumn() {
+    }
+
+    public String get(int position) {
+      checkPosition(position);
+      int index = indexes[position];
+      return index == NULL_VALUE ? null : pool.get(index);
+    }
+
+    public void set(int position, String value) {
+      checkPosition(position);
+      indexes[position] = value == null ? NULL_VALUE : getPoolIndex(value);
+    }
+
+    /**
+     * Returns the number of different values stored.
+     */
+    public int getPoolSize() {
+      return pool.size();
+    }
+
+    private int getPoolIndex(String value) {
+      Integer index = poolIndexes.get(value);
+      if (index == null) {
+        index = pool.size();
+        pool.add(value);
+        poolIndexes.put(value, index);
+      }
+      return index;
+    }
+
+    @Override void resize(int capacity) {
+      int oldCapacity = indexes.length;
+      indexes = Arrays.copyOf(indexes, capacity);
+      Arrays.fill(indexes, oldCapacity, capacity, NULL_VALUE);
+    }
+
+    @Override void clear() {
+      pool.clear();
+      poolIndexes.clear();
+      Arrays.fill(indexes, NULL_VALUE);
+    }
+  }
+}
@@ -5,13 +5,40 @@ import androidx.recyclerview.widget.DiffUtil;
 
 public class DefaultDiffUtilItemCallback<T> extends DiffUtil.ItemCallback<T> {
 
+    private final ItemIdProvider<T> itemIdProvider;
+    private final ChangePayloadProvider<T> changePayloadProvider;
+
+    public DefaultDiffUtilItemCallback() {
+        this(null, null);
+    }
+
+    /**
+     * Creates a DiffUtil.ItemCallback identifying the items using the ItemIdProvider passed as
+     * argument instead of the item instances and providing change payloads using the
+     * ChangePayloadProvider passed as argument. Both can be null.
+     */
+    public DefaultDiffUtilItemCallback(ItemIdProvider<T> itemIdProvider,
+                                       ChangePayloadProvider<T> changePayloadProvider) {
+        this.itemIdProvider = itemIdProvider;
+        this.changePayloadProvider = changePayloadProvider;
+    }
+
     @Override
     public boolean areItemsTheSame(@NonNull T oldItem, @NonNull T newItem) {
+        if (itemIdProvider != null) {
+            return itemIdProvider.getItemId(oldItem) == itemIdProvider.getItemId(newItem);
+        }
         return oldItem == newItem;
     }
 
     @Override
     public boolean areContentsTheSame(@NonNull T oldItem, @NonNull T newItem) {
-        return oldItem.equals(newItem);
+        return DiffCallback.haveTheSameContent(oldItem, newItem);
+    }
+
+    @Override
+    public Object getChangePayload(@NonNull T oldItem, @NonNull T newItem) {
+        return changePayloadProvider != null
+                ? changePayloadProvider.getChangePayload(oldItem, newItem) : null;
     }
 }
@@ -23,6 +23,12 @@ class DiffCallback<T> extends DiffUtil.Callback {
 
   private final List<T> oldList;
   private final List<T> newList;
+  private final ItemIdProvider<T> itemIdProvider;
+  private final ChangePayloadProvider<T> changePayloadProvider;
+  private final long[] oldKeys;
+  private final long[] newKeys;
+  private final boolean[] oldKeysCalculated;
+  private final boolean[] newKeysCalculated;
 
   /**
    * @deprecated Use {@link #DiffCallback(List, List)} function instead.
@@ -37,11 +43,32 @@ class DiffCallback<T> extends DiffUtil.Callback {
               + "AdapteeCollection has been deprecated and will disappear in upcoming version");
     }
     this.newList = newList;
+    this.itemIdProvider = null;
+    this.changePayloadProvider = null;
+    this.oldKeys = new long[this.oldList.size()];
+    this.newKeys = new long[newList.size()];
+    this.oldKeysCalculated = new boolean[oldKeys.length];
+    this.newKeysCalculated = new boolean[newKeys.length];
   }
 
   DiffCallback(List<T> oldList, List<T> newList) {
+    this(oldList, newList, null, null);
+  }
+
+  /**
+   * Creates a DiffCallback identifying the items using the ItemIdProvider passed as argument and
+   * providing change payloads using the ChangePayloadProvider passed as argument. Both can be null.
+   */
+  DiffCallback(List<T> oldList, List<T> newList, ItemIdProvider<T> itemIdProvider,
+      ChangePayloadProvider<T> changePayloadProvider) {
     this.oldList = oldList;
     this.newList = newList;
+    this.itemIdProvider = itemIdProvider;
+    this.changePayloadProvider = changePayloadProvider;
+    this.oldKeys = new long[oldList.size()];
+    this.newKeys = new long[newList.size()];
+    this.oldKeysCalculated = new boolean[oldKeys.length];
+    this.newKeysCalculated = new boolean[newKeys.length];
   }
 
   @Override public int getOldListSize() {
@@ -53,15 +80,60 @@ class DiffCallback<T> extends DiffUtil.Callback {
   }
 
   @Override public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+    if (getKey(oldList, oldKeys, oldKeysCalculated, oldItemPosition)
+        != getKey(newList, newKeys, newKeysCalculated, newItemPosition)) {
+      return false;
+    }
+    if (itemIdProvider != null) {
+      return true;
+    }
     T oldItem = oldList.get(oldItemPosition);
     T newItem = newList.get(newItemPosition);
-    boolean areTheSameInstance = oldItem == newItem;
-    boolean hasTheSameType = oldItem.getClass().equals(newItem.getClass());
-    boolean hasTheSameHash = oldItem.hashCode() == newItem.hashCode();
-    return areTheSameInstance || hasTheSameType && hasTheSameHash;
+    return oldItem == newItem || oldItem.getClass().equals(newItem.getClass());
   }
 
   @Override public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-    return oldList.get(oldItemPosition).equals(newList.get(newItemPosition));
+    return haveTheSameContent(oldList.get(oldItemPosition), newList.get(newItemPosition));
+  }
+
+  @Override public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+    if (changePayloadProvider == null) {
+      return null;
+    }
+    return changePayloadProvider.getChangePayload(oldList.get(oldItemPosition),
+        newList.get(newItemPosition));
+  }
+
+  /**
+   * Compares the content of two versions of the same item. Items implementing Versioned are
+   * compared using their versions and the rest of items using equals.
+   *
+   * @param oldItem previous version of the item.
+   * @param newItem new version of the item.
+   * @return true if both versions have the same content.
+   */
+  static boolean haveTheSameContent(Object oldItem, Object newItem) {
+    if (oldItem == newItem) {
+      return true;
+    }
+    if (oldItem instanceof Versioned && newItem instanceof Versioned) {
+      return ((Versioned) oldItem).getVersion() == ((Versioned) newItem).getVersion();
+    }
+    return oldItem.equals(newItem);
+  }
+
+  /**
+   * Returns the key used to identify the item placed in the position passed as argument: the id
+   * returned by the ItemIdProvider configured or, if there is no one, the item hash code. The keys
+   * are calculated the first time the position is compared, so the positions skipped by the
+   * differ, like the unchanged prefix and suffix, are never hashed.
+   */
+  private long getKey(List<T> list, long[] keys, boolean[] calculated, int position) {
+    if (!calculated[position]) {
+      T item = list.get(position);
+      keys[position] = itemIdProvider != null ? itemIdProvider.getItemId(item) : item.hashCode();
+      calculated[position] = true;
+    }
+    return keys[position];
   }
 }
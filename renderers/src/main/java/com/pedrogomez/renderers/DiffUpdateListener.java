@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+/**
+ * Listener notified from the main thread when an asynchronous diff update started using
+ * RVRendererAdapter finishes.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public interface DiffUpdateListener {
+
+  /**
+   * Invoked once the new list has been configured and the changes dispatched to the adapter.
+   */
+  void onDiffUpdateApplied();
+
+  /**
+   * Invoked when the result of the diff update is discarded because the adapter list has been
+   * updated or modified before the diff update finished.
+   */
+  void onDiffUpdateDiscarded();
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+/**
+ * Content reused to render several positions, like the rows of a ColumnarList. The adapters
+ * release the Flyweight content from the Renderer once it has been rendered, so getContent is only
+ * valid while rendering. Use getPosition to access the item again once rendered.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public interface Flyweight {
+
+  /**
+   * Returns the position of the item currently represented.
+   */
+  int getPosition();
+}
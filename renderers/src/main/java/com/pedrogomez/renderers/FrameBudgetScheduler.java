@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import android.os.Build;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler spreading the render work deferred by the Renderer instances across frames. On every
+ * frame the pending work is executed in the same order it was deferred until the frame budget is
+ * consumed, so a large update binding lots of renderers doesn't produce a single long frame. At
+ * least one piece of work is executed per frame. The work deferred by a Renderer that is rendered
+ * again before being executed is discarded.
+ * <p>
+ * Configure the scheduler in RVRendererAdapter or RVListRendererAdapter using
+ * setFrameBudgetScheduler. The same scheduler can be shared by different adapters. This class is
+ * not thread safe and has to be used from the main thread.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public final class FrameBudgetScheduler {
+
+  private static final long DEFAULT_FRAME_BUDGET_MILLIS = 4;
+
+  private final Executor frameExecutor;
+  private final Clock clock;
+  private final Queue<DeferredWork> pendingWork = new ArrayDeque<>();
+  private final Runnable frameTask = new Runnable() {
+    @Override public void run() {
+      frameScheduled = false;
+      runFrame();
+    }
+  };
+  private long frameBudgetNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_FRAME_BUDGET_MILLIS);
+  private boolean frameScheduled;
+
+  public FrameBudgetScheduler() {
+    this(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN ? new ChoreographerExecutor()
+        : new MainThreadExecutor(), new Clock() {
+      @Override public long nanoTime() {
+        return System.nanoTime();
+      }
+    });
+  }
+
+  FrameBudgetScheduler(Executor frameExecutor, Clock clock) {
+    this.frameExecutor = frameExecutor;
+    this.clock = clock;
+  }
+
+  /**
+   * Configures the time in milliseconds the deferred work can take on every frame. The default
+   * value is 4 milliseconds.
+   *
+   * @param frameBudgetMillis time available for the deferred work on every frame.
+   */
+  public void setFrameBudget(long frameBudgetMillis) {
+    if (frameBudgetMillis <= 0) {
+      throw new IllegalArgumentException("The frame budget has to be greater than zero");
+    }
+    this.frameBudgetNanos = TimeUnit.MILLISECONDS.toNanos(frameBudgetMillis);
+  }
+
+  /**
+   * Returns the number of pieces of work pending to be executed.
+   */
+  public int getPendingCount() {
+    return pendingWork.size();
+  }
+
+  /**
+   * Executes all the pending work without waiting for the next frames.
+   */
+  public void flush() {
+    while (!pendingWork.isEmpty()) {
+      pendingWork.poll().work.run();
+    }
+  }
+
+  void schedule(Renderer<?> owner, Runnable work) {
+    pendingWork.add(new DeferredWork(owner, work));
+    if (!frameScheduled) {
+      frameScheduled = true;
+      frameExecutor.execute(frameTask);
+    }
+  }
+
+  void cancel(Renderer<?> owner) {
+    Iterator<DeferredWork> iterator = pendingWork.iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().owner == owner) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private void runFrame() {
+    long frameStart = clock.nanoTime();
+    do {
+      DeferredWork deferredWork = pendingWork.poll();
+      if (deferredWork == null) {
+        return;
+      }
+      deferredWork.work.run();
+    } while (clock.nanoTime() - frameStart < frameBudgetNanos);
+    if (!pendingWork.isEmpty() && !frameScheduled) {
+      frameScheduled = true;
+      frameExecutor.execute(frameTask);
+    }
+  }
+
+  /**
+   * Source of the time used to measure the frame budget consumed.
+   */
+  interface Clock {
+
+    long nanoTime();
+  }
+
+  private static final class DeferredWork {
+
+    private final Renderer<?> owner;
+    private final Runnable work;
+
+    DeferredWork(Renderer<?> owner, Runnable work) {
+      this.owner = owner;
+      this.work = work;
+    }
+  }
+}
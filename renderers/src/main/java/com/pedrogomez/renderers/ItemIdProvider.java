@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+/**
+ * Provides the stable id associated to every item rendered by an adapter. Configuring an
+ * ItemIdProvider the adapters enable stable ids, so the widgets using them can keep the views
+ * already bound when the list changes. The id returned for an item has to be the same while the
+ * item is in the list and it can't be returned for any other item in the same list.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public interface ItemIdProvider<T> {
+
+  /**
+   * @param item to identify.
+   * @return the stable id associated to the item.
+   */
+  long getItemId(T item);
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import com.pedrogomez.renderers.exception.DuplicatedItemIdException;
+
+import java.util.List;
+
+/**
+ * Utility class used by the adapters to resolve the stable id of an item using an ItemIdProvider.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+final class ItemIds {
+
+  private ItemIds() {
+    //Empty
+  }
+
+  /**
+   * Returns the id of the item placed in the position passed as argument. If there is no
+   * ItemIdProvider the position is used as id. The positions of a PagedList not loaded yet share
+   * the same placeholder, so they use the PagedList placeholder id of their position instead. If
+   * the collision checks are enabled, every item in the list is checked to ensure the id is not
+   * used by any other item. Checking collisions is a linear operation, so it should be enabled
+   * just in debug builds.
+   *
+   * @param itemIdProvider used to resolve the id or null.
+   * @param list containing the item.
+   * @param position of the item.
+   * @param checkCollisions true if the collision checks are enabled.
+   * @return the id associated to the item.
+   */
+  static <T> long getItemId(ItemIdProvider<T> itemIdProvider, List<T> list, int position,
+      boolean checkCollisions) {
+    if (itemIdProvider == null) {
+      return position;
+    }
+    long itemId = getProvidedItemId(itemIdProvider, list, position);
+    if (checkCollisions) {
+      for (int i = 0; i < list.size(); i++) {
+        if (i != position && getProvidedItemId(itemIdProvider, list, i) == itemId) {
+          throw new DuplicatedItemIdException("The items placed at positions " + position + " and "
+              + i + " have the same id " + itemId);
+        }
+      }
+    }
+    return itemId;
+  }
+
+  private static <T> long getProvidedItemId(ItemIdProvider<T> itemIdProvider, List<T> list,
+      int position) {
+    if (list instanceof PagedList && !((PagedList<T>) list).isLoaded(position)) {
+      return PagedList.getPlaceholderId(position);
+    }
+    return itemIdProvider.getItemId(list.get(position));
+  }
+}
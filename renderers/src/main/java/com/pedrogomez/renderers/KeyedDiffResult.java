@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+import com.pedrogomez.renderers.exception.DuplicatedItemIdException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Differences between two lists calculated identifying every item by the key returned by an
+ * ItemIdProvider. The items are matched using a hash map over the keys, so removals, insertions
+ * and changes are found in linear time. The items kept in place are the longest increasing
+ * subsequence of the items present in both lists, so the number of moves dispatched is the
+ * minimum needed. The whole algorithm runs in O(n log n) time instead of depending on the number
+ * of differences like DiffUtil does, which makes it the right choice when big lists are reordered.
+ *
+ * The updates are calculated when the result is created and recorded to be dispatched later, so
+ * the result can be calculated outside the main thread.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+final class KeyedDiffResult implements ListDiffResult {
+
+  private static final int INSERT = 0;
+  private static final int REMOVE = 1;
+  private static final int MOVE = 2;
+  private static final int CHANGE = 3;
+  private static final int OPERATION_SIZE = 3;
+
+  private int[] operations = new int[OPERATION_SIZE * 8];
+  private int operationCount;
+  private final List<Object> payloads = new ArrayList<>();
+
+  private KeyedDiffResult() {
+  }
+
+  /**
+   * Calculates the differences between the lists passed as argument.
+   *
+   * @param oldList previous version of the list.
+   * @param newList new version of the list.
+   * @param itemIdProvider used to identify the items. The new list can't contain repeated ids.
+   * @param changePayloadProvider used to describe the items changed. It can be null.
+   * @return the differences between both lists.
+   */
+  static <T> KeyedDiffResult calculate(List<T> oldList, List<T> newList,
+      ItemIdProvider<T> itemIdProvider, ChangePayloadProvider<T> changePayloadProvider) {
+    KeyedDiffResult result = new KeyedDiffResult();
+    int oldSize = oldList.size();
+    int newSize = newList.size();
+
+    Map<Long, Integer> newPositions = new HashMap<>(Math.max(16, newSize * 2));
+    for (int i = 0; i < newSize; i++) {
+      Integer previousPosition = newPositions.put(itemIdProvider.getItemId(newList.get(i)), i);
+      if (previousPosition != null) {
+        throw new DuplicatedItemIdException("The items placed at positions " + previousPosition
+            + " and " + i + " of the new list have the same id");
+      }
+    }
+
+    int[] survivorOldPositions = new int[Math.min(oldSize, newSize)];
+    int[] survivorNewPositions = new int[survivorOldPositions.length];
+    int[] newPositionRanks = new int[newSize];
+    Arrays.fill(newPositionRanks, -1);
+    int survivorCount = 0;
+    int pendingRemovalPosition = -1;
+    int pendingRemovalCount = 0;
+    for (int i = oldSize - 1; i >= 0; i--) {
+      Integer newPosition = newPositions.get(itemIdProvider.getItemId(oldList.get(i)));
+      if (newPosition == null || newPositionRanks[newPosition] != -1) {
+        if (pendingRemovalCount > 0 && pendingRemovalPosition != i + 1) {
+          result.add(REMOVE, pendingRemovalPosition, pendingRemovalCount);
+          pendingRemovalCount = 0;
+        }
+        pendingRemovalPosition = i;
+        pendingRemovalCount++;
+      } else {
+        newPositionRanks[newPosition] = 0;
+        survivorOldPositions[survivorCount] = i;
+        survivorNewPositions[survivorCount] = newPosition;
+        survivorCount++;
+      }
+    }
+    if (pendingRemovalCount > 0) {
+      result.add(REMOVE, pendingRemovalPosition, pendingRemovalCount);
+    }
+    reverse(survivorOldPositions, survivorCount);
+    reverse(survivorNewPositions, survivorCount);
+    for (int rank = 0; rank < survivorCount; rank++) {
+      newPositionRanks[survivorNewPositions[rank]] = rank;
+    }
+
+    boolean[] stays = longestIncreasingSubsequence(survivorNewPositions, survivorCount);
+    result.addMovesAndInsertions(newPositionRanks, stays, survivorCount);
+
+    for (int i = 0; i < newSize; i++) {
+      int rank = newPositionRanks[i];
+      if (rank == -1) {
+        continue;
+      }
+      T oldItem = oldList.get(survivorOldPositions[rank]);
+      T newItem = newList.get(i);
+      if (!DiffCallback.haveTheSameContent(oldItem, newItem)) {
+        Object payload = changePayloadProvider != null
+            ? changePayloadProvider.getChangePayload(oldItem, newItem) : null;
+        result.payloads.add(payload);
+        result.add(CHANGE, i, result.payloads.size() - 1);
+      }
+    }
+    return result;
+  }
+
+  @Override public void dispatchUpdatesTo(ListUpdateCallback callback) {
+    for (int i = 0; i < operationCount * OPERATION_SIZE; i += OPERATION_SIZE) {
+      int first = operations[i + 1];
+      int second = operations[i + 2];
+      switch (operations[i]) {
+        case INSERT:
+          callback.onInserted(first, second);
+          break;
+        case REMOVE:
+          callback.onRemoved(first, second);
+          break;
+        case MOVE:
+          callback.onMoved(first, second);
+          break;
+        default:
+          callback.onChanged(first, 1, payloads.get(second));
+          break;
+      }
+    }
+  }
+
+  /**
+   * Records the moves and insertions needed once the removed items are gone. The new list is
+   * traversed backwards and every item not staying in place is placed right before the item
+   * following it in the new list. The positions are resolved using a sequence of slots where
+   * every item has a slot at its current position and, if it has to be placed, another slot
+   * right before the slot of the following item, and a Fenwick tree counting the slots in use.
+   */
+  private void addMovesAndInsertions(int[] newPositionRanks, boolean[] stays, int survivorCount) {
+    int newSize = newPositionRanks.length;
+    int maxSlots = survivorCount + newSize;
+    int tail = maxSlots;
+    int[] nextSlots = new int[maxSlots + 1];
+    int[] previousSlots = new int[maxSlots + 1];
+    int head = survivorCount > 0 ? 0 : tail;
+    for (int slot = 0; slot < survivorCount; slot++) {
+      previousSlots[slot] = slot - 1;
+      nextSlots[slot] = slot + 1 < survivorCount ? slot + 1 : tail;
+    }
+    previousSlots[tail] = survivorCount - 1;
+
+    int[] targetSlots = new int[newSize];
+    int slotCount = survivorCount;
+    for (int i = newSize - 1; i >= 0; i--) {
+      int rank = newPositionRanks[i];
+      if (rank != -1 && stays[rank]) {
+        targetSlots[i] = rank;
+      } else {
+        int slot = slotCount++;
+        int nextSlot = i + 1 < newSize ? targetSlots[i + 1] : tail;
+        int previousSlot = previousSlots[nextSlot];
+        previousSlots[slot] = previousSlot;
+        nextSlots[slot] = nextSlot;
+        previousSlots[nextSlot] = slot;
+        if (previousSlot == -1) {
+          head = slot;
+        } else {
+          nextSlots[previousSlot] = slot;
+        }
+        targetSlots[i] = slot;
+      }
+    }
+
+    int[] slotIndexes = new int[slotCount];
+    int index = 0;
+    for (int slot = head; slot != tail; slot = nextSlots[slot]) {
+      slotIndexes[slot] = index++;
+    }
+    int[] usedSlots = new int[slotCount + 1];
+    for (int slot = 0; slot < survivorCount; slot++) {
+      updateUsedSlots(usedSlots, slotIndexes[slot], 1);
+    }
+
+    int pendingInsertionPosition = -1;
+    int pendingInsertionCount = 0;
+    for (int i = newSize - 1; i >= 0; i--) {
+      int rank = newPositionRanks[i];
+      if (rank != -1 && stays[rank]) {
+        continue;
+      }
+      int targetIndex = slotIndexes[targetSlots[i]];
+      if (rank == -1) {
+        int position = countUsedSlots(usedSlots, targetIndex);
+        updateUsedSlots(usedSlots, targetIndex, 1);
+        if (pendingInsertionCount > 0 && pendingInsertionPosition != position) {
+          add(INSERT, pendingInsertionPosition, pendingInsertionCount);
+          pendingInsertionCount = 0;
+        }
+        pendingInsertionPosition = position;
+        pendingInsertionCount++;
+      } else {
+        if (pendingInsertionCount > 0) {
+          add(INSERT, pendingInsertionPosition, pendingInsertionCount);
+          pendingInsertionCount = 0;
+        }
+        int fromPosition = countUsedSlots(usedSlots, slotIndexes[rank]);
+        updateUsedSlots(usedSlots, slotIndexes[rank], -1);
+        int toPosition = countUsedSlots(usedSlots, targetIndex);
+        updateUsedSlots(usedSlots, targetIndex, 1);
+        if (fromPosition != toPosition) {
+          add(MOVE, fromPosition, toPosition);
+        }
+      }
+    }
+    if (pendingInsertionCount > 0) {
+      add(INSERT, pendingInsertionPosition, pendingInsertionCount);
+    }
+  }
+
+  private void add(int type, int first, int second) {
+    int offset = operationCount * OPERATION_SIZE;
+    if (offset + OPERATION_SIZE > operations.length) {
+      operations = Arrays.copyOf(operations, operations.length * 2);
+    }
+    operations[offset] = type;
+    operations[offset + 1] = first;
+    operations[offset + 2] = second;
+    operationCount++;
+  }
+
+  /**
+   * Returns the positions of the values forming the longest strictly increasing subsequence.
+   */
+  private static boolean[] longestIncreasingSubsequence(int[] values, int size) {
+    boolean[] result = new boolean[size];
+    int[] tails = new int[size];
+    int[] predecessors = new int[size];
+    int length = 0;
+    for (int i = 0; i < size; i++) {
+      int low = 0;
+      int high = length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (values[tails[middle]] < values[i]) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      predecessors[i] = low > 0 ? tails[low - 1] : -1;
+      tails[low] = i;
+      if (low == length) {
+        length++;
+      }
+    }
+    for (int i = length > 0 ? tails[length - 1] : -1; i != -1; i = predecessors[i]) {
+      result[i] = true;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of slots in use before the slot index passed as argument.
+   */
+  private static int countUsedSlots(int[] usedSlots, int slotIndex) {
+    int count = 0;
+    for (int i = slotIndex; i > 0; i -= i & -i) {
+      count += usedSlots[i];
+    }
+    return count;
+  }
+
+  private static void updateUsedSlots(int[] usedSlots, int slotIndex, int delta) {
+    for (int i = slotIndex + 1; i < usedSlots.length; i += i & -i) {
+      usedSlots[i] += delta;
+    }
+  }
+
+  private static void reverse(int[] values, int size) {
+    for (int i = 0, j = size - 1; i < j; i++, j--) {
+      int value = values[i];
+      values[i] = values[j];
+      values[j] = value;
+    }
+  }
+}
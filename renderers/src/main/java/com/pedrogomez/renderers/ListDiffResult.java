@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+/**
+ * Differences between two versions of a list ready to be dispatched to a ListUpdateCallback.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+interface ListDiffResult {
+
+  /**
+   * Dispatches the updates needed to transform the old list into the new one.
+   *
+   * @param callback notified with the updates.
+   */
+  void dispatchUpdatesTo(ListUpdateCallback callback);
+}
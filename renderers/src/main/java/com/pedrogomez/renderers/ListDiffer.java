@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import java.util.List;
+
+/**
+ * Immutable configuration used by RVRendererAdapter to calculate the differences between two
+ * versions of its list. The configuration is captured when the update starts, so the differences
+ * can be calculated from any thread.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+final class ListDiffer<T> {
+
+  private final ItemIdProvider<T> itemIdProvider;
+  private final ChangePayloadProvider<T> changePayloadProvider;
+  private final boolean detectMoves;
+  private final boolean keyed;
+
+  ListDiffer(ItemIdProvider<T> itemIdProvider, ChangePayloadProvider<T> changePayloadProvider,
+      boolean detectMoves, boolean keyed) {
+    if (keyed && itemIdProvider == null) {
+      throw new IllegalStateException("The keyed diff needs an ItemIdProvider to identify items");
+    }
+    this.itemIdProvider = itemIdProvider;
+    this.changePayloadProvider = changePayloadProvider;
+    this.detectMoves = detectMoves;
+    this.keyed = keyed;
+  }
+
+  /**
+   * Calculates the differences between the lists passed as argument using KeyedDiffResult if the
+   * keyed diff is enabled or TrimmedDiffResult if it is not. If both lists are versions of the
+   * same PersistentList the subtrees shared at the beginning and the end are not compared.
+   *
+   * @param oldList previous version of the list.
+   * @param newList new version of the list.
+   * @return the differences between both lists.
+   */
+  ListDiffResult calculate(List<T> oldList, List<T> newList) {
+    if (keyed) {
+      return KeyedDiffResult.calculate(oldList, newList, itemIdProvider, changePayloadProvider);
+    }
+    DiffCallback<T> diffCallback =
+        new DiffCallback<>(oldList, newList, itemIdProvider, changePayloadProvider);
+    if (oldList instanceof PersistentList && newList instanceof PersistentList) {
+      PersistentList<T> oldVersion = (PersistentList<T>) oldList;
+      PersistentList<T> newVersion = (PersistentList<T>) newList;
+      return TrimmedDiffResult.calculate(diffCallback, detectMoves,
+          PersistentList.sharedPrefixSize(oldVersion, newVersion),
+          PersistentList.sharedSuffixSize(oldVersion, newVersion));
+    }
+    return TrimmedDiffResult.calculate(diffCallback, detectMoves);
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Queue of modifications applied to the list of a RVRendererAdapter from the main thread. The
+ * modifications can be enqueued from any thread without blocking, and they are applied in order
+ * once per frame inside an adapter batch, so the RecyclerView is notified with the adjacent ranges
+ * modified merged. The number of modifications applied per frame is limited, and the ones
+ * exceeding the limit are applied in the next frames.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public final class ListMutationQueue<T> {
+
+  private static final int DEFAULT_MAX_MUTATIONS_PER_FRAME = 64;
+
+  private final RVRendererAdapter<T> adapter;
+  private final Executor frameExecutor;
+  private final Queue<Mutation<T>> mutations = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean drainScheduled = new AtomicBoolean();
+  private final Runnable drainTask = new Runnable() {
+    @Override public void run() {
+      drain();
+    }
+  };
+  private volatile int maxMutationsPerFrame = DEFAULT_MAX_MUTATIONS_PER_FRAME;
+
+  ListMutationQueue(RVRendererAdapter<T> adapter, Executor frameExecutor) {
+    this.adapter = adapter;
+    this.frameExecutor = frameExecutor;
+  }
+
+  /**
+   * Configures the maximum number of modifications applied per frame. The default value is 64.
+   *
+   * @param maxMutationsPerFrame number of modifications applied per frame.
+   */
+  public void setMaxMutationsPerFrame(int maxMutationsPerFrame) {
+    if (maxMutationsPerFrame <= 0) {
+      throw new IllegalArgumentException(
+          "The max number of mutations per frame has to be greater than zero");
+    }
+    this.maxMutationsPerFrame = maxMutationsPerFrame;
+  }
+
+  /**
+   * Enqueues the addition of the element passed as argument at the end of the list.
+   *
+   * @param element to add.
+   */
+  public void add(final T element) {
+    enqueue(new Mutation<T>() {
+      @Override void apply(RVRendererAdapter<T> adapter) {
+        adapter.add(element);
+      }
+    });
+  }
+
+  /**
+   * Enqueues the removal of the element passed as argument.
+   *
+   * @param element to remove.
+   */
+  public void remove(final T element) {
+    enqueue(new Mutation<T>() {
+      @Override void apply(RVRendererAdapter<T> adapter) {
+        adapter.remove(element);
+      }
+    });
+  }
+
+  /**
+   * Enqueues the addition of the elements passed as argument at the end of the list. The
+   * elements are copied, so the collection can be modified once enqueued.
+   *
+   * @param elements to add.
+   */
+  public void addAll(Collection<? extends T> elements) {
+    final Collection<T> copy = new ArrayList<>(elements);
+    enqueue(new Mutation<T>() {
+      @Override void apply(RVRendererAdapter<T> adapter) {
+        adapter.addAll(copy);
+      }
+    });
+  }
+
+  /**
+   * Enqueues the removal of the elements passed as argument. The elements are copied, so the
+   * collection can be modified once enqueued.
+   *
+   * @param elements to remove.
+   */
+  public void removeAll(Collection<?> elements) {
+    final Collection<Object> copy = new ArrayList<>(elements);
+    enqueue(new Mutation<T>() {
+      @Override void apply(RVRendererAdapter<T> adapter) {
+        adapter.removeAll(copy);
+      }
+    });
+  }
+
+  /**
+   * Enqueues the removal of every element in the list.
+   */
+  public void clear() {
+    enqueue(new Mutation<T>() {
+      @Override void apply(RVRendererAdapter<T> adapter) {
+        adapter.clear();
+      }
+    });
+  }
+
+  private void enqueue(Mutation<T> mutation) {
+    mutations.offer(mutation);
+    scheduleDrain();
+  }
+
+  private void scheduleDrain() {
+    if (drainScheduled.compareAndSet(false, true)) {
+      frameExecutor.execute(drainTask);
+    }
+  }
+
+  private void drain() {
+    int maxMutations = maxMutationsPerFrame;
+    adapter.beginBatch();
+    try {
+      for (int i = 0; i < maxMutations; i++) {
+        Mutation<T> mutation = mutations.poll();
+        if (mutation == null) {
+          break;
+        }
+        mutation.apply(adapter);
+      }
+    } finally {
+      adapter.commit();
+      drainScheduled.set(false);
+    }
+    if (!mutations.isEmpty()) {
+      scheduleDrain();
+    }
+  }
+
+  /**
+   * Modification applied to the adapter list.
+   */
+  private abstract static class Mutation<T> {
+
+    abstract void apply(RVRendererAdapter<T> adapter);
+  }
+}
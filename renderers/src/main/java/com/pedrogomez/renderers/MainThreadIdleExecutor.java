@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor implementation running the tasks in the main thread when its message queue is idle.
+ * Just one task is executed every time the message queue becomes idle, so the main thread can
+ * handle the pending messages between tasks. This class has to be used from the main thread.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+final class MainThreadIdleExecutor implements Executor, MessageQueue.IdleHandler {
+
+  private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final Runnable scheduleNextTask = new Runnable() {
+    @Override public void run() {
+      Looper.myQueue().addIdleHandler(MainThreadIdleExecutor.this);
+    }
+  };
+  private boolean isScheduled;
+
+  @Override public void execute(Runnable command) {
+    tasks.add(command);
+    if (!isScheduled) {
+      isScheduled = true;
+      Looper.myQueue().addIdleHandler(this);
+    }
+  }
+
+  @Override public boolean queueIdle() {
+    Runnable task = tasks.poll();
+    if (task != null) {
+      task.run();
+    }
+    isScheduled = !tasks.isEmpty();
+    if (isScheduled) {
+      handler.post(scheduleNextTask);
+    }
+    return false;
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * List backed by a memory-mapped file of records. Opening the list just maps the files, and every
+ * item is decoded from its record when it is requested, keeping the last items decoded in a small
+ * LRU cache. The records can have a fixed size or a variable size indexed by the offset file
+ * written by MappedRecordWriter, and the data file can't be bigger than 2GB.
+ * <p>
+ * The list is immutable and it can be read from any thread, so RVRendererAdapter keeps it and
+ * diffs it from the background executor of the asynchronous diffUpdate without copying it, and
+ * preloadViewTypes skips it. Keep in mind diffUpdate still decodes the records of the positions
+ * it compares, which can be every record if the old and new lists are different instances. Its
+ * mutator methods throw UnsupportedOperationException.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class MappedRecordList<T> extends AbstractList<T> implements RandomAccess {
+
+  private static final int DEFAULT_CACHE_SIZE = 64;
+
+  private final ByteBuffer data;
+  private final LongBuffer offsets;
+  private final int recordSize;
+  private final int size;
+  private final RecordCodec<T> codec;
+  private final DecodedItemsCache<T> cache = new DecodedItemsCache<>(DEFAULT_CACHE_SIZE);
+
+  private MappedRecordList(ByteBuffer data, LongBuffer offsets, int recordSize, int size,
+      RecordCodec<T> codec) {
+    this.data = data;
+    this.offsets = offsets;
+    this.recordSize = recordSize;
+    this.size = size;
+    this.codec = codec;
+  }
+
+  /**
+   * Opens the records of variable size written by MappedRecordWriter.
+   *
+   * @param dataFile with the records.
+   * @param indexFile with the offset of every record.
+   * @param codec used to decode the items.
+   * @return a MappedRecordList with the items stored.
+   * @throws IOException if the files can't be mapped.
+   */
+  public static <T> MappedRecordList<T> open(File dataFile, File indexFile, RecordCodec<T> codec)
+      throws IOException {
+    ByteBuffer data = map(dataFile);
+    LongBuffer offsets = map(indexFile).asLongBuffer();
+    return new MappedRecordList<>(data, offsets, 0, offsets.limit(), codec);
+  }
+
+  /**
+   * Opens a file of records with the same size.
+   *
+   * @param dataFile with the records.
+   * @param recordSize in bytes.
+   * @param codec used to decode the items.
+   * @return a MappedRecordList with the items stored.
+   * @throws IOException if the file can't be mapped.
+   */
+  public static <T> MappedRecordList<T> openFixedSize(File dataFile, int recordSize,
+      RecordCodec<T> codec) throws IOException {
+    if (recordSize <= 0) {
+      throw new IllegalArgumentException("The record size has to be greater than zero");
+    }
+    ByteBuffer data = map(dataFile);
+    return new MappedRecordList<>(data, null, recordSize, data.limit() / recordSize, codec);
+  }
+
+  /**
+   * Configures the number of decoded items kept in memory. The default value is 64.
+   *
+   * @param cacheSize number of items to keep.
+   */
+  public void setCacheSize(int cacheSize) {
+    if (cacheSize < 0) {
+      throw new IllegalArgumentException("The cache size can't be negative");
+    }
+    synchronized (cache) {
+      cache.setMaxSize(cacheSize);
+    }
+  }
+
+  @Override public T get(int position) {
+    if (position < 0 || position >= size) {
+      throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size);
+    }
+    T item;
+    synchronized (cache) {
+      item = cache.get(position);
+    }
+    if (item == null) {
+      item = codec.decode(getRecord(position));
+      synchronized (cache) {
+        cache.put(position, item);
+      }
+    }
+    return item;
+  }
+
+  @Override public int size() {
+    return size;
+  }
+
+  private ByteBuffer getRecord(int position) {
+    int start;
+    int end;
+    if (offsets == null) {
+      start = position * recordSize;
+      end = start + recordSize;
+    } else {
+      start = (int) offsets.get(position);
+      end = position + 1 < size ? (int) offsets.get(position + 1) : data.limit();
+    }
+    ByteBuffer record = data.duplicate();
+    record.limit(end);
+    record.position(start);
+    return record.slice();
+  }
+
+  private static ByteBuffer map(File file) throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = randomAccessFile.getChannel();
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("The file " + file + " is bigger than " + Integer.MAX_VALUE
+            + " bytes");
+      }
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+
+  /**
+   * LinkedHashMap in access order evicting the least recently used item once the max size
+   * configured is exceeded.
+   */
+  private static final class DecodedItemsCache<T> extends LinkedHashMap<Integer, T> {
+
+    private int maxSize;
+
+    DecodedItemsCache(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    void setMaxSize(int maxSize) {
+      this.maxSize = maxSize;
+      Iterator<Integer> positions = keySet().iterator();
+      while (size() > maxSize) {
+        positions.next();
+        positions.remove();
+      }
+    }
+
+    @Override protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+      return size() > maxSize;
+    }
+  }
+}
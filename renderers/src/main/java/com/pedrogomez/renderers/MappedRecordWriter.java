@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes the records read by MappedRecordList. Every item appended is encoded at the end of the
+ * data file and the offset of its record is written to the index file, so records of variable
+ * length can be read without decoding the previous ones. The writer has to be closed once every
+ * item has been appended.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class MappedRecordWriter<T> implements Closeable {
+
+  private final RecordCodec<T> codec;
+  private final DataOutputStream dataOutput;
+  private final DataOutputStream indexOutput;
+
+  /**
+   * Creates a MappedRecordWriter replacing the content of the files passed as argument.
+   *
+   * @param dataFile where the records are written.
+   * @param indexFile where the offset of every record is written.
+   * @param codec used to encode the items.
+   * @throws IOException if the files can't be opened.
+   */
+  public MappedRecordWriter(File dataFile, File indexFile, RecordCodec<T> codec)
+      throws IOException {
+    this.codec = codec;
+    this.dataOutput =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dataFile)));
+    try {
+      this.indexOutput =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+    } catch (IOException exception) {
+      dataOutput.close();
+      throw exception;
+    }
+  }
+
+  /**
+   * Appends the record associated to the item passed as argument.
+   *
+   * @param item to append.
+   * @throws IOException if the record can't be written.
+   */
+  public void append(T item) throws IOException {
+    int offset = dataOutput.size();
+    codec.encode(item, dataOutput);
+    if (dataOutput.size() == Integer.MAX_VALUE) {
+      throw new IOException("The data file can't be bigger than " + Integer.MAX_VALUE + " bytes");
+    }
+    indexOutput.writeLong(offset);
+  }
+
+  @Override public void close() throws IOException {
+    try {
+      dataOutput.close();
+    } finally {
+      indexOutput.close();
+    }
+  }
+}
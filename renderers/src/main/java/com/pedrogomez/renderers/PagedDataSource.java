@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import java.util.List;
+
+/**
+ * Source of the items rendered using a PagedList. The items are loaded in pages from a background
+ * thread, so the implementations can read them from disk, a database or the network.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public interface PagedDataSource<T> {
+
+  /**
+   * Returns the total number of items in the data source.
+   */
+  int getCount();
+
+  /**
+   * Loads the items between the position passed as argument and the number of items requested.
+   * This method is invoked from a background thread.
+   *
+   * @param position of the first item to load.
+   * @param count number of items to load.
+   * @return the items loaded. It can contain fewer items than the ones requested.
+   */
+  List<T> loadPage(int position, int count);
+}
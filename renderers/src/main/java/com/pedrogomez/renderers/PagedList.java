@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * List exposing the items of a PagedDataSource without keeping all of them in memory. The list
+ * size is the data source item count, and the items are loaded in pages from a background
+ * executor as the positions rendered get close to the edges of the pages already loaded. The
+ * positions not loaded yet return the placeholder configured, which can be bound to a placeholder
+ * Renderer using the RendererBuilder as any other class. The pages far from the last position
+ * rendered are evicted once the number of pages loaded exceeds the maximum configured, but the
+ * pages within the prefetch distance of the last position rendered are never evicted.
+ * <p>
+ * If an ItemIdProvider is configured in the adapter, it is used just for the items loaded. The
+ * positions not loaded yet get a placeholder id unique for every position, returned by
+ * getPlaceholderId, so the ItemIdProvider must not return ids from Long.MIN_VALUE to
+ * Long.MIN_VALUE + Integer.MAX_VALUE.
+ * <p>
+ * RVRendererAdapter and RendererAdapter request the items around every position rendered and
+ * refresh the positions loaded or evicted. This list has to be used from the main thread and its
+ * mutator methods throw UnsupportedOperationException.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class PagedList<T> extends AbstractList<T> implements RandomAccess {
+
+  private static final int DEFAULT_PAGE_SIZE = 50;
+  private static final int DEFAULT_MAX_LOADED_PAGES = 10;
+
+  private final PagedDataSource<T> dataSource;
+  private final T placeholder;
+  private final Executor executor;
+  private final Executor mainThreadExecutor;
+  private final int count;
+  private final Map<Integer, List<T>> pages = new HashMap<>();
+  private final Set<Integer> pendingPages = new HashSet<>();
+  private int pageSize = DEFAULT_PAGE_SIZE;
+  private int prefetchDistance = DEFAULT_PAGE_SIZE;
+  private int maxLoadedPages = DEFAULT_MAX_LOADED_PAGES;
+  private int lastPosition;
+  private int generation;
+  private Listener listener;
+  private ErrorListener errorListener;
+
+  /**
+   * Creates a PagedList loading the items from the data source passed as argument. The data
+   * source count is read from the constructor.
+   *
+   * @param dataSource used to load the items.
+   * @param placeholder returned for the positions not loaded yet.
+   * @param executor where the pages are loaded.
+   */
+  public PagedList(PagedDataSource<T> dataSource, T placeholder, Executor executor) {
+    this(dataSource, placeholder, executor, new MainThreadExecutor());
+  }
+
+  PagedList(PagedDataSource<T> dataSource, T placeholder, Executor executor,
+      Executor mainThreadExecutor) {
+    if (dataSource == null || placeholder == null || executor == null) {
+      throw new IllegalArgumentException(
+          "The data source, placeholder and executor configured can't be null");
+    }
+    this.dataSource = dataSource;
+    this.placeholder = placeholder;
+    this.executor = executor;
+    this.mainThreadExecutor = mainThreadExecutor;
+    this.count = dataSource.getCount();
+  }
+
+  /**
+   * Configures the number of items loaded at once. Changing the page size evicts every page
+   * loaded. The default value is 50.
+   *
+   * @param pageSize number of items per page.
+   */
+  public void setPageSize(int pageSize) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("The page size has to be greater than zero");
+    }
+    this.pageSize = pageSize;
+    invalidate();
+  }
+
+  /**
+   * Configures the number of items before and after the position rendered that have to be loaded.
+   * The default value is 50.
+   *
+   * @param prefetchDistance number of items to load around the position rendered.
+   */
+  public void setPrefetchDistance(int prefetchDistance) {
+    if (prefetchDistance < 0) {
+      throw new IllegalArgumentException("The prefetch distance can't be negative");
+    }
+    this.prefetchDistance = prefetchDistance;
+  }
+
+  /**
+   * Configures the maximum number of pages kept in memory. It should be big enough to hold the
+   * pages visible plus the prefetch distance at both sides. The pages within the prefetch distance
+   * of the last position rendered are kept even if they exceed it, so they are not evicted and
+   * loaded again over and over. The default value is 10.
+   *
+   * @param maxLoadedPages number of pages kept in memory.
+   */
+  public void setMaxLoadedPages(int maxLoadedPages) {
+    if (maxLoadedPages <= 0) {
+      throw new IllegalArgumentException("The max number of pages loaded has to be greater than"
+          + " zero");
+    }
+    this.maxLoadedPages = maxLoadedPages;
+    evictFarPages();
+  }
+
+  /**
+   * Configures the Listener notified when the items in a range of positions are loaded or
+   * evicted. RVRendererAdapter and RendererAdapter configure their own listener.
+   *
+   * @param listener to notify or null.
+   */
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Configures the ErrorListener notified from the main thread when the data source fails loading
+   * a page. The page will be loaded again the next time a position within the prefetch distance
+   * is rendered.
+   *
+   * @param errorListener to notify or null.
+   */
+  public void setErrorListener(ErrorListener errorListener) {
+    this.errorListener = errorListener;
+  }
+
+  /**
+   * Returns the item in the position passed as argument or the placeholder if it is not loaded.
+   */
+  @Override public T get(int position) {
+    if (position < 0 || position >= count) {
+      throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + count);
+    }
+    List<T> page = pages.get(position / pageSize);
+    int pagePosition = position % pageSize;
+    return page != null && pagePosition < page.size() ? page.get(pagePosition) : placeholder;
+  }
+
+  @Override public int size() {
+    return count;
+  }
+
+  /**
+   * Returns true if the item in the position passed as argument is loaded.
+   */
+  public boolean isLoaded(int position) {
+    List<T> page = pages.get(position / pageSize);
+    return page != null && position % pageSize < page.size();
+  }
+
+  /**
+   * Returns the stable id used for the position passed as argument while it is not loaded. These
+   * ids go from Long.MIN_VALUE to Long.MIN_VALUE + Integer.MAX_VALUE.
+   *
+   * @param position not loaded.
+   * @return the placeholder id of the position.
+   */
+  public static long getPlaceholderId(int position) {
+    return Long.MIN_VALUE + position;
+  }
+
+  /**
+   * Loads the pages within the prefetch distance of the position passed as argument that are not
+   * loaded or being loaded yet.
+   *
+   * @param position rendered.
+   */
+  public void loadAround(int position) {
+    if (count == 0) {
+      return;
+    }
+    lastPosition = position;
+    int firstPage = Math.max(0, position - prefetchDistance) / pageSize;
+    int lastPage = Math.min(count - 1, position + prefetchDistance) / pageSize;
+    for (int page = firstPage; page <= lastPage; page++) {
+      if (!pages.containsKey(page) && !pendingPages.contains(page)) {
+        loadPage(page);
+      }
+    }
+  }
+
+  /**
+   * Evicts every page loaded. The pages will be loaded again as their positions are rendered.
+   */
+  public void invalidate() {
+    generation++;
+    pendingPages.clear();
+    if (pages.isEmpty()) {
+      return;
+    }
+    pages.clear();
+    if (listener != null) {
+      listener.onItemRangeChanged(0, count);
+    }
+  }
+
+  private void loadPage(final int page) {
+    final int pageGeneration = generation;
+    final int position = page * pageSize;
+    final int pageCount = Math.min(pageSize, count - position);
+    pendingPages.add(page);
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        List<T> items;
+        try {
+          items = dataSource.loadPage(position, pageCount);
+        } catch (RuntimeException exception) {
+          onPageLoaded(pageGeneration, page, null, exception);
+          return;
+        }
+        onPageLoaded(pageGeneration, page, new ArrayList<>(items), null);
+      }
+    });
+  }
+
+  private void onPageLoaded(final int pageGeneration, final int page, final List<T> items,
+      final RuntimeException error) {
+    mainThreadExecutor.execute(new Runnable() {
+      @Override public void run() {
+        if (pageGeneration != generation) {
+          return;
+        }
+        pendingPages.remove(page);
+        if (error != null) {
+          if (errorListener != null) {
+            int position = page * pageSize;
+            errorListener.onPageLoadFailed(position, Math.min(pageSize, count - position), error);
+          }
+          return;
+        }
+        pages.put(page, items);
+        if (listener != null) {
+          listener.onItemRangeChanged(page * pageSize, items.size());
+        }
+        evictFarPages();
+      }
+    });
+  }
+
+  /**
+   * Evicts the pages farthest from the last position rendered until the number of pages loaded
+   * doesn't exceed the maximum configured or every page left is within the prefetch distance.
+   */
+  private void evictFarPages() {
+    if (count == 0) {
+      return;
+    }
+    int currentPage = lastPosition / pageSize;
+    int firstKeptPage = Math.max(0, lastPosition - prefetchDistance) / pageSize;
+    int lastKeptPage = Math.min(count - 1, lastPosition + prefetchDistance) / pageSize;
+    while (pages.size() > maxLoadedPages) {
+      int farthestPage = currentPage;
+      for (int page : pages.keySet()) {
+        boolean evictable = page < firstKeptPage || page > lastKeptPage;
+        if (evictable && Math.abs(page - currentPage) > Math.abs(farthestPage - currentPage)) {
+          farthestPage = page;
+        }
+      }
+      if (farthestPage == currentPage) {
+        return;
+      }
+      List<T> evicted = pages.remove(farthestPage);
+      if (listener != null) {
+        listener.onItemRangeChanged(farthestPage * pageSize, evicted.size());
+      }
+    }
+  }
+
+  /**
+   * Listener notified when the items in a range of positions change because they have been
+   * loaded or evicted.
+   */
+  public interface Listener {
+
+    void onItemRangeChanged(int positionStart, int itemCount);
+  }
+
+  /**
+   * Listener notified when the data source fails loading a page.
+   */
+  public interface ErrorListener {
+
+    void onPageLoadFailed(int positionStart, int itemCount, RuntimeException exception);
+  }
+}
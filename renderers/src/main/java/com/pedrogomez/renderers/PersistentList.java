@@ -0,0 +1,358 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Immutable List whose versions share structure. The elements are stored in a balanced tree of
+ * nodes with up to 32 children and the size of every subtree, so reading an element or creating
+ * a new version with one element set, added or removed is O(log n) and only copies the nodes
+ * in the path to the element modified. Previous versions are never modified, so they can be
+ * diffed from any thread while new versions are created.
+ * <p>
+ * RVRendererAdapter renders PersistentList instances without copying them, and the differences
+ * between two versions of the same PersistentList are calculated skipping the subtrees shared.
+ * The List mutator methods throw UnsupportedOperationException.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public final class PersistentList<T> extends AbstractList<T> implements RandomAccess {
+
+  private static final int MAX_NODE_SIZE = 32;
+  private static final int MIN_NODE_SIZE = MAX_NODE_SIZE / 2;
+  private static final Object[] NO_ITEMS = new Object[0];
+  private static final PersistentList<Object> EMPTY = new PersistentList<>(null);
+
+  private final Node root;
+
+  private PersistentList(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Returns the empty PersistentList.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> PersistentList<T> empty() {
+    return (PersistentList<T>) EMPTY;
+  }
+
+  /**
+   * Creates a PersistentList with the elements passed as argument in O(n). If the collection is
+   * already a PersistentList it is returned without copying it.
+   *
+   * @param elements to add to the list.
+   * @return a PersistentList with the elements passed as argument.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> PersistentList<T> copyOf(Collection<? extends T> elements) {
+    if (elements instanceof PersistentList) {
+      return (PersistentList<T>) elements;
+    }
+    Object[] items = elements.toArray();
+    if (items.length == 0) {
+      return empty();
+    }
+    Node[] level = group(items, true);
+    while (level.length > 1) {
+      level = group(level, false);
+    }
+    return new PersistentList<T>(level[0]);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override public T get(int index) {
+    checkElementIndex(index);
+    Node node = root;
+    while (!node.isLeaf()) {
+      int child = node.childIndex(index);
+      index -= node.offset(child);
+      node = node.child(child);
+    }
+    return (T) node.items[index];
+  }
+
+  @Override public int size() {
+    return root == null ? 0 : root.size();
+  }
+
+  /**
+   * Returns a new version of this list with the element passed as argument in the position
+   * passed as argument.
+   *
+   * @param index of the element to replace.
+   * @param element to store.
+   * @return the new version of the list.
+   */
+  public PersistentList<T> with(int index, T element) {
+    checkElementIndex(index);
+    return new PersistentList<T>(set(root, index, element));
+  }
+
+  /**
+   * Returns a new version of this list with the element passed as argument added at the end.
+   *
+   * @param element to add.
+   * @return the new version of the list.
+   */
+  public PersistentList<T> plus(T element) {
+    return plus(size(), element);
+  }
+
+  /**
+   * Returns a new version of this list with the element passed as argument inserted in the
+   * position passed as argument.
+   *
+   * @param index where the element is inserted.
+   * @param element to insert.
+   * @return the new version of the list.
+   */
+  public PersistentList<T> plus(int index, T element) {
+    if (index < 0 || index > size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+    if (root == null) {
+      return new PersistentList<T>(new Node(new Object[] { element }, null));
+    }
+    Node[] nodes = insert(root, index, element);
+    return new PersistentList<T>(nodes.length == 1 ? nodes[0] : Node.branch(nodes));
+  }
+
+  /**
+   * Returns a new version of this list with the elements passed as argument added at the end.
+   *
+   * @param elements to add.
+   * @return the new version of the list.
+   */
+  public PersistentList<T> plusAll(Collection<? extends T> elements) {
+    PersistentList<T> result = this;
+    for (T element : elements) {
+      result = result.plus(element);
+    }
+    return result;
+  }
+
+  /**
+   * Returns a new version of this list without the element in the position passed as argument.
+   *
+   * @param index of the element to remove.
+   * @return the new version of the list.
+   */
+  public PersistentList<T> minus(int index) {
+    checkElementIndex(index);
+    Node node = remove(root, index);
+    while (!node.isLeaf() && node.items.length == 1) {
+      node = node.child(0);
+    }
+    return node.size() == 0 ? PersistentList.<T>empty() : new PersistentList<T>(node);
+  }
+
+  /**
+   * Returns the number of elements at the beginning of both lists known to be the same instances
+   * without comparing the subtrees shared by both lists. The elements after the value returned
+   * can still be the same.
+   */
+  static int sharedPrefixSize(PersistentList<?> first, PersistentList<?> second) {
+    if (first.root == null || second.root == null) {
+      return 0;
+    }
+    return sharedSize(first.root, second.root, false);
+  }
+
+  /**
+   * Returns the number of elements at the end of both lists known to be the same instances
+   * without comparing the subtrees shared by both lists. The elements before the value returned
+   * can still be the same.
+   */
+  static int sharedSuffixSize(PersistentList<?> first, PersistentList<?> second) {
+    if (first.root == null || second.root == null) {
+      return 0;
+    }
+    return sharedSize(first.root, second.root, true);
+  }
+
+  private static int sharedSize(Node first, Node second, boolean fromEnd) {
+    if (first == second) {
+      return first.size();
+    }
+    if (first.isLeaf() != second.isLeaf()) {
+      return 0;
+    }
+    int count = Math.min(first.items.length, second.items.length);
+    int shared = 0;
+    for (int i = 0; i < count; i++) {
+      Object firstItem = first.items[fromEnd ? first.items.length - 1 - i : i];
+      Object secondItem = second.items[fromEnd ? second.items.length - 1 - i : i];
+      if (first.isLeaf()) {
+        if (firstItem != secondItem) {
+          return shared;
+        }
+        shared++;
+      } else {
+        Node firstChild = (Node) firstItem;
+        Node secondChild = (Node) secondItem;
+        int childShared = sharedSize(firstChild, secondChild, fromEnd);
+        shared += childShared;
+        if (childShared != firstChild.size() || childShared != secondChild.size()) {
+          return shared;
+        }
+      }
+    }
+    return shared;
+  }
+
+  private static Node set(Node node, int index, Object element) {
+    Object[] items = node.items.clone();
+    if (node.isLeaf()) {
+      items[index] = element;
+    } else {
+      int child = node.childIndex(index);
+      items[child] = set(node.child(child), index - node.offset(child), element);
+    }
+    return new Node(items, node.sizes);
+  }
+
+  private static Node[] insert(Node node, int index, Object element) {
+    if (node.isLeaf()) {
+      return split(replace(node.items, index, 0, new Object[] { element }), true);
+    }
+    int child = index == 0 ? 0 : node.childIndex(index - 1);
+    Node[] children = insert(node.child(child), index - node.offset(child), element);
+    return split(replace(node.items, child, 1, children), false);
+  }
+
+  private static Node remove(Node node, int index) {
+    if (node.isLeaf()) {
+      return new Node(replace(node.items, index, 1, NO_ITEMS), null);
+    }
+    int child = node.childIndex(index);
+    Node newChild = remove(node.child(child), index - node.offset(child));
+    if (newChild.size() == 0) {
+      return Node.branch(replace(node.items, child, 1, NO_ITEMS));
+    }
+    if (newChild.items.length >= MIN_NODE_SIZE || node.items.length == 1) {
+      return Node.branch(replace(node.items, child, 1, new Object[] { newChild }));
+    }
+    int first = child > 0 ? child - 1 : child;
+    Node left = first == child ? newChild : node.child(first);
+    Node right = first == child ? node.child(child + 1) : newChild;
+    Object[] merged = replace(left.items, left.items.length, 0, right.items);
+    return Node.branch(replace(node.items, first, 2, split(merged, newChild.isLeaf())));
+  }
+
+  private static Node[] split(Object[] items, boolean leaf) {
+    if (items.length <= MAX_NODE_SIZE) {
+      return new Node[] { leaf ? new Node(items, null) : Node.branch(items) };
+    }
+    return group(items, leaf);
+  }
+
+  /**
+   * Splits the items passed as argument into the minimum number of nodes with a similar size.
+   */
+  private static Node[] group(Object[] items, boolean leaf) {
+    int count = (items.length + MAX_NODE_SIZE - 1) / MAX_NODE_SIZE;
+    Node[] nodes = new Node[count];
+    for (int i = 0; i < count; i++) {
+      int from = (int) ((long) i * items.length / count);
+      int to = (int) ((long) (i + 1) * items.length / count);
+      Object[] nodeItems = Arrays.copyOfRange(items, from, to, Object[].class);
+      nodes[i] = leaf ? new Node(nodeItems, null) : Node.branch(nodeItems);
+    }
+    return nodes;
+  }
+
+  private static Object[] replace(Object[] items, int from, int count, Object[] replacement) {
+    Object[] result = new Object[items.length - count + replacement.length];
+    System.arraycopy(items, 0, result, 0, from);
+    System.arraycopy(replacement, 0, result, from, replacement.length);
+    System.arraycopy(items, from + count, result, from + replacement.length,
+        items.length - from - count);
+    return result;
+  }
+
+  private void checkElementIndex(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+  }
+
+  /**
+   * Tree node. Leaves store the elements and branches store their children and the accumulated
+   * size of them.
+   */
+  private static final class Node {
+
+    private final Object[] items;
+    private final int[] sizes;
+
+    Node(Object[] items, int[] sizes) {
+      this.items = items;
+      this.sizes = sizes;
+    }
+
+    static Node branch(Object[] children) {
+      int[] sizes = new int[children.length];
+      int size = 0;
+      for (int i = 0; i < children.length; i++) {
+        size += ((Node) children[i]).size();
+        sizes[i] = size;
+      }
+      return new Node(children, sizes);
+    }
+
+    boolean isLeaf() {
+      return sizes == null;
+    }
+
+    int size() {
+      if (isLeaf()) {
+        return items.length;
+      }
+      return sizes.length == 0 ? 0 : sizes[sizes.length - 1];
+    }
+
+    Node child(int index) {
+      return (Node) items[index];
+    }
+
+    int offset(int child) {
+      return child == 0 ? 0 : sizes[child - 1];
+    }
+
+    /**
+     * Returns the index of the first child containing the element in the position passed as
+     * argument.
+     */
+    int childIndex(int index) {
+      int low = 0;
+      int high = sizes.length - 1;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (sizes[middle] > index) {
+          high = middle;
+        } else {
+          low = middle + 1;
+        }
+      }
+      return low;
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+/**
+ * Renderer splitting the render work in two phases. The prepare method creates an immutable view
+ * model from the content and the apply method just updates the views using it. The view models
+ * are kept in a bounded ViewModelCache by RVRendererAdapter and RVListRendererAdapter, which can
+ * prepare them in a background executor before the items are bound if one is configured using
+ * setPrepareExecutor. If the view model of the content rendered has not been prepared, it is
+ * prepared while rendering. The view models are cached only if the content implements Versioned
+ * and the adapter has an ItemIdProvider configured; otherwise they are prepared every time the
+ * content is rendered.
+ * <p>
+ * The prepare method can be invoked from any thread and on the prototype instead of this
+ * instance, so it has to be a pure function of the content: it can't access the views, the
+ * Renderer fields or any other mutable state. The view models of the items with the same id and
+ * version have to be interchangeable.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public abstract class PreparedRenderer<T, M> extends Renderer<T> {
+
+  private ViewModelCache viewModelCache;
+
+  /**
+   * Creates the view model associated to the content passed as argument.
+   *
+   * @param content to render.
+   * @return the immutable view model used to render the content.
+   */
+  public abstract M prepare(T content);
+
+  /**
+   * Updates the views using the view model passed as argument. This method is invoked from the
+   * main thread.
+   *
+   * @param viewModel prepared for the content rendered.
+   */
+  protected abstract void apply(M viewModel);
+
+  /**
+   * Returns the estimated size of the view model passed as argument, used to bound the size of
+   * the view model cache. It is one by default, so the cache size is the number of view models
+   * kept. Override it to return the estimated bytes of the view model if the cache size is
+   * configured in bytes. Like prepare, this method can be invoked from any thread.
+   *
+   * @param viewModel prepared.
+   * @return the estimated size of the view model.
+   */
+  protected int sizeOf(M viewModel) {
+    return 1;
+  }
+
+  /**
+   * Renders the content applying its view model, preparing it if it is not in the cache.
+   */
+  @Override public final void render() {
+    apply(getViewModel(getContent()));
+  }
+
+  @Override void attachViewModelCache(ViewModelCache viewModelCache) {
+    this.viewModelCache = viewModelCache;
+  }
+
+  @SuppressWarnings("unchecked") private M getViewModel(T content) {
+    if (viewModelCache == null || content == null || content instanceof Flyweight) {
+      return prepare(content);
+    }
+    M viewModel = (M) viewModelCache.get(content);
+    if (viewModel == null) {
+      viewModel = prepare(content);
+      viewModelCache.put(content, viewModel, sizeOf(viewModel));
+    }
+    return viewModel;
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Immutable and indexed snapshot of the prototypes configured in a RendererBuilder. The view type
+ * associated to every prototype is the index of the first prototype declared with the same class,
+ * so this class stores the prototypes in an array and the view type of every Renderer class in an
+ * identity map. Both lookups are resolved in constant time and without allocations. The
+ * RendererFactory registered for every prototype, if any, is stored using the same index.
+ *
+ * When the registry is created to use shared view types, the view type provided by
+ * ViewTypeRegistry for every prototype class is stored too. The prototype index associated to
+ * every shared view type is stored in an int array indexed by the shared view type minus the
+ * lowest one, so the translation between both view types is also resolved in constant time and
+ * without boxing. ViewTypeRegistry assigns consecutive values, so the array is as long as the
+ * range of shared view types used by the prototypes.
+ *
+ * RendererBuilder creates a new instance of this class every time the prototypes collection is
+ * modified, so an instance can be safely shared between threads once it has been created.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+final class PrototypeRegistry {
+
+  static final int NO_VIEW_TYPE = -1;
+
+  private final Renderer[] prototypes;
+  private final RendererFactory[] factories;
+  private final Map<Class, Integer> viewTypes;
+  private final int[] sharedViewTypes;
+  private final int[] localViewTypes;
+  private final int localViewTypesOffset;
+  private final boolean hasPreparedPrototypes;
+
+  PrototypeRegistry(Collection<? extends Renderer> prototypes,
+      Map<Renderer, RendererFactory> factories, boolean useSharedViewTypes) {
+    this.prototypes = prototypes.toArray(new Renderer[prototypes.size()]);
+    this.factories = new RendererFactory[this.prototypes.length];
+    this.viewTypes = new IdentityHashMap<>(this.prototypes.length);
+    this.sharedViewTypes = useSharedViewTypes ? new int[this.prototypes.length] : null;
+    boolean hasPreparedPrototypes = false;
+    for (int i = 0; i < this.prototypes.length; i++) {
+      this.factories[i] = factories.get(this.prototypes[i]);
+      hasPreparedPrototypes |= this.prototypes[i] instanceof PreparedRenderer;
+      Class prototypeClass = this.prototypes[i].getClass();
+      if (!viewTypes.containsKey(prototypeClass)) {
+        viewTypes.put(prototypeClass, i);
+      }
+      if (useSharedViewTypes) {
+        sharedViewTypes[i] = ViewTypeRegistry.getViewType(prototypeClass);
+      }
+    }
+    if (useSharedViewTypes && this.prototypes.length > 0) {
+      int minSharedViewType = Integer.MAX_VALUE;
+      int maxSharedViewType = Integer.MIN_VALUE;
+      for (int sharedViewType : sharedViewTypes) {
+        minSharedViewType = Math.min(minSharedViewType, sharedViewType);
+        maxSharedViewType = Math.max(maxSharedViewType, sharedViewType);
+      }
+      this.localViewTypesOffset = minSharedViewType;
+      this.localViewTypes = new int[maxSharedViewType - minSharedViewType + 1];
+      Arrays.fill(localViewTypes, NO_VIEW_TYPE);
+      for (int i = 0; i < sharedViewTypes.length; i++) {
+        int index = sharedViewTypes[i] - localViewTypesOffset;
+        if (localViewTypes[index] == NO_VIEW_TYPE) {
+          localViewTypes[index] = i;
+        }
+      }
+    } else {
+      this.localViewTypesOffset = 0;
+      this.localViewTypes = useSharedViewTypes ? new int[0] : null;
+    }
+    this.hasPreparedPrototypes = hasPreparedPrototypes;
+  }
+
+  /**
+   * @return the number of prototypes stored in the registry.
+   */
+  int size() {
+    return prototypes.length;
+  }
+
+  /**
+   * @return true if any prototype stored in the registry is a PreparedRenderer.
+   */
+  boolean hasPreparedPrototypes() {
+    return hasPreparedPrototypes;
+  }
+
+  /**
+   * Search one prototype using the view type associated to it.
+   *
+   * @param viewType used to search.
+   * @return the prototype associated to the view type or null if there is no prototype for it.
+   */
+  Renderer getPrototype(int viewType) {
+    if (viewType < 0 || viewType >= prototypes.length) {
+      return null;
+    }
+    return prototypes[viewType];
+  }
+
+  /**
+   * Search the RendererFactory registered for the prototype associated to a view type.
+   *
+   * @param viewType used to search.
+   * @return the factory associated to the view type or null if the prototype has to be copied.
+   */
+  RendererFactory getFactory(int viewType) {
+    if (viewType < 0 || viewType >= factories.length) {
+      return null;
+    }
+    return factories[viewType];
+  }
+
+  /**
+   * Return the view type associated to a Renderer class.
+   *
+   * @param prototypeClass used to search the view type.
+   * @return the view type associated to the class or NO_VIEW_TYPE if the class is not registered.
+   */
+  int getViewType(Class prototypeClass) {
+    Integer viewType = viewTypes.get(prototypeClass);
+    return viewType != null ? viewType : NO_VIEW_TYPE;
+  }
+
+  /**
+   * Translate a prototype index to the view type exposed to the adapters.
+   *
+   * @param viewType prototype index to translate.
+   * @return the shared view type associated to the prototype index if the registry uses shared view
+   * types or the same value passed as argument if it does not.
+   */
+  int toSharedViewType(int viewType) {
+    if (sharedViewTypes == null || viewType < 0 || viewType >= sharedViewTypes.length) {
+      return viewType;
+    }
+    return sharedViewTypes[viewType];
+  }
+
+  /**
+   * Translate a view type exposed to the adapters to the prototype index associated to it.
+   *
+   * @param sharedViewType view type to translate.
+   * @return the prototype index associated to the view type, the same value passed as argument if
+   * the registry does not use shared view types or NO_VIEW_TYPE if the view type is not registered.
+   */
+  int toLocalViewType(int sharedViewType) {
+    if (localViewTypes == null) {
+      return sharedViewType;
+    }
+    int index = sharedViewType - localViewTypesOffset;
+    if (index < 0 || index >= localViewTypes.length) {
+      return NO_VIEW_TYPE;
+    }
+    return localViewTypes[index];
+  }
+}
@@ -5,14 +5,19 @@ import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.AsyncDifferConfig;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
+import com.pedrogomez.renderers.exception.FlyweightDiffUpdateException;
 import com.pedrogomez.renderers.exception.NullRendererBuiltException;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * ListAdapter extension created to work with RendererBuilders and Renderer instances. Other
@@ -25,13 +30,28 @@ import java.util.List;
  * RVListRendererAdapter has to be constructed with a RendererBuilder to provide Renderer
  * to RvListRendererAdapter, one of DiffUtil.ItemCallback or AsyncDifferConfig to provide the
  * diffing configuration and one AdapteeCollection to provide the elements to render.
+ * <p>
+ * The elements rendered are always the ones in the differ's current list. Every modification
+ * submits a new list and the adapter starts reading it just when the differ dispatches the diff
+ * result, so the items read and the notifications received by the RecyclerView are consistent.
  *
  * @author Víctor Julián García Granado.
  */
 public class RVListRendererAdapter<T> extends ListAdapter<T, RendererViewHolder> {
 
     private final RendererBuilder<T> rendererBuilder;
-    private List<T> list;
+    private ItemIdProvider<T> itemIdProvider;
+    private boolean checkItemIdCollisions;
+    private ViewTypeCache viewTypeCache;
+    private RendererPreInflater<T> preInflater;
+    private List<T> latestList = Collections.emptyList();
+    private int batchDepth;
+    private List<T> batchList;
+    private UpdateGate<T> updateGate;
+    private FrameBudgetScheduler frameBudgetScheduler;
+    private ViewModelPreparer<T> viewModelPreparer;
+    private Context attachedContext;
+    private int attachedCount;
 
     public RVListRendererAdapter(RendererBuilder<T> rendererBuilder) {
         this(rendererBuilder, new DefaultDiffUtilItemCallback<T>(), new ArrayList<T>());
@@ -46,7 +66,7 @@ public class RVListRendererAdapter<T> extends ListAdapter<T, RendererViewHolder>
         super(new DefaultDiffUtilItemCallback<T>());
         this.rendererBuilder = rendererBuilder;
         try {
-            this.list = (List) collection;
+            submitInitialList((List) collection);
         } catch (ClassCastException exception) {
             throw new ClassCastException("collection parameter needs to implement List interface. "
                     + "AdapteeCollection has been deprecated and will disappear in upcoming version");
@@ -56,7 +76,7 @@ public class RVListRendererAdapter<T> extends ListAdapter<T, RendererViewHolder>
     public RVListRendererAdapter(RendererBuilder<T> rendererBuilder, List<T> list) {
         super(new DefaultDiffUtilItemCallback<T>());
         this.rendererBuilder = rendererBuilder;
-        this.list = list;
+        submitInitialList(list);
     }
 
     public RVListRendererAdapter(RendererBuilder<T> rendererBuilder, @NonNull DiffUtil.ItemCallback diffCallback) {
@@ -74,7 +94,7 @@ public class RVListRendererAdapter<T> extends ListAdapter<T, RendererViewHolder>
         super(diffCallback);
         this.rendererBuilder = rendererBuilder;
         try {
-            this.list = (List) collection;
+            submitInitialList((List) collection);
         } catch (ClassCastException exception) {
             throw new ClassCastException("collection parameter needs to implement List interface. "
                     + "AdapteeCollection has been deprecated and will disappear in upcoming version");
@@ -86,7 +106,7 @@ public class RVListRendererAdapter<T> extends ListAdapter<T, RendererViewHolder>
                                  List<T> list) {
         super(diffCallback);
         this.rendererBuilder = rendererBuilder;
-        this.list = list;
+        submitInitialList(list);
     }
 
     public RVListRendererAdapter(RendererBuilder<T> rendererBuilder, @NonNull AsyncDifferConfig config) {
@@ -98,21 +118,47 @@ public class RVListRendererAdapter<T> extends ListAdapter<T, RendererViewHolder>
                                  List<T> list) {
         super(config);
         this.rendererBuilder = rendererBuilder;
-        this.list = list;
+        submitInitialList(list);
     }
 
     @Override
     public int getItemCount() {
-        return list.size();
+        return getCurrentList().size();
     }
 
     public T getItem(int position) {
-        return list.get(position);
+        return getCurrentList().get(position);
     }
 
     @Override
     public long getItemId(int position) {
-        return position;
+        return ItemIds.getItemId(itemIdProvider, getCurrentList(), position, checkItemIdCollisions);
+    }
+
+    /**
+     * Configures the ItemIdProvider used to resolve the id of every item. Stable ids are enabled
+     * when an ItemIdProvider is configured, so this method has to be invoked before configuring the
+     * adapter in the RecyclerView.
+     *
+     * @param itemIdProvider used to resolve the item ids or null to use the item positions.
+     */
+    public void setItemIdProvider(ItemIdProvider<T> itemIdProvider) {
+        this.itemIdProvider = itemIdProvider;
+        setHasStableIds(itemIdProvider != null);
+        if (viewModelPreparer != null) {
+            viewModelPreparer.setItemIdProvider(itemIdProvider);
+        }
+    }
+
+    /**
+     * Enables checks ensuring the ItemIdProvider configured does not return the same id for two
+     * different items. A DuplicatedItemIdException is thrown if a collision is found. Every check
+     * traverses the whole list, so they should be enabled just in debug builds.
+     *
+     * @param enabled true to check the item ids.
+     */
+    public void setItemIdCollisionChecksEnabled(boolean enabled) {
+        this.checkItemIdCollisions = enabled;
     }
 
     /**
@@ -129,12 +175,70 @@ public class RVListRendererAdapter<T> extends ListAdapter<T, RendererViewHolder>
         }
     }
 
+    /**
+     * Submits the list passed as argument. The adapter keeps rendering the current list until the
+     * differ dispatches the diff result, so the list should not be modified once submitted.
+     *
+     * @param list to render.
+     */
     public void setList(List<T> list) {
         if (list == null) {
             throw new IllegalArgumentException("The List configured can't be null");
         }
 
-        this.list = list;
+        submitList(list);
+    }
+
+    /**
+     * Enables or disables the cache of view types per position. When the cache is enabled the view
+     * type of every position is resolved just once using the RendererBuilder and kept until the
+     * differ's current list is replaced.
+     *
+     * @param enabled true to cache the view types.
+     */
+    public void setViewTypeCacheEnabled(boolean enabled) {
+        viewTypeCache = enabled ? new ViewTypeCache() : null;
+    }
+
+    /**
+     * Enables the cache of view types and fills it resolving the view type of every element in a
+     * background thread. The RendererBuilder getPrototypeClass implementation will be invoked from
+     * the executor passed as argument.
+     *
+     * @param executor used to resolve the view types.
+     */
+    public void preloadViewTypes(Executor executor) {
+        if (viewTypeCache == null) {
+            setViewTypeCacheEnabled(true);
+        }
+        viewTypeCache.preload(getCurrentList(), rendererBuilder, executor);
+    }
+
+    /**
+     * Configures a RendererPreInflater providing RendererViewHolder instances created in background.
+     * onCreateViewHolder will return the RendererViewHolder instances created by the pre inflater
+     * before creating new ones.
+     *
+     * @param preInflater used to get ready to use RendererViewHolder instances or null.
+     */
+    public void setPreInflater(RendererPreInflater<T> preInflater) {
+        this.preInflater = preInflater;
+    }
+
+    /**
+     * Creates RendererViewHolder instances for the view type passed as argument in the main thread
+     * while it is idle so they are ready before the list is shown. If there is no
+     * RendererPreInflater configured a new one is created.
+     *
+     * @param parent used to inflate the renderers, usually the RecyclerView where they will be shown.
+     * @param viewType associated to the renderer to create.
+     * @param count number of RendererViewHolder instances to have ready.
+     */
+    public void prewarm(ViewGroup parent, int viewType, int count) {
+        if (preInflater == null) {
+            preInflater = new RendererPreInflater<>(rendererBuilder);
+        }
+        preInflater.prewarm(parent, viewType, count);
     }
 
     /**
@@ -145,8 +249,16 @@ public class RVListRendererAdapter<T> extends ListAdapter<T, RendererViewHolder>
      */
     @Override
     public int getItemViewType(int position) {
-        T content = getItem(position);
-        return rendererBuilder.getItemViewType(content);
+        if (viewTypeCache == null) {
+            T content = getItem(position);
+            return rendererBuilder.getAdapterViewType(content);
+        }
+        int viewType = viewTypeCache.get(position);
+        if (viewType == ViewTypeCache.UNKNOWN_VIEW_TYPE) {
+            viewType = rendererBuilder.getAdapterViewType(getItem(position));
+            viewTypeCache.put(position, viewType);
+        }
+        return viewType;
     }
 
     /**
@@ -160,6 +272,10 @@ public class RVListRendererAdapter<T> extends ListAdapter<T, RendererViewHolder>
      */
     @Override
     public RendererViewHolder onCreateViewHolder(ViewGroup viewGroup, int viewType) {
+        RendererViewHolder preInflatedViewHolder = preInflater != null ? preInflater.poll(viewType) : null;
+        if (preInflatedViewHolder != null) {
+            return preInflatedViewHolder;
+        }
         rendererBuilder.withParent(viewGroup);
         rendererBuilder.withLayoutInflater(LayoutInflater.from(viewGroup.getContext()));
         rendererBuilder.withViewType(viewType);
@@ -179,61 +295,289 @@ public class RVListRendererAdapter<T> extends ListAdapter<T, RendererViewHolder>
      */
     @Override
     public void onBindViewHolder(RendererViewHolder viewHolder, int position) {
+        ViewModelPreparer<T> preparer = getActiveViewModelPreparer();
+        if (preparer != null) {
+            preparer.prepareAround(getCurrentList(), position);
+        }
         T content = getItem(position);
         Renderer<T> renderer = viewHolder.getRenderer();
         if (renderer == null) {
             throw new NullRendererBuiltException("RendererBuilder have to return a not null renderer");
         }
+        renderer.prepareRender(frameBudgetScheduler);
+        if (preparer != null) {
+            renderer.attachViewModelCache(preparer.getViewModelCache());
+        }
         renderer.setContent(content);
         updateRendererExtraValues(content, renderer, position);
         renderer.render();
+        renderer.releaseFlyweightContent();
+    }
+
+    /**
+     * Given a RendererViewHolder passed as argument, a position and the payloads describing the
+     * changes applied to the item renders the view using the Renderer previously stored into the
+     * RendererViewHolder. If there are no payloads the whole item is rendered again.
+     *
+     * @param viewHolder with a Renderer class inside.
+     * @param position to render.
+     * @param payloads describing the changes applied to the item.
+     */
+    @Override
+    public void onBindViewHolder(RendererViewHolder viewHolder, int position,
+                                 List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(viewHolder, position);
+            return;
+        }
+        ViewModelPreparer<T> preparer = getActiveViewModelPreparer();
+        if (preparer != null) {
+            preparer.prepareAround(getCurrentList(), position);
+        }
+        T content = getItem(position);
+        Renderer<T> renderer = viewHolder.getRenderer();
+        if (renderer == null) {
+            throw new NullRendererBuiltException("RendererBuilder have to return a not null renderer");
+        }
+        renderer.prepareRender(frameBudgetScheduler);
+        if (preparer != null) {
+            renderer.attachViewModelCache(preparer.getViewModelCache());
+        }
+        renderer.setContent(content);
+        updateRendererExtraValues(content, renderer, position);
+        renderer.render(payloads);
+        renderer.releaseFlyweightContent();
     }
 
     /**
-     * Add an element to the AdapteeCollection.
+     * Submits a copy of the latest list submitted with the element passed as argument added.
      *
      * @param element to add.
      * @return if the element has been added.
      */
     public boolean add(T element) {
-        return list.add(element);
+        List<T> newList = getListToModify();
+        boolean added = newList.add(element);
+        submitModifiedList(newList);
+        return added;
     }
 
     /**
-     * Remove an element from the AdapteeCollection.
+     * Submits a copy of the latest list submitted without the element passed as argument.
      *
      * @param element to remove.
      * @return if the element has been removed.
      */
     public boolean remove(Object element) {
-        return list.remove(element);
+        List<T> newList = getListToModify();
+        boolean removed = newList.remove(element);
+        if (removed) {
+            submitModifiedList(newList);
+        }
+        return removed;
     }
 
     /**
-     * Add a Collection of elements to the AdapteeCollection.
+     * Submits a copy of the latest list submitted with the Collection of elements passed as argument added.
      *
      * @param elements to add.
      * @return if the elements have been added.
      */
     public boolean addAll(Collection<? extends T> elements) {
-        return list.addAll(elements);
+        List<T> newList = getListToModify();
+        boolean added = newList.addAll(elements);
+        if (added) {
+            submitModifiedList(newList);
+        }
+        return added;
     }
 
     /**
-     * Remove a Collection of elements to the AdapteeCollection.
+     * Submits a copy of the latest list submitted without the Collection of elements passed as argument.
      *
      * @param elements to remove.
      * @return if the elements have been removed.
      */
     public boolean removeAll(Collection<?> elements) {
-        return list.removeAll(elements);
+        List<T> newList = getListToModify();
+        boolean removed = newList.removeAll(elements);
+        if (removed) {
+            submitModifiedList(newList);
+        }
+        return removed;
     }
 
     /**
-     * Remove all elements inside the AdapteeCollection.
+     * Submits an empty list.
      */
     public void clear() {
-        list.clear();
+        if (batchDepth > 0) {
+            batchList = new ArrayList<>();
+        } else {
+            submitList(new ArrayList<T>());
+        }
+    }
+
+    /**
+     * Starts a batch of modifications. The modifications applied using add, remove, addAll,
+     * removeAll and clear until commit is invoked are applied to the same copy of the list, which is
+     * submitted once on commit so the differ calculates and dispatches all the changes at once.
+     * Batches can be nested and the list is submitted when the outermost batch is committed.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Finishes the batch of modifications started with beginBatch submitting the list modified if
+     * it is the outermost batch.
+     */
+    public void commit() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("commit invoked without invoking beginBatch before");
+        }
+        if (--batchDepth == 0 && batchList != null) {
+            List<T> newList = batchList;
+            batchList = null;
+            submitList(newList);
+        }
+    }
+
+    /**
+     * Configures the executor used to prepare the view models of the PreparedRenderer instances
+     * before the items are bound. The items placed after the position bound in the scroll direction
+     * are prepared in advance. If there is no executor, the default, the view models are prepared
+     * while rendering. The ViewModelPreparer and its cache are created just if there is a
+     * PreparedRenderer prototype or a prepare executor.
+     *
+     * @param executor used to prepare the view models or null to prepare them while rendering.
+     */
+    public void setPrepareExecutor(Executor executor) {
+        if (executor != null || viewModelPreparer != null) {
+            getViewModelPreparer().setExecutor(executor);
+        }
+    }
+
+    /**
+     * Configures the number of positions prepared in advance in the scroll direction every time a
+     * position is bound. The default value is 4.
+     *
+     * @param prepareDistance number of positions prepared in advance.
+     */
+    public void setPrepareDistance(int prepareDistance) {
+        getViewModelPreparer().setPrepareDistance(prepareDistance);
+    }
+
+    /**
+     * Configures the max size of the view models prepared by PreparedRenderer instances kept in
+     * memory. The size of every view model is the one returned by the PreparedRenderer sizeOf
+     * method, one by default. The least recently used view models are evicted once the cache is
+     * full. The default value is 64.
+     *
+     * @param maxSize of the view models kept.
+     */
+    public void setViewModelCacheSize(int maxSize) {
+        getViewModelPreparer().getViewModelCache().setMaxSize(maxSize);
+    }
+
+    /**
+     * Returns the cache of the view models prepared by PreparedRenderer instances, exposing the
+     * number of hits, misses and evictions.
+     *
+     * @return the view model cache of this adapter.
+     */
+    public ViewModelCache getViewModelCache() {
+        return getViewModelPreparer().getViewModelCache();
+    }
+
+    /**
+     * Registers the view model cache to be shrunk when the system asks to trim the memory, if there
+     * is a PreparedRenderer prototype or a prepare executor.
+     */
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        attachedContext = recyclerView.getContext();
+        attachedCount++;
+        if (viewModelPreparer != null) {
+            viewModelPreparer.onAttached(attachedContext);
+        } else {
+            getActiveViewModelPreparer();
+        }
+    }
+
+    /**
+     * Unregisters the view model cache once this adapter is not attached to any RecyclerView.
+     */
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        if (attachedCount > 0 && --attachedCount == 0) {
+            attachedContext = null;
+        }
+        if (viewModelPreparer != null) {
+            viewModelPreparer.onDetached(recyclerView.getContext());
+        }
+    }
+
+    /**
+     * Configures the FrameBudgetScheduler used to execute the work deferred by the Renderer
+     * instances across frames within the frame budget configured. If there is no scheduler, the
+     * default, the deferred work is executed while rendering.
+     *
+     * @param frameBudgetScheduler used to execute the deferred work or null to execute it while
+     * rendering.
+     */
+    public void setFrameBudgetScheduler(FrameBudgetScheduler frameBudgetScheduler) {
+        this.frameBudgetScheduler = frameBudgetScheduler;
+    }
+
+    /**
+     * Returns the UpdateGate used to submit new lists from any thread. All the lists submitted
+     * within a frame, or within the debounce window configured, are collapsed into a single
+     * submitList with the latest list submitted, so the superseded lists are never diffed. This
+     * method has to be invoked from the main thread.
+     *
+     * @return the update gate of this adapter.
+     */
+    public UpdateGate<T> getUpdateGate() {
+        if (updateGate == null) {
+            updateGate = new UpdateGate<>(new UpdateGate.Target<T>() {
+                @Override
+                public void update(List<T> list, Executor diffExecutor) {
+                    submitList(list);
+                }
+            });
+        }
+        return updateGate;
+    }
+
+    /**
+     * Submits the list passed as argument. The adapter keeps rendering the current list until the
+     * differ dispatches the diff result. Lists of Flyweight content, like a ColumnarList, can only
+     * be submitted if the adapter is empty and throw FlyweightDiffUpdateException otherwise.
+     *
+     * @param list to render.
+     */
+    @Override
+    public void submitList(@Nullable List<T> list) {
+        checkDiffUpdateSupported(list);
+        latestList = list == null ? Collections.<T>emptyList() : list;
+        super.submitList(list);
+    }
+
+    /**
+     * Submits the list passed as argument. The adapter keeps rendering the current list until the
+     * differ dispatches the diff result and then the commit callback is invoked.
+     *
+     * @param list to render.
+     * @param commitCallback invoked once the list is rendered.
+     */
+    @Override
+    public void submitList(@Nullable List<T> list, @Nullable Runnable commitCallback) {
+        checkDiffUpdateSupported(list);
+        latestList = list == null ? Collections.<T>emptyList() : list;
+        super.submitList(list, commitCallback);
     }
 
     /**
@@ -249,12 +593,13 @@ public class RVListRendererAdapter<T> extends ListAdapter<T, RendererViewHolder>
     }
 
     /**
-     * Allows the client code to access the list from subtypes of RendererAdapter.
+     * Allows the client code to access the list from subtypes of RendererAdapter. The list returned
+     * is the differ's current list and can't be modified.
      *
      * @return collection used in the adapter as the adaptee class.
      */
     protected List<T> getList() {
-        return list;
+        return getCurrentList();
     }
 
     /**
@@ -273,19 +618,96 @@ public class RVListRendererAdapter<T> extends ListAdapter<T, RendererViewHolder>
     }
 
     /**
-     * Provides a ready to use diff update for our adapter based on the diffing configuration
-     * passed to the adapter on its instantiation. The diffing calculation is performed on a
-     * background thread.
+     * Invoked by the differ once the current list has been replaced and the diff result has been
+     * dispatched. The view types cached are not valid anymore, so they are discarded.
      *
-     * @param newList to refresh our content
+     * @param previousList rendered before the update.
+     * @param currentList rendered from now on.
      */
     @Override
-    public void submitList(@Nullable List<T> newList) {
-        if (getList().size() > 0) {
-            clear();
+    public void onCurrentListChanged(@NonNull List<T> previousList, @NonNull List<T> currentList) {
+        invalidateViewTypes();
+    }
+
+    private void submitInitialList(List<T> list) {
+        if (!list.isEmpty()) {
+            latestList = list;
+            super.submitList(list);
+        }
+    }
+
+    /**
+     * Returns the list the modifications have to be applied to. It is a copy of the latest list
+     * submitted, which is shared by every modification while a batch is in progress, so the
+     * modifications applied before the differ dispatches the previous submissions are not lost.
+     */
+    private List<T> getListToModify() {
+        if (ColumnarList.containsFlyweights(latestList)) {
+            throw new FlyweightDiffUpdateException("Lists of Flyweight content like ColumnarList "
+                    + "can't be modified using the adapter. Use setList instead.");
+        }
+        if (batchDepth == 0) {
+            return new ArrayList<>(latestList);
+        }
+        if (batchList == null) {
+            batchList = new ArrayList<>(latestList);
+        }
+        return batchList;
+    }
+
+    /**
+     * Throws FlyweightDiffUpdateException if the list rendered is going to be diffed with the new
+     * list and any of them return Flyweight content. The differ would read them from its
+     * background thread, moving the Flyweight instance the main thread renders. Clearing the
+     * adapter doesn't compare any item, so it is supported.
+     */
+    private void checkDiffUpdateSupported(List<T> newList) {
+        if (latestList.isEmpty() || newList == null || newList.isEmpty() || newList == latestList) {
+            return;
+        }
+        if (ColumnarList.containsFlyweights(latestList)
+                || ColumnarList.containsFlyweights(newList)) {
+            throw new FlyweightDiffUpdateException("Diff updates are not supported for lists of "
+                    + "Flyweight content like ColumnarList. Only the first list submitted can be "
+                    + "a list of Flyweight content.");
+        }
+    }
+
+    private void submitModifiedList(List<T> newList) {
+        if (batchDepth == 0) {
+            submitList(newList);
+        }
+    }
+
+    private void invalidateViewTypes() {
+        if (viewTypeCache != null) {
+            viewTypeCache.clear();
+        }
+    }
+
+    /**
+     * Returns the ViewModelPreparer if there is a PreparedRenderer prototype or it was created
+     * before, when configuring it, or null if the items bound don't need it.
+     */
+    private ViewModelPreparer<T> getActiveViewModelPreparer() {
+        if (viewModelPreparer == null && rendererBuilder.hasPreparedPrototypes()) {
+            return getViewModelPreparer();
         }
-        addAll(newList);
+        return viewModelPreparer;
+    }
 
-        super.submitList(newList);
+    /**
+     * Returns the ViewModelPreparer, creating it attached to the RecyclerViews this adapter is
+     * already attached to if it does not exist yet.
+     */
+    private ViewModelPreparer<T> getViewModelPreparer() {
+        if (viewModelPreparer == null) {
+            viewModelPreparer = new ViewModelPreparer<>(rendererBuilder);
+            viewModelPreparer.setItemIdProvider(itemIdProvider);
+            for (int i = 0; i < attachedCount; i++) {
+                viewModelPreparer.onAttached(attachedContext);
+            }
+        }
+        return viewModelPreparer;
     }
 }
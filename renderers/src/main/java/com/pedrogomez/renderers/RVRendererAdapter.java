@@ -15,16 +15,23 @@
  */
 package com.pedrogomez.renderers;
 
-import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.BatchingListUpdateCallback;
+import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
+import android.content.Context;
+import android.os.Build;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
+import com.pedrogomez.renderers.exception.FlyweightDiffUpdateException;
 import com.pedrogomez.renderers.exception.NullRendererBuiltException;
+import com.pedrogomez.renderers.exception.PagedListDiffUpdateException;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * RecyclerView.Adapter extension created to work RendererBuilders and Renderer instances. Other
@@ -35,7 +42,10 @@ import java.util.List;
  * <p>
  * RVRendererAdapter has to be constructed with a LayoutInflater to inflate views, one
  * RendererBuilder to provide Renderer to RVRendererAdapter and one List to
- * provide the elements to render.
+ * provide the elements to render. If the List is a PersistentList the adapter keeps the versions
+ * passed instead of copying them, and the methods modifying the list create new versions of it.
+ * If the List is a PagedList the items around every position rendered are loaded on demand, and
+ * it has to be replaced using setList because diff updates are not supported.
  *
  * @author Pedro Vicente Gómez Sánchez.
  */
@@ -43,6 +53,24 @@ public class RVRendererAdapter<T> extends RecyclerView.Adapter<RendererViewHolde
 
   private final RendererBuilder<T> rendererBuilder;
   private List<T> list;
+  private ItemIdProvider<T> itemIdProvider;
+  private boolean checkItemIdCollisions;
+  private ChangePayloadProvider<T> changePayloadProvider;
+  private boolean detectMoves = true;
+  private boolean keyedDiff;
+  private ViewTypeCache viewTypeCache;
+  private RendererPreInflater<T> preInflater;
+  private Executor mainThreadExecutor;
+  private PagedList.Listener pagedListListener;
+  private int batchDepth;
+  private BatchingListUpdateCallback batchCallback;
+  private ListMutationQueue<T> mutationQueue;
+  private UpdateGate<T> updateGate;
+  private FrameBudgetScheduler frameBudgetScheduler;
+  private ViewModelPreparer<T> viewModelPreparer;
+  private Context attachedContext;
+  private int attachedCount;
+  private int diffUpdateGeneration;
 
   public RVRendererAdapter(RendererBuilder<T> rendererBuilder) {
     this(rendererBuilder, new ArrayList<T>());
@@ -76,7 +104,219 @@ public class RVRendererAdapter<T> extends RecyclerView.Adapter<RendererViewHolde
   }
 
   @Override public long getItemId(int position) {
-    return position;
+    return ItemIds.getItemId(itemIdProvider, list, position, checkItemIdCollisions);
+  }
+
+  /**
+   * Configures the ItemIdProvider used to resolve the id of every item. Stable ids are enabled
+   * when an ItemIdProvider is configured, so this method has to be invoked before configuring the
+   * adapter in the RecyclerView.
+   *
+   * @param itemIdProvider used to resolve the item ids or null to use the item positions.
+   */
+  public void setItemIdProvider(ItemIdProvider<T> itemIdProvider) {
+    this.itemIdProvider = itemIdProvider;
+    setHasStableIds(itemIdProvider != null);
+    if (viewModelPreparer != null) {
+      viewModelPreparer.setItemIdProvider(itemIdProvider);
+    }
+  }
+
+  /**
+   * Enables checks ensuring the ItemIdProvider configured does not return the same id for two
+   * different items. A DuplicatedItemIdException is thrown if a collision is found. Every check
+   * traverses the whole list, so they should be enabled just in debug builds.
+   *
+   * @param enabled true to check the item ids.
+   */
+  public void setItemIdCollisionChecksEnabled(boolean enabled) {
+    this.checkItemIdCollisions = enabled;
+  }
+
+  /**
+   * Configures the ChangePayloadProvider used by diffUpdate to describe the changes applied to the
+   * items updated. The payloads are passed to the Renderer render(List) method.
+   *
+   * @param changePayloadProvider used to describe the changes or null to render the whole items.
+   */
+  public void setChangePayloadProvider(ChangePayloadProvider<T> changePayloadProvider) {
+    this.changePayloadProvider = changePayloadProvider;
+  }
+
+  /**
+   * Enables or disables the detection of moved items in diffUpdate. Detecting moves is enabled by
+   * default and it is only needed when the items changed can be reordered.
+   *
+   * @param enabled true to detect the items moved.
+   */
+  public void setDiffMoveDetectionEnabled(boolean enabled) {
+    this.detectMoves = enabled;
+  }
+
+  /**
+   * Enables or disables the keyed diff in diffUpdate. The keyed diff identifies the items using the
+   * ItemIdProvider configured and calculates the updates in O(n log n) time without using DiffUtil,
+   * so it is recommended when big lists are reordered. An ItemIdProvider has to be configured to
+   * use it and the new lists can't contain items with the same id.
+   *
+   * @param enabled true to use the keyed diff.
+   */
+  public void setKeyedDiffEnabled(boolean enabled) {
+    this.keyedDiff = enabled;
+  }
+
+  /**
+   * Starts a batch of modifications. The insertions and removals applied using add, remove,
+   * addAll, removeAll and clear until commit is invoked are recorded, merging the adjacent ones,
+   * and notified to the RecyclerView on commit. Batches can be nested and the modifications are
+   * notified when the outermost batch is committed, so commit has to be invoked before the
+   * RecyclerView is laid out again.
+   */
+  public void beginBatch() {
+    if (batchDepth++ == 0) {
+      batchCallback = new BatchingListUpdateCallback(new AdapterListUpdateCallback(this));
+    }
+  }
+
+  /**
+   * Returns the ListMutationQueue used to modify the list from any thread. The modifications
+   * enqueued are applied from the main thread once per frame. This method has to be invoked from
+   * the main thread.
+   *
+   * @return the queue of modifications of this adapter.
+   */
+  public ListMutationQueue<T> getMutationQueue() {
+    if (mutationQueue == null) {
+      Executor frameExecutor = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+          ? new ChoreographerExecutor() : new MainThreadExecutor();
+      mutationQueue = new ListMutationQueue<>(this, frameExecutor);
+    }
+    return mutationQueue;
+  }
+
+  /**
+   * Configures the executor used to prepare the view models of the PreparedRenderer instances
+   * before the items are bound. The items placed after the position bound in the scroll direction
+   * are prepared in advance. If there is no executor, the default, the view models are prepared
+   * while rendering. The ViewModelPreparer and its cache are created just if there is a
+   * PreparedRenderer prototype or a prepare executor.
+   *
+   * @param executor used to prepare the view models or null to prepare them while rendering.
+   */
+  public void setPrepareExecutor(Executor executor) {
+    if (executor != null || viewModelPreparer != null) {
+      getViewModelPreparer().setExecutor(executor);
+    }
+  }
+
+  /**
+   * Configures the number of positions prepared in advance in the scroll direction every time a
+   * position is bound. The default value is 4.
+   *
+   * @param prepareDistance number of positions prepared in advance.
+   */
+  public void setPrepareDistance(int prepareDistance) {
+    getViewModelPreparer().setPrepareDistance(prepareDistance);
+  }
+
+  /**
+   * Configures the max size of the view models prepared by PreparedRenderer instances kept in
+   * memory. The size of every view model is the one returned by the PreparedRenderer sizeOf
+   * method, one by default. The least recently used view models are evicted once the cache is
+   * full. The default value is 64.
+   *
+   * @param maxSize of the view models kept.
+   */
+  public void setViewModelCacheSize(int maxSize) {
+    getViewModelPreparer().getViewModelCache().setMaxSize(maxSize);
+  }
+
+  /**
+   * Returns the cache of the view models prepared by PreparedRenderer instances, exposing the
+   * number of hits, misses and evictions.
+   *
+   * @return the view model cache of this adapter.
+   */
+  public ViewModelCache getViewModelCache() {
+    return getViewModelPreparer().getViewModelCache();
+  }
+
+  /**
+   * Registers the view model cache to be shrunk when the system asks to trim the memory, if there
+   * is a PreparedRenderer prototype or a prepare executor.
+   */
+  @Override public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+    super.onAttachedToRecyclerView(recyclerView);
+    attachedContext = recyclerView.getContext();
+    attachedCount++;
+    if (viewModelPreparer != null) {
+      viewModelPreparer.onAttached(attachedContext);
+    } else {
+      getActiveViewModelPreparer();
+    }
+  }
+
+  /**
+   * Unregisters the view model cache once this adapter is not attached to any RecyclerView.
+   */
+  @Override public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+    super.onDetachedFromRecyclerView(recyclerView);
+    if (attachedCount > 0 && --attachedCount == 0) {
+      attachedContext = null;
+    }
+    if (viewModelPreparer != null) {
+      viewModelPreparer.onDetached(recyclerView.getContext());
+    }
+  }
+
+  /**
+   * Configures the FrameBudgetScheduler used to execute the work deferred by the Renderer
+   * instances across frames within the frame budget configured. If there is no scheduler, the
+   * default, the deferred work is executed while rendering.
+   *
+   * @param frameBudgetScheduler used to execute the deferred work or null to execute it while
+   * rendering.
+   */
+  public void setFrameBudgetScheduler(FrameBudgetScheduler frameBudgetScheduler) {
+    this.frameBudgetScheduler = frameBudgetScheduler;
+  }
+
+  /**
+   * Returns the UpdateGate used to submit new lists from any thread. All the lists submitted
+   * within a frame, or within the debounce window configured, are collapsed into a single
+   * diffUpdate from the list rendered to the latest list submitted. The diffUpdate is asynchronous
+   * if a diff executor has been configured in the gate. This method has to be invoked from the
+   * main thread.
+   *
+   * @return the update gate of this adapter.
+   */
+  public UpdateGate<T> getUpdateGate() {
+    if (updateGate == null) {
+      updateGate = new UpdateGate<>(new UpdateGate.Target<T>() {
+        @Override public void update(List<T> list, Executor diffExecutor) {
+          if (diffExecutor == null) {
+            diffUpdate(list);
+          } else {
+            diffUpdate(list, diffExecutor, null);
+          }
+        }
+      });
+    }
+    return updateGate;
+  }
+
+  /**
+   * Finishes the batch of modifications started with beginBatch notifying the minimum set of
+   * ranges inserted and removed to the RecyclerView if it is the outermost batch.
+   */
+  public void commit() {
+    if (batchDepth == 0) {
+      throw new IllegalStateException("commit invoked without invoking beginBatch before");
+    }
+    if (--batchDepth == 0) {
+      flushBatch();
+      batchCallback = null;
+    }
   }
 
   /**
@@ -98,7 +338,64 @@ public class RVRendererAdapter<T> extends RecyclerView.Adapter<RendererViewHolde
       throw new IllegalArgumentException("The List configured can't be null");
     }
 
+    flushBatch();
+    detachPagedList(list);
     this.list = list;
+    diffUpdateGeneration++;
+    invalidateViewTypes();
+  }
+
+  /**
+   * Enables or disables the cache of view types per position. When the cache is enabled the view
+   * type of every position is resolved just once using the RendererBuilder and kept until the
+   * list is modified using this adapter. If you modify the list without using the adapter methods
+   * the cache has to be disabled.
+   *
+   * @param enabled true to cache the view types.
+   */
+  public void setViewTypeCacheEnabled(boolean enabled) {
+    viewTypeCache = enabled ? new ViewTypeCache() : null;
+  }
+
+  /**
+   * Enables the cache of view types and fills it resolving the view type of every element in a
+   * background thread. The RendererBuilder getPrototypeClass implementation will be invoked from
+   * the executor passed as argument.
+   *
+   * @param executor used to resolve the view types.
+   */
+  public void preloadViewTypes(Executor executor) {
+    if (viewTypeCache == null) {
+      setViewTypeCacheEnabled(true);
+    }
+    viewTypeCache.preload(list, rendererBuilder, executor);
+  }
+
+  /**
+   * Configures a RendererPreInflater providing RendererViewHolder instances created in background.
+   * onCreateViewHolder will return the RendererViewHolder instances created by the pre inflater
+   * before creating new ones.
+   *
+   * @param preInflater used to get ready to use RendererViewHolder instances or null.
+   */
+  public void setPreInflater(RendererPreInflater<T> preInflater) {
+    this.preInflater = preInflater;
+  }
+
+  /**
+   * Creates RendererViewHolder instances for the view type passed as argument in the main thread
+   * while it is idle so they are ready before the list is shown. If there is no RendererPreInflater
+   * configured a new one is created.
+   *
+   * @param parent used to inflate the renderers, usually the RecyclerView where they will be shown.
+   * @param viewType associated to the renderer to create.
+   * @param count number of RendererViewHolder instances to have ready.
+   */
+  public void prewarm(ViewGroup parent, int viewType, int count) {
+    if (preInflater == null) {
+      preInflater = new RendererPreInflater<>(rendererBuilder);
+    }
+    preInflater.prewarm(parent, viewType, count);
   }
 
   /**
@@ -108,8 +405,16 @@ public class RVRendererAdapter<T> extends RecyclerView.Adapter<RendererViewHolde
    * @return the id associated to the Renderer used to render the content given a position.
    */
   @Override public int getItemViewType(int position) {
-    T content = getItem(position);
-    return rendererBuilder.getItemViewType(content);
+    if (viewTypeCache == null) {
+      T content = getItem(position);
+      return rendererBuilder.getAdapterViewType(content);
+    }
+    int viewType = viewTypeCache.get(position);
+    if (viewType == ViewTypeCache.UNKNOWN_VIEW_TYPE) {
+      viewType = rendererBuilder.getAdapterViewType(getItem(position));
+      viewTypeCache.put(position, viewType);
+    }
+    return viewType;
   }
 
   /**
@@ -122,6 +427,10 @@ public class RVRendererAdapter<T> extends RecyclerView.Adapter<RendererViewHolde
    * @return ViewHolder extension with the Renderer it has to use inside.
    */
   @Override public RendererViewHolder onCreateViewHolder(ViewGroup viewGroup, int viewType) {
+    RendererViewHolder preInflatedViewHolder = preInflater != null ? preInflater.poll(viewType) : null;
+    if (preInflatedViewHolder != null) {
+      return preInflatedViewHolder;
+    }
     rendererBuilder.withParent(viewGroup);
     rendererBuilder.withLayoutInflater(LayoutInflater.from(viewGroup.getContext()));
     rendererBuilder.withViewType(viewType);
@@ -140,14 +449,59 @@ public class RVRendererAdapter<T> extends RecyclerView.Adapter<RendererViewHolde
    * @param position to render.
    */
   @Override public void onBindViewHolder(RendererViewHolder viewHolder, int position) {
+    loadAround(position);
+    ViewModelPreparer<T> preparer = getActiveViewModelPreparer();
+    if (preparer != null) {
+      preparer.prepareAround(list, position);
+    }
     T content = getItem(position);
     Renderer<T> renderer = viewHolder.getRenderer();
     if (renderer == null) {
       throw new NullRendererBuiltException("RendererBuilder have to return a not null renderer");
     }
+    renderer.prepareRender(frameBudgetScheduler);
+    if (preparer != null) {
+      renderer.attachViewModelCache(preparer.getViewModelCache());
+    }
     renderer.setContent(content);
     updateRendererExtraValues(content, renderer, position);
     renderer.render();
+    renderer.releaseFlyweightContent();
+  }
+
+  /**
+   * Given a RendererViewHolder passed as argument, a position and the payloads describing the
+   * changes applied to the item renders the view using the Renderer previously stored into the
+   * RendererViewHolder. If there are no payloads the whole item is rendered again.
+   *
+   * @param viewHolder with a Renderer class inside.
+   * @param position to render.
+   * @param payloads describing the changes applied to the item.
+   */
+  @Override public void onBindViewHolder(RendererViewHolder viewHolder, int position,
+      List<Object> payloads) {
+    if (payloads.isEmpty()) {
+      onBindViewHolder(viewHolder, position);
+      return;
+    }
+    loadAround(position);
+    ViewModelPreparer<T> preparer = getActiveViewModelPreparer();
+    if (preparer != null) {
+      preparer.prepareAround(list, position);
+    }
+    T content = getItem(position);
+    Renderer<T> renderer = viewHolder.getRenderer();
+    if (renderer == null) {
+      throw new NullRendererBuiltException("RendererBuilder have to return a not null renderer");
+    }
+    renderer.prepareRender(frameBudgetScheduler);
+    if (preparer != null) {
+      renderer.attachViewModelCache(preparer.getViewModelCache());
+    }
+    renderer.setContent(content);
+    updateRendererExtraValues(content, renderer, position);
+    renderer.render(payloads);
+    renderer.releaseFlyweightContent();
   }
 
   /**
@@ -157,7 +511,18 @@ public class RVRendererAdapter<T> extends RecyclerView.Adapter<RendererViewHolde
    * @return if the element has been added.
    */
   public boolean add(T element) {
-    return list.add(element);
+    diffUpdateGeneration++;
+    boolean added;
+    if (list instanceof PersistentList) {
+      list = ((PersistentList<T>) list).plus(element);
+      added = true;
+    } else {
+      added = list.add(element);
+    }
+    if (added) {
+      onInserted(list.size() - 1, 1);
+    }
+    return added;
   }
 
   /**
@@ -167,7 +532,21 @@ public class RVRendererAdapter<T> extends RecyclerView.Adapter<RendererViewHolde
    * @return if the element has been removed.
    */
   public boolean remove(T element) {
-    return list.remove(element);
+    diffUpdateGeneration++;
+    if (viewTypeCache == null && batchCallback == null && !(list instanceof PersistentList)) {
+      return list.remove(element);
+    }
+    int position = list.indexOf(element);
+    if (position == -1) {
+      return false;
+    }
+    if (list instanceof PersistentList) {
+      list = ((PersistentList<T>) list).minus(position);
+    } else {
+      list.remove(position);
+    }
+    onRemoved(position, 1);
+    return true;
   }
 
   /**
@@ -177,7 +556,19 @@ public class RVRendererAdapter<T> extends RecyclerView.Adapter<RendererViewHolde
    * @return if the elements have been added.
    */
   public boolean addAll(Collection<? extends T> elements) {
-    return list.addAll(elements);
+    diffUpdateGeneration++;
+    int position = list.size();
+    boolean added;
+    if (list instanceof PersistentList) {
+      list = ((PersistentList<T>) list).plusAll(elements);
+      added = !elements.isEmpty();
+    } else {
+      added = list.addAll(elements);
+    }
+    if (added) {
+      onInserted(position, elements.size());
+    }
+    return added;
   }
 
   /**
@@ -187,14 +578,52 @@ public class RVRendererAdapter<T> extends RecyclerView.Adapter<RendererViewHolde
    * @return if the elements have been removed.
    */
   public boolean removeAll(Collection<?> elements) {
-    return list.removeAll(elements);
+    diffUpdateGeneration++;
+    List<Integer> removedPositions = null;
+    if (batchCallback != null) {
+      removedPositions = new ArrayList<>();
+      for (int i = list.size() - 1; i >= 0; i--) {
+        if (elements.contains(list.get(i))) {
+          removedPositions.add(i);
+        }
+      }
+    }
+    boolean removed;
+    if (list instanceof PersistentList) {
+      List<T> remaining = new ArrayList<>(list);
+      removed = remaining.removeAll(elements);
+      if (removed) {
+        list = PersistentList.copyOf(remaining);
+      }
+    } else {
+      removed = list.removeAll(elements);
+    }
+    if (removed) {
+      invalidateViewTypes();
+      if (removedPositions != null) {
+        for (int position : removedPositions) {
+          batchCallback.onRemoved(position, 1);
+        }
+      }
+    }
+    return removed;
   }
 
   /**
    * Remove all elements inside the list.
    */
   public void clear() {
-    list.clear();
+    diffUpdateGeneration++;
+    int size = list.size();
+    if (list instanceof PersistentList) {
+      list = PersistentList.empty();
+    } else {
+      list.clear();
+    }
+    invalidateViewTypes();
+    if (batchCallback != null && size > 0) {
+      batchCallback.onRemoved(0, size);
+    }
   }
 
   /**
@@ -235,20 +664,233 @@ public class RVRendererAdapter<T> extends RecyclerView.Adapter<RendererViewHolde
 
   /**
    * Provides a ready to use diff update for our adapter based on the implementation of the
-   * standard equals method from Object.
+   * standard equals method from Object. The items not changed at the beginning and the end of the
+   * list are skipped before using DiffUtil, so appending, prepending or removing items from the
+   * list ends is resolved without comparing the rest of items. If an ItemIdProvider is configured
+   * it is used to identify the items and, if a ChangePayloadProvider is configured, the items
+   * changed are notified with the payloads it provides. Lists of Flyweight content, like a
+   * ColumnarList, can't be diffed and throw FlyweightDiffUpdateException, and PagedList instances
+   * throw PagedListDiffUpdateException; use setList and notifyDataSetChanged instead.
    *
    * @param newList to refresh our content
    */
   public void diffUpdate(List<T> newList) {
+    checkDiffUpdateSupported(newList);
+    diffUpdateGeneration++;
+    flushBatch();
     if (getList().size() == 0) {
-      addAll(newList);
+      replaceList(newList);
+      invalidateViewTypes();
       notifyDataSetChanged();
     } else {
-      DiffCallback<T> diffCallback = new DiffCallback<>(list, newList);
-      DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(diffCallback);
-      clear();
-      addAll(newList);
-      diffResult.dispatchUpdatesTo(this);
+      ListDiffResult diffResult = createListDiffer().calculate(list, newList);
+      replaceList(newList);
+      diffResult.dispatchUpdatesTo(getListUpdateCallback());
+    }
+  }
+
+  /**
+   * Asynchronous version of diffUpdate. The differences between a snapshot of the current list and
+   * the new list are calculated using the executor passed as argument, and only the list update
+   * and the changes dispatch are executed in the main thread. If the adapter list is updated or
+   * modified using this adapter before the differences are calculated, the result is discarded.
+   * This method has to be invoked from the main thread.
+   *
+   * @param newList to refresh our content.
+   * @param executor where the differences are calculated.
+   * @param listener notified once the update is applied or discarded. It can be null.
+   */
+  public void diffUpdate(List<T> newList, Executor executor, DiffUpdateListener listener) {
+    if (mainThreadExecutor == null) {
+      mainThreadExecutor = new MainThreadExecutor();
+    }
+    diffUpdate(newList, executor, mainThreadExecutor, listener);
+  }
+
+  void diffUpdate(List<T> newList, Executor executor, final Executor mainThreadExecutor,
+      final DiffUpdateListener listener) {
+    if (newList == null || executor == null) {
+      throw new IllegalArgumentException("The new list and executor configured can't be null");
+    }
+    checkDiffUpdateSupported(newList);
+    final int generation = ++diffUpdateGeneration;
+    final List<T> oldSnapshot = snapshot(list);
+    final List<T> newSnapshot = snapshot(newList);
+    final ListDiffer<T> listDiffer = createListDiffer();
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        final ListDiffResult diffResult = listDiffer.calculate(oldSnapshot, newSnapshot);
+        mainThreadExecutor.execute(new Runnable() {
+          @Override public void run() {
+            applyDiffResult(generation, newSnapshot, diffResult, listener);
+          }
+        });
+      }
+    });
+  }
+
+  private void applyDiffResult(int generation, List<T> newList, ListDiffResult diffResult,
+      DiffUpdateListener listener) {
+    if (generation != diffUpdateGeneration) {
+      if (listener != null) {
+        listener.onDiffUpdateDiscarded();
+      }
+      return;
+    }
+    flushBatch();
+    replaceList(newList);
+    diffResult.dispatchUpdatesTo(getListUpdateCallback());
+    if (listener != null) {
+      listener.onDiffUpdateApplied();
+    }
+  }
+
+  private void onInserted(int position, int count) {
+    if (viewTypeCache != null) {
+      viewTypeCache.onInserted(position, count);
+    }
+    if (batchCallback != null) {
+      batchCallback.onInserted(position, count);
+    }
+  }
+
+  private void onRemoved(int position, int count) {
+    if (viewTypeCache != null) {
+      viewTypeCache.onRemoved(position, count);
+    }
+    if (batchCallback != null) {
+      batchCallback.onRemoved(position, count);
+    }
+  }
+
+  /**
+   * Notifies the modifications recorded in the current batch, if any, so the updates notified
+   * after them are relative to the list already modified.
+   */
+  private void flushBatch() {
+    if (batchCallback != null) {
+      batchCallback.dispatchLastEvent();
+    }
+  }
+
+  /**
+   * Requests the items around the position rendered if the list is a PagedList, refreshing the
+   * positions once they are loaded or evicted.
+   */
+  private void loadAround(int position) {
+    if (!(list instanceof PagedList)) {
+      return;
+    }
+    if (pagedListListener == null) {
+      pagedListListener = new PagedList.Listener() {
+        @Override public void onItemRangeChanged(int positionStart, int itemCount) {
+          getListUpdateCallback().onChanged(positionStart, itemCount, null);
+        }
+      };
+    }
+    PagedList<T> pagedList = (PagedList<T>) list;
+    pagedList.setListener(pagedListListener);
+    pagedList.loadAround(position);
+  }
+
+  /**
+   * Replaces the content of the list rendered with the elements of the list passed as argument.
+   * PersistentList and MappedRecordList instances are kept as they are instead of copying them.
+   */
+  private void replaceList(List<T> newList) {
+    if (isImmutable(newList)) {
+      list = newList;
+    } else if (list instanceof PersistentList) {
+      list = PersistentList.copyOf(newList);
+    } else if (list instanceof MappedRecordList) {
+      list = new ArrayList<>(newList);
+    } else {
+      list.clear();
+      list.addAll(newList);
+    }
+  }
+
+  /**
+   * Throws FlyweightDiffUpdateException if the current or the new list return Flyweight content.
+   * Every position of these lists returns the same instance, so they can't be copied or compared.
+   * Throws PagedListDiffUpdateException if any of them is a PagedList, whose positions not loaded
+   * return the same placeholder and whose copies would not load the items on demand.
+   */
+  private void checkDiffUpdateSupported(List<T> newList) {
+    if (ColumnarList.containsFlyweights(list) || ColumnarList.containsFlyweights(newList)) {
+      throw new FlyweightDiffUpdateException("Diff updates are not supported for lists of "
+          + "Flyweight content like ColumnarList. Use setList and notifyDataSetChanged instead.");
+    }
+    if (list instanceof PagedList || newList instanceof PagedList) {
+      throw new PagedListDiffUpdateException("Diff updates are not supported from or to a "
+          + "PagedList. Use setList and notifyDataSetChanged instead.");
+    }
+  }
+
+  /**
+   * Stops listening to the PagedList rendered, if any, so the pages it loads once replaced by the
+   * list passed as argument don't notify changes of the new list.
+   */
+  private void detachPagedList(List<T> newList) {
+    if (list instanceof PagedList && list != newList) {
+      ((PagedList<T>) list).setListener(null);
+    }
+  }
+
+  private static <T> List<T> snapshot(List<T> list) {
+    return isImmutable(list) ? list : new ArrayList<>(list);
+  }
+
+  /**
+   * Returns true if the list passed as argument can't be modified, so it can be diffed from a
+   * background thread without copying it. Copying a MappedRecordList would decode every record.
+   */
+  private static boolean isImmutable(List<?> list) {
+    return list instanceof PersistentList || list instanceof MappedRecordList;
+  }
+
+  private ListDiffer<T> createListDiffer() {
+    return new ListDiffer<>(itemIdProvider, changePayloadProvider, detectMoves, keyedDiff);
+  }
+
+  /**
+   * Returns the ListUpdateCallback used to dispatch the list updates to this adapter keeping the
+   * view types cache in sync.
+   */
+  private ListUpdateCallback getListUpdateCallback() {
+    ListUpdateCallback callback = new AdapterListUpdateCallback(this);
+    return viewTypeCache != null ? viewTypeCache.wrap(callback) : callback;
+  }
+
+  private void invalidateViewTypes() {
+    if (viewTypeCache != null) {
+      viewTypeCache.clear();
+    }
+  }
+
+  /**
+   * Returns the ViewModelPreparer if there is a PreparedRenderer prototype or it was created
+   * before, when configuring it, or null if the items bound don't need it.
+   */
+  private ViewModelPreparer<T> getActiveViewModelPreparer() {
+    if (viewModelPreparer == null && rendererBuilder.hasPreparedPrototypes()) {
+      return getViewModelPreparer();
+    }
+    return viewModelPreparer;
+  }
+
+  /**
+   * Returns the ViewModelPreparer, creating it attached to the RecyclerViews this adapter is
+   * already attached to if it does not exist yet.
+   */
+  private ViewModelPreparer<T> getViewModelPreparer() {
+    if (viewModelPreparer == null) {
+      viewModelPreparer = new ViewModelPreparer<>(rendererBuilder);
+      viewModelPreparer.setItemIdProvider(itemIdProvider);
+      for (int i = 0; i < attachedCount; i++) {
+        viewModelPreparer.onAttached(attachedContext);
+      }
     }
+    return viewModelPreparer;
   }
 }
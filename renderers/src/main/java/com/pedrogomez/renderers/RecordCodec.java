@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes the items stored by MappedRecordWriter and decodes the ones read by MappedRecordList.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public interface RecordCodec<T> {
+
+  /**
+   * Writes the record associated to the item passed as argument.
+   *
+   * @param item to encode.
+   * @param output where the record is written.
+   * @throws IOException if the record can't be written.
+   */
+  void encode(T item, DataOutput output) throws IOException;
+
+  /**
+   * Creates the item associated to the record passed as argument. This method can be invoked
+   * from a background thread while diffing a MappedRecordList.
+   *
+   * @param record buffer positioned at the beginning of the record and limited to its end.
+   * @return the item decoded.
+   */
+  T decode(ByteBuffer record);
+}
@@ -22,6 +22,8 @@ import android.view.View;
 import android.view.ViewGroup;
 import com.pedrogomez.renderers.exception.NotInflateViewException;
 
+import java.util.List;
+
 /**
  * Core class in this library. Base class created to work as a root ViewHolder in the classic
  * ListView / Adapter implementation. This entity will be extended by other Renderer classes in
@@ -40,6 +42,7 @@ public abstract class Renderer<T> implements Cloneable {
 
   private View rootView;
   private T content;
+  private FrameBudgetScheduler frameBudgetScheduler;
 
   /**
    * Method called when the renderer is going to be created. This method has the responsibility of
@@ -93,6 +96,9 @@ public abstract class Renderer<T> implements Cloneable {
   }
 
   /**
+   * If the content is a Flyweight, like the rows of a ColumnarList, it is only available while
+   * rendering because it is reused to render other positions.
+   *
    * @return the content stored in the Renderer.
    */
   protected final T getContent() {
@@ -137,10 +143,69 @@ public abstract class Renderer<T> implements Cloneable {
    */
   public abstract void render();
 
+  /**
+   * Method invoked to render a content partially changed, where the payloads describe the changes
+   * applied to the content. Override this method to update just the views affected by the changes.
+   * By default the whole content is rendered again using render.
+   *
+   * @param payloads provided by the ChangePayloadProvider configured in the adapter. This list is
+   * never empty.
+   */
+  public void render(List<Object> payloads) {
+    render();
+  }
+
+  /**
+   * Defers part of the render work to be executed in a later frame if the adapter has a
+   * FrameBudgetScheduler configured, or executes it immediately if not. Use it for expensive work
+   * that doesn't need to be visible in the first frame. The work is discarded if the Renderer is
+   * rendered again before executing it. If the content is a Flyweight it is not available once
+   * render finishes, so the work has to capture the values it needs.
+   *
+   * @param work to execute.
+   */
+  protected final void defer(Runnable work) {
+    if (frameBudgetScheduler == null) {
+      work.run();
+    } else {
+      frameBudgetScheduler.schedule(this, work);
+    }
+  }
+
+  /**
+   * Configures the FrameBudgetScheduler used to defer work before rendering, discarding the work
+   * deferred by the previous render that has not been executed yet.
+   */
+  void prepareRender(FrameBudgetScheduler frameBudgetScheduler) {
+    if (this.frameBudgetScheduler != null) {
+      this.frameBudgetScheduler.cancel(this);
+    }
+    this.frameBudgetScheduler = frameBudgetScheduler;
+  }
+
+  /**
+   * Configures the cache of view models used by PreparedRenderer instances. Other renderers
+   * ignore it.
+   */
+  void attachViewModelCache(ViewModelCache viewModelCache) {
+    //Empty
+  }
+
+  /**
+   * Releases the content once rendered if it is a Flyweight reused to render other positions.
+   */
+  void releaseFlyweightContent() {
+    if (content instanceof Flyweight) {
+      content = null;
+    }
+  }
+
   /**
    * Create a clone of the Renderer. This method is the base of the prototype mechanism implemented
    * to avoid create new objects from RendererBuilder. Pay an special attention implementing clone
-   * method in Renderer subtypes.
+   * method in Renderer subtypes. The copy is shallow, so every field not reassigned in onCreate is
+   * shared with the prototype. Register a RendererFactory in the RendererBuilder to avoid it, this
+   * method is only used when there is no factory for the Renderer.
    *
    * @return a copy of the current renderer.
    */
@@ -37,7 +37,8 @@ import java.util.List;
  *
  * RendererAdapter has to be constructed with a LayoutInflater to inflate views, one
  * RendererBuilder to provide Renderer to RendererAdapter and one list to
- * provide the elements to render.
+ * provide the elements to render. If the list is a PagedList the items around every position
+ * rendered are loaded on demand.
  *
  * @author Pedro Vicente Gómez Sánchez.
  */
@@ -45,6 +46,11 @@ public class RendererAdapter<T> extends BaseAdapter {
 
   private final RendererBuilder<T> rendererBuilder;
   private List<T> list;
+  private ItemIdProvider<T> itemIdProvider;
+  private boolean checkItemIdCollisions;
+  private PagedList.Listener pagedListListener;
+  private int batchDepth;
+  private boolean batchModified;
 
   public RendererAdapter(RendererBuilder<T> rendererBuilder) {
     this(rendererBuilder, new ArrayList<T>());
@@ -79,7 +85,33 @@ public class RendererAdapter<T> extends BaseAdapter {
   }
 
   @Override public long getItemId(int position) {
-    return position;
+    return ItemIds.getItemId(itemIdProvider, list, position, checkItemIdCollisions);
+  }
+
+  @Override public boolean hasStableIds() {
+    return itemIdProvider != null;
+  }
+
+  /**
+   * Configures the ItemIdProvider used to resolve the id of every item. Stable ids are enabled
+   * when an ItemIdProvider is configured, so this method has to be invoked before configuring the
+   * adapter in the ListView.
+   *
+   * @param itemIdProvider used to resolve the item ids or null to use the item positions.
+   */
+  public void setItemIdProvider(ItemIdProvider<T> itemIdProvider) {
+    this.itemIdProvider = itemIdProvider;
+  }
+
+  /**
+   * Enables checks ensuring the ItemIdProvider configured does not return the same id for two
+   * different items. A DuplicatedItemIdException is thrown if a collision is found. Every check
+   * traverses the whole list, so they should be enabled just in debug builds.
+   *
+   * @param enabled true to check the item ids.
+   */
+  public void setItemIdCollisionChecksEnabled(boolean enabled) {
+    this.checkItemIdCollisions = enabled;
   }
 
   /**
@@ -101,6 +133,9 @@ public class RendererAdapter<T> extends BaseAdapter {
       throw new IllegalArgumentException("The list configured can't be null");
     }
 
+    if (this.list instanceof PagedList && this.list != list) {
+      ((PagedList<T>) this.list).setListener(null);
+    }
     this.list = list;
   }
 
@@ -119,6 +154,7 @@ public class RendererAdapter<T> extends BaseAdapter {
    * @return view rendered.
    */
   @Override public View getView(int position, View convertView, ViewGroup parent) {
+    loadAround(position);
     T content = getItem(position);
     rendererBuilder.withContent(content);
     rendererBuilder.withConvertView(convertView);
@@ -130,6 +166,7 @@ public class RendererAdapter<T> extends BaseAdapter {
     }
     updateRendererExtraValues(content, renderer, position);
     renderer.render();
+    renderer.releaseFlyweightContent();
     return renderer.getRootView();
   }
 
@@ -160,7 +197,9 @@ public class RendererAdapter<T> extends BaseAdapter {
    * @param element to add.
    */
   public void add(T element) {
-    list.add(element);
+    if (list.add(element)) {
+      onListModified();
+    }
   }
 
   /**
@@ -169,7 +208,9 @@ public class RendererAdapter<T> extends BaseAdapter {
    * @param element to remove.
    */
   public void remove(Object element) {
-    list.remove(element);
+    if (list.remove(element)) {
+      onListModified();
+    }
   }
 
   /**
@@ -178,7 +219,9 @@ public class RendererAdapter<T> extends BaseAdapter {
    * @param elements to add.
    */
   public void addAll(Collection<? extends T> elements) {
-    list.addAll(elements);
+    if (list.addAll(elements)) {
+      onListModified();
+    }
   }
 
   /**
@@ -187,7 +230,9 @@ public class RendererAdapter<T> extends BaseAdapter {
    * @param elements to remove.
    */
   public void removeAll(Collection<?> elements) {
-    list.removeAll(elements);
+    if (list.removeAll(elements)) {
+      onListModified();
+    }
   }
 
   /**
@@ -195,6 +240,32 @@ public class RendererAdapter<T> extends BaseAdapter {
    */
   public void clear() {
     list.clear();
+    onListModified();
+  }
+
+  /**
+   * Starts a batch of modifications. If the list is modified using add, remove, addAll, removeAll
+   * or clear before commit is invoked, the ListView is refreshed once on commit. Batches can be
+   * nested and the ListView is refreshed when the outermost batch is committed.
+   */
+  public void beginBatch() {
+    if (batchDepth++ == 0) {
+      batchModified = false;
+    }
+  }
+
+  /**
+   * Finishes the batch of modifications started with beginBatch invoking notifyDataSetChanged if
+   * the list has been modified and it is the outermost batch.
+   */
+  public void commit() {
+    if (batchDepth == 0) {
+      throw new IllegalStateException("commit invoked without invoking beginBatch before");
+    }
+    if (--batchDepth == 0 && batchModified) {
+      batchModified = false;
+      notifyDataSetChanged();
+    }
   }
 
   /**
@@ -227,4 +298,30 @@ public class RendererAdapter<T> extends BaseAdapter {
   protected void updateRendererExtraValues(T content, Renderer<T> renderer, int position) {
     //Empty implementation
   }
+
+  private void onListModified() {
+    if (batchDepth > 0) {
+      batchModified = true;
+    }
+  }
+
+  /**
+   * Requests the items around the position rendered if the list is a PagedList, refreshing the
+   * ListView once they are loaded or evicted.
+   */
+  private void loadAround(int position) {
+    if (!(list instanceof PagedList)) {
+      return;
+    }
+    if (pagedListListener == null) {
+      pagedListListener = new PagedList.Listener() {
+        @Override public void onItemRangeChanged(int positionStart, int itemCount) {
+          notifyDataSetChanged();
+        }
+      };
+    }
+    PagedList<T> pagedList = (PagedList<T>) list;
+    pagedList.setListener(pagedListListener);
+    pagedList.loadAround(position);
+  }
 }
@@ -15,22 +15,27 @@
  */
 package com.pedrogomez.renderers;
 
+import androidx.recyclerview.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import com.pedrogomez.renderers.exception.AmbiguousBindingException;
 import com.pedrogomez.renderers.exception.NeedsPrototypesException;
 import com.pedrogomez.renderers.exception.NullContentException;
 import com.pedrogomez.renderers.exception.NullLayoutInflaterException;
 import com.pedrogomez.renderers.exception.NullParentException;
 import com.pedrogomez.renderers.exception.NullPrototypeClassException;
+import com.pedrogomez.renderers.exception.NullRendererBuiltException;
 import com.pedrogomez.renderers.exception.PrototypeNotFoundException;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class created to work as builder for Renderer objects. This class provides methods to create a
@@ -48,6 +53,10 @@ import java.util.Map;
 public class RendererBuilder<T> {
 
   private List<Renderer<? extends T>> prototypes;
+  private final Map<Renderer, RendererFactory> factories = new IdentityHashMap<>();
+  private volatile PrototypeRegistry registry;
+  private boolean useSharedViewTypes;
+  private final Map<Class<? extends Renderer>, Integer> maxRecycledViews = new LinkedHashMap<>();
 
   private T content;
   private View convertView;
@@ -55,13 +64,17 @@ public class RendererBuilder<T> {
   private LayoutInflater layoutInflater;
   private Integer viewType;
   private Map<Class<? extends T>, Class<? extends Renderer>> binding;
+  private final Map<Class, Class<? extends Renderer>> resolvedBinding =
+      new ConcurrentHashMap<Class, Class<? extends Renderer>>();
+  private final Map<Class, Integer> resolvedViewTypes = new ConcurrentHashMap<Class, Integer>();
+  private volatile Boolean prototypeClassOverridden;
 
   /**
    * Initializes a RendererBuilder with an empty prototypes collection. Using this constructor some
    * binding configuration is needed.
    */
   public RendererBuilder() {
-    this(new LinkedList<Renderer<? extends T>>());
+    this(new ArrayList<Renderer<? extends T>>());
   }
 
   /**
@@ -72,6 +85,16 @@ public class RendererBuilder<T> {
     this(Collections.<Renderer<? extends T>>singletonList(renderer));
   }
 
+  /**
+   * Initializes a RendererBuilder with just one RendererFactory. Using this constructor the
+   * Renderer created will be always the same and the additional binding configuration wont be
+   * needed.
+   */
+  public RendererBuilder(RendererFactory<T> factory) {
+    this();
+    withFactory(factory);
+  }
+
   /**
    * Initializes a RendererBuilder with a list of prototypes. Using this constructor some
    * binding configuration is needed.
@@ -82,8 +105,8 @@ public class RendererBuilder<T> {
           "RendererBuilder has to be created with a non null collection of"
               + "Collection<Renderer<T> to provide new or recycled Renderer instances");
     }
-    this.prototypes = new LinkedList<>(prototypes);
-    this.binding = new HashMap<Class<? extends T>, Class<? extends Renderer>>();
+    this.prototypes = new ArrayList<>(prototypes);
+    this.binding = new LinkedHashMap<Class<? extends T>, Class<? extends Renderer>>();
   }
 
   /**
@@ -106,7 +129,9 @@ public class RendererBuilder<T> {
           "RendererBuilder has to be created with a non null collection of"
               + "Collection<Renderer<T> to provide new or recycled Renderer instances");
     }
-    this.prototypes = new LinkedList<>(prototypes);
+    this.prototypes = new ArrayList<>(prototypes);
+    this.factories.keySet().retainAll(this.prototypes);
+    invalidateRegistry();
   }
 
   /**
@@ -122,6 +147,7 @@ public class RendererBuilder<T> {
               + "Collection<Renderer<T> to provide new or recycled Renderer instances");
     }
     this.prototypes.addAll(prototypes);
+    invalidateRegistry();
     return this;
   }
 
@@ -137,11 +163,33 @@ public class RendererBuilder<T> {
           "RendererBuilder can't use a null Renderer<T> instance as prototype");
     }
     this.prototypes.add(renderer);
+    invalidateRegistry();
     return this;
   }
 
   /**
-   * Given a class configures the binding between a class and a Renderer class.
+   * Add a RendererFactory used to create new Renderer instances. The factory is invoked once to
+   * create the prototype used to resolve the Renderer class and every time a new Renderer instance
+   * is needed, so the Renderer instances created are never copied.
+   *
+   * @param factory used to create Renderer instances.
+   * @return the current RendererBuilder instance.
+   */
+  public RendererBuilder<T> withFactory(RendererFactory<? extends T> factory) {
+    if (factory == null) {
+      throw new NeedsPrototypesException(
+          "RendererBuilder can't use a null RendererFactory<T> instance");
+    }
+    withPrototype(createPrototype(factory));
+    return this;
+  }
+
+  /**
+   * Given a class configures the binding between a class and a Renderer class. The class can be a
+   * superclass or an interface implemented by the content to render. If more than one class bound
+   * matches the content, the most specific one will be used. If the most specific classes matching
+   * the content are not related and are bound to different Renderer classes, rendering the content
+   * throws AmbiguousBindingException, so the content class has to be bound too.
    *
    * @param clazz to bind.
    * @param prototype used as Renderer.
@@ -153,19 +201,86 @@ public class RendererBuilder<T> {
           "The binding RecyclerView binding can't be configured using null instances");
     }
     prototypes.add(prototype);
+    invalidateRegistry();
     binding.put(clazz, prototype.getClass());
+    resolvedBinding.clear();
     return this;
   }
 
+  /**
+   * Given a class configures the binding between a class and the Renderer created by the
+   * RendererFactory passed as argument. The binding rules are the same used when binding a
+   * prototype, but new Renderer instances are created using the factory instead of copying it.
+   *
+   * @param clazz to bind.
+   * @param factory used to create Renderer instances.
+   * @return the current RendererBuilder instance.
+   */
+  public <G extends T> RendererBuilder<T> bind(Class<G> clazz, RendererFactory<? extends G> factory) {
+    if (clazz == null || factory == null) {
+      throw new IllegalArgumentException(
+          "The binding RecyclerView binding can't be configured using null instances");
+    }
+    return bind(clazz, createPrototype(factory));
+  }
+
   public <G extends T> RendererBuilder<T> bind(Class<G> clazz, Class<? extends Renderer<? extends G>> prototypeClass) {
     if (clazz == null || prototypeClass == null) {
       throw new IllegalArgumentException(
           "The binding RecyclerView binding can't be configured using null instances");
     }
     binding.put(clazz, prototypeClass);
+    resolvedBinding.clear();
+    resolvedViewTypes.clear();
+    return this;
+  }
+
+  /**
+   * Configures the builder to use the view types provided by ViewTypeRegistry instead of the
+   * prototype indexes. Using shared view types, RVRendererAdapter and RVListRendererAdapter
+   * instances with different RendererBuilder instances can share a RecyclerView.RecycledViewPool.
+   * Renderer instances of the same class have to be interchangeable between those adapters.
+   *
+   * @return the current RendererBuilder instance.
+   */
+  public RendererBuilder<T> withSharedViewTypes() {
+    this.useSharedViewTypes = true;
+    invalidateRegistry();
+    return this;
+  }
+
+  /**
+   * Configures the maximum number of RendererViewHolder instances associated to a Renderer class
+   * to keep in the RecyclerView.RecycledViewPool configured using configureRecycledViewPool.
+   *
+   * @param rendererClass associated to the RendererViewHolder instances to keep.
+   * @param max number of RendererViewHolder instances to keep.
+   * @return the current RendererBuilder instance.
+   */
+  public RendererBuilder<T> withMaxRecycledViews(Class<? extends Renderer> rendererClass,
+      int max) {
+    if (rendererClass == null || max < 0) {
+      throw new IllegalArgumentException(
+          "The max recycled views can't be configured using a null class or a negative value");
+    }
+    maxRecycledViews.put(rendererClass, max);
     return this;
   }
 
+  /**
+   * Configures the maximum number of RendererViewHolder instances to keep per view type in the
+   * RecyclerView.RecycledViewPool passed as argument using the values configured with
+   * withMaxRecycledViews.
+   *
+   * @param recycledViewPool to configure.
+   */
+  public void configureRecycledViewPool(RecyclerView.RecycledViewPool recycledViewPool) {
+    for (Map.Entry<Class<? extends Renderer>, Integer> entry : maxRecycledViews.entrySet()) {
+      int viewType = getRegistry().toSharedViewType(getItemViewType(entry.getKey()));
+      recycledViewPool.setMaxRecycledViews(viewType, entry.getValue());
+    }
+  }
+
   RendererBuilder withContent(T content) {
     this.content = content;
     return this;
@@ -192,15 +307,42 @@ public class RendererBuilder<T> {
   }
 
   /**
-   * Return the item view type used by the adapter to implement recycle mechanism.
+   * Return the item view type used by the adapter to implement recycle mechanism. The view type is
+   * the index of the prototype associated to the class returned by getPrototypeClass. This method
+   * can be overridden by RendererBuilder subtypes able to resolve the prototype index directly,
+   * like the ones generated from RendererFor annotations. If getPrototypeClass is not overridden,
+   * the view type is resolved once per content class and memoized.
    *
    * @param content to be rendered.
    * @return an integer that represents the renderer inside the adapter.
    */
-  int getItemViewType(T content) {
+  protected int getItemViewType(T content) {
+    boolean memoize = content != null && !isPrototypeClassOverridden();
+    if (memoize) {
+      Integer itemViewType = resolvedViewTypes.get(content.getClass());
+      if (itemViewType != null) {
+        return itemViewType;
+      }
+    }
     Class prototypeClass = getPrototypeClass(content);
     validatePrototypeClass(prototypeClass);
-    return getItemViewType(prototypeClass);
+    int itemViewType = getItemViewType(prototypeClass);
+    if (memoize) {
+      resolvedViewTypes.put(content.getClass(), itemViewType);
+    }
+    return itemViewType;
+  }
+
+  /**
+   * Return the item view type used by RVRendererAdapter and RVListRendererAdapter. If the builder
+   * uses shared view types, the view type returned is the one provided by ViewTypeRegistry for the
+   * prototype instead of the prototype index.
+   *
+   * @param content to be rendered.
+   * @return an integer that represents the renderer inside the adapter.
+   */
+  int getAdapterViewType(T content) {
+    return getRegistry().toSharedViewType(getItemViewType(content));
   }
 
   /**
@@ -210,7 +352,29 @@ public class RendererBuilder<T> {
    * @return prototypes size collection.
    */
   int getViewTypeCount() {
-    return prototypes.size();
+    return getRegistry().size();
+  }
+
+  /**
+   * Returns true if any prototype is a PreparedRenderer, so the adapters need a ViewModelPreparer
+   * to cache and prepare its view models.
+   *
+   * @return true if there is at least one PreparedRenderer prototype.
+   */
+  boolean hasPreparedPrototypes() {
+    return getRegistry().hasPreparedPrototypes();
+  }
+
+  /**
+   * Return the prototype used to render the content passed as argument. The prototype is not
+   * inflated, so it can be used just to invoke methods not depending on the views, like the
+   * PreparedRenderer prepare method.
+   *
+   * @param content to be rendered.
+   * @return the prototype associated to the content.
+   */
+  Renderer getPrototype(T content) {
+    return getPrototypeByIndex(getPrototypeIndex(content));
   }
 
   /**
@@ -250,7 +414,28 @@ public class RendererBuilder<T> {
   protected RendererViewHolder buildRendererViewHolder() {
     validateAttributesToCreateANewRendererViewHolder();
 
-    Renderer renderer = getPrototypeByIndex(viewType).copy();
+    return createRendererViewHolder(viewType, layoutInflater, parent);
+  }
+
+  /**
+   * Creates a new RendererViewHolder without using the attributes configured in the builder. This
+   * method can be invoked from any thread as long as the LayoutInflater passed as argument is not
+   * shared with other threads and the Renderer associated to the view type can be created from
+   * there.
+   *
+   * @param viewType associated to the renderer by the adapter.
+   * @param layoutInflater used to inflate the renderer.
+   * @param parent used to inflate the renderer.
+   * @return ready to use RendererViewHolder instance.
+   */
+  RendererViewHolder createRendererViewHolder(int viewType, LayoutInflater layoutInflater,
+      ViewGroup parent) {
+    int prototypeIndex = getRegistry().toLocalViewType(viewType);
+    if (prototypeIndex == PrototypeRegistry.NO_VIEW_TYPE) {
+      throw new PrototypeNotFoundException(
+          "There is no prototype associated to the shared view type " + viewType);
+    }
+    Renderer renderer = instantiateRenderer(prototypeIndex);
     renderer.onCreate(null, layoutInflater, parent);
     return new RendererViewHolder(renderer);
   }
@@ -278,29 +463,104 @@ public class RendererBuilder<T> {
    */
   private Renderer createRenderer(T content, ViewGroup parent) {
     int prototypeIndex = getPrototypeIndex(content);
-    Renderer renderer = getPrototypeByIndex(prototypeIndex).copy();
+    Renderer renderer = instantiateRenderer(prototypeIndex);
     renderer.onCreate(content, layoutInflater, parent);
     return renderer;
   }
 
   /**
-   * Search one prototype using the prototype index which is equals to the view type. This method
-   * has to be implemented because prototypes member is declared with Collection and that interface
-   * doesn't allow the client code to get one element by index.
+   * Create a new Renderer instance associated to the view type passed as argument. By default the
+   * RendererFactory registered for the view type is used and, if there is no factory, the prototype
+   * associated to the view type is copied. This method can be overridden by RendererBuilder
+   * subtypes able to create Renderer instances directly, like the ones generated from RendererFor
+   * annotations.
+   *
+   * @param viewType associated to the Renderer to create.
+   * @return a new renderer not created yet.
+   */
+  protected Renderer instantiateRenderer(int viewType) {
+    RendererFactory factory = getRegistry().getFactory(viewType);
+    if (factory == null) {
+      return getPrototypeByIndex(viewType).copy();
+    }
+    Renderer renderer = factory.create();
+    if (renderer == null) {
+      throw new NullRendererBuiltException("RendererFactory have to return a not null Renderer");
+    }
+    return renderer;
+  }
+
+  /**
+   * Create the prototype associated to a RendererFactory and register the factory to be used
+   * when a new instance of the prototype is needed.
+   *
+   * @param factory used to create the prototype.
+   * @return the prototype created.
+   */
+  private <G extends T> Renderer<? extends G> createPrototype(RendererFactory<? extends G> factory) {
+    Renderer<? extends G> prototype = factory.create();
+    if (prototype == null) {
+      throw new NullRendererBuiltException("RendererFactory have to return a not null Renderer");
+    }
+    factories.put(prototype, factory);
+    return prototype;
+  }
+
+  /**
+   * Search one prototype using the prototype index which is equals to the view type.
    *
    * @param prototypeIndex used to search.
    * @return prototype renderer.
    */
   private Renderer getPrototypeByIndex(final int prototypeIndex) {
-    Renderer prototypeSelected = null;
-    int i = 0;
-    for (Renderer prototype : prototypes) {
-      if (i == prototypeIndex) {
-        prototypeSelected = prototype;
+    return getRegistry().getPrototype(prototypeIndex);
+  }
+
+  /**
+   * Return the indexed snapshot of the prototypes collection, creating it again if the prototypes
+   * have changed since the last time it was requested.
+   *
+   * @return the prototype registry associated to the current prototypes collection.
+   */
+  private PrototypeRegistry getRegistry() {
+    PrototypeRegistry registry = this.registry;
+    if (registry == null) {
+      registry = new PrototypeRegistry(prototypes, factories, useSharedViewTypes);
+      this.registry = registry;
+    }
+    return registry;
+  }
+
+  /**
+   * Discards the indexed snapshot of the prototypes collection. This method has to be invoked
+   * every time the prototypes collection is modified.
+   */
+  private void invalidateRegistry() {
+    registry = null;
+    resolvedViewTypes.clear();
+  }
+
+  /**
+   * Returns true if a subtype overrides getPrototypeClass, so the view type of the content could
+   * depend on something else than its class and can't be memoized per content class.
+   */
+  private boolean isPrototypeClassOverridden() {
+    Boolean overridden = prototypeClassOverridden;
+    if (overridden == null) {
+      overridden = false;
+      for (Class clazz = getClass(); clazz != RendererBuilder.class;
+          clazz = clazz.getSuperclass()) {
+        try {
+          clazz.getDeclaredMethod("getPrototypeClass", Object.class);
+          overridden = true;
+          break;
+        } catch (NoSuchMethodException exception) {
+          //The method is not declared by this class
+        }
       }
-      i++;
+      prototypeClassOverridden = overridden;
     }
-    return prototypeSelected;
+    return overridden;
   }
 
   /**
@@ -345,14 +605,8 @@ public class RendererBuilder<T> {
    * @return the prototype index associated to the prototypeClass.
    */
   private int getItemViewType(Class prototypeClass) {
-    int itemViewType = -1;
-    for (Renderer renderer : prototypes) {
-      if (renderer.getClass().equals(prototypeClass)) {
-        itemViewType = getPrototypeIndex(renderer);
-        break;
-      }
-    }
-    if (itemViewType == -1) {
+    int itemViewType = getRegistry().getViewType(prototypeClass);
+    if (itemViewType == PrototypeRegistry.NO_VIEW_TYPE) {
       throw new PrototypeNotFoundException(
           "Review your RendererBuilder implementation, you are returning one"
               + " prototype class not found in prototypes collection");
@@ -360,23 +614,6 @@ public class RendererBuilder<T> {
     return itemViewType;
   }
 
-  /**
-   * Return the index associated to the Renderer.
-   *
-   * @param renderer used to search in the prototypes collection.
-   * @return the prototype index associated to the renderer passed as argument.
-   */
-  private int getPrototypeIndex(Renderer renderer) {
-    int index = 0;
-    for (Renderer prototype : prototypes) {
-      if (prototype.getClass().equals(renderer.getClass())) {
-        break;
-      }
-      index++;
-    }
-    return index;
-  }
-
   /**
    * Throws one RendererException if the content parent or layoutInflater are null.
    */
@@ -421,10 +658,76 @@ public class RendererBuilder<T> {
    * @return the class associated to the renderer.
    */
   protected Class getPrototypeClass(T content) {
-    if (prototypes.size() == 1) {
-      return prototypes.get(0).getClass();
+    PrototypeRegistry registry = getRegistry();
+    if (registry.size() == 1) {
+      return registry.getPrototype(0).getClass();
     } else {
-      return binding.get(content.getClass());
+      return getBoundPrototypeClass(content.getClass());
+    }
+  }
+
+  /**
+   * Return the Renderer class bound to the content class passed as argument or to the most
+   * specific superclass or interface of it. The result is memoized for every content class.
+   *
+   * @param contentClass used to search the binding.
+   * @return the Renderer class bound or null if there is no binding for the content class.
+   */
+  private Class<? extends Renderer> getBoundPrototypeClass(Class contentClass) {
+    Class<? extends Renderer> prototypeClass = resolvedBinding.get(contentClass);
+    if (prototypeClass == null) {
+      prototypeClass = binding.get(contentClass);
+      if (prototypeClass == null) {
+        prototypeClass = getMostSpecificBoundPrototypeClass(contentClass);
+      }
+      if (prototypeClass != null) {
+        resolvedBinding.put(contentClass, prototypeClass);
+      }
+    }
+    return prototypeClass;
+  }
+
+  /**
+   * Return the Renderer class bound to the most specific superclasses or interfaces of the content
+   * class, the ones matching the content that are not a supertype of any other class matching it.
+   * Throws AmbiguousBindingException if they are bound to different Renderer classes, so the
+   * result doesn't depend on the binding order.
+   *
+   * @param contentClass used to search the binding.
+   * @return the Renderer class bound or null if there is no binding for the content class.
+   */
+  private Class<? extends Renderer> getMostSpecificBoundPrototypeClass(Class contentClass) {
+    List<Class> matchingClasses = new ArrayList<>();
+    for (Class<? extends T> boundClass : binding.keySet()) {
+      if (boundClass.isAssignableFrom(contentClass)) {
+        matchingClasses.add(boundClass);
+      }
+    }
+    Class mostSpecificClass = null;
+    Class<? extends Renderer> prototypeClass = null;
+    for (Class matchingClass : matchingClasses) {
+      if (!isMostSpecific(matchingClass, matchingClasses)) {
+        continue;
+      }
+      Class<? extends Renderer> boundPrototypeClass = binding.get(matchingClass);
+      if (prototypeClass != null && !prototypeClass.equals(boundPrototypeClass)) {
+        throw new AmbiguousBindingException("The content class " + contentClass.getName()
+            + " matches the classes " + mostSpecificClass.getName() + " and "
+            + matchingClass.getName() + " bound to different renderers. Bind "
+            + contentClass.getName() + " to resolve it.");
+      }
+      mostSpecificClass = matchingClass;
+      prototypeClass = boundPrototypeClass;
+    }
+    return prototypeClass;
+  }
+
+  private static boolean isMostSpecific(Class clazz, List<Class> classes) {
+    for (Class other : classes) {
+      if (other != clazz && clazz.isAssignableFrom(other)) {
+        return false;
+      }
     }
+    return true;
   }
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+/**
+ * Factory used by RendererBuilder to create new Renderer instances. Renderers created using a
+ * factory start with a clean state instead of sharing the fields of a prototype copied using
+ * Object.clone, so this is the preferred way to register Renderers with dependencies like
+ * listeners or any kind of cache.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public interface RendererFactory<T> {
+
+  /**
+   * @return a new Renderer instance. This method can't return null.
+   */
+  Renderer<T> create();
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Creates RendererViewHolder instances in a background thread before RecyclerView needs them.
+ * Every Renderer is inflated and created in the executor passed to the start method using a
+ * LayoutInflater not shared with the main thread. Once a RendererViewHolder is ready it is handed
+ * to the main thread, where RVRendererAdapter and RVListRendererAdapter return it from
+ * onCreateViewHolder instead of inflating a new one.
+ *
+ * The number of RendererViewHolder instances to create is configured per view type. Remember to
+ * invoke cancel when the screen using this pre inflater is destroyed. Renderers used with this
+ * class have to be able to inflate their views and execute setUpView and hookListeners outside the
+ * main thread. If a RendererViewHolder can't be created in the executor, it is created again in
+ * the main thread while it is idle, where any error is thrown, and the rest keep being created in
+ * the executor.
+ *
+ * RendererViewHolder instances can also be created in the main thread while it is idle using the
+ * prewarm methods. If a ViewTypeUsageHistory is configured, the number of RendererViewHolder
+ * instances requested per view type is recorded when cancel is invoked, and prewarm(ViewGroup)
+ * creates as many instances as the screen needed during its last sessions.
+ *
+ * This class has to be used from the main thread.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class RendererPreInflater<T> {
+
+  private final RendererBuilder<T> rendererBuilder;
+  private final Executor mainThreadExecutor;
+  private final Executor idleExecutor;
+  private final Map<Integer, Integer> targetCounts = new LinkedHashMap<>();
+  private final Map<Integer, ArrayDeque<RendererViewHolder>> readyViewHolders = new HashMap<>();
+  private final Map<Integer, Integer> usageCounts = new HashMap<>();
+  private ViewTypeUsageHistory usageHistory;
+  private Session session;
+  private int prewarmGeneration;
+
+  public RendererPreInflater(RendererBuilder<T> rendererBuilder) {
+    this(rendererBuilder, new MainThreadExecutor(), new MainThreadIdleExecutor());
+  }
+
+  RendererPreInflater(RendererBuilder<T> rendererBuilder, Executor mainThreadExecutor,
+      Executor idleExecutor) {
+    if (rendererBuilder == null) {
+      throw new IllegalArgumentException("The RendererBuilder configured can't be null");
+    }
+    this.rendererBuilder = rendererBuilder;
+    this.mainThreadExecutor = mainThreadExecutor;
+    this.idleExecutor = idleExecutor;
+  }
+
+  /**
+   * Configures the history where the number of RendererViewHolder instances requested per view
+   * type is recorded and used by prewarm(ViewGroup).
+   *
+   * @param usageHistory to use or null to disable the adaptive prewarm.
+   * @return the current RendererPreInflater instance.
+   */
+  public RendererPreInflater<T> setUsageHistory(ViewTypeUsageHistory usageHistory) {
+    this.usageHistory = usageHistory;
+    return this;
+  }
+
+  /**
+   * Configures the number of RendererViewHolder instances to create for a view type.
+   *
+   * @param viewType associated to the renderer to create.
+   * @param count number of RendererViewHolder instances to create.
+   * @return the current RendererPreInflater instance.
+   */
+  public RendererPreInflater<T> setTargetCount(int viewType, int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("The target count can't be negative");
+    }
+    targetCounts.put(viewType, count);
+    return this;
+  }
+
+  /**
+   * Starts the creation of the RendererViewHolder instances configured in the executor passed as
+   * argument. If there was a previous pre inflation in progress it is stopped and only the
+   * RendererViewHolder instances not ready yet are created again.
+   *
+   * @param parent used to inflate the renderers, usually the RecyclerView where they will be shown.
+   * @param executor where the renderers are going to be inflated.
+   */
+  public void start(ViewGroup parent, Executor executor) {
+    if (parent == null || executor == null) {
+      throw new IllegalArgumentException("The parent and executor configured can't be null");
+    }
+    stopSession();
+    Context context = parent.getContext();
+    LayoutInflater layoutInflater = LayoutInflater.from(context).cloneInContext(context);
+    Map<Integer, Integer> pendingCounts = new LinkedHashMap<>();
+    for (Map.Entry<Integer, Integer> entry : targetCounts.entrySet()) {
+      int pendingCount = entry.getValue() - getReadyCount(entry.getKey());
+      if (pendingCount > 0) {
+        pendingCounts.put(entry.getKey(), pendingCount);
+      }
+    }
+    session = new Session(parent, layoutInflater, pendingCounts);
+    executor.execute(session);
+  }
+
+  /**
+   * Creates RendererViewHolder instances for the view type passed as argument in the main thread
+   * while it is idle, one per idle period, until the number of instances ready is equal to the
+   * count passed as argument.
+   *
+   * @param parent used to inflate the renderers, usually the RecyclerView where they will be shown.
+   * @param viewType associated to the renderer to create.
+   * @param count number of RendererViewHolder instances to have ready.
+   */
+  public void prewarm(final ViewGroup parent, final int viewType, final int count) {
+    if (parent == null) {
+      throw new IllegalArgumentException("The parent configured can't be null");
+    }
+    if (count < 0) {
+      throw new IllegalArgumentException("The prewarm count can't be negative");
+    }
+    final int generation = prewarmGeneration;
+    final LayoutInflater layoutInflater = LayoutInflater.from(parent.getContext());
+    for (int i = getReadyCount(viewType); i < count; i++) {
+      idleExecutor.execute(new Runnable() {
+        @Override public void run() {
+          if (generation == prewarmGeneration && getReadyCount(viewType) < count) {
+            addReadyViewHolder(viewType,
+                rendererBuilder.createRendererViewHolder(viewType, layoutInflater, parent));
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Creates in the main thread while it is idle as many RendererViewHolder instances per view type
+   * as the screen needed during the sessions recorded in the ViewTypeUsageHistory configured.
+   *
+   * @param parent used to inflate the renderers, usually the RecyclerView where they will be shown.
+   */
+  public void prewarm(ViewGroup parent) {
+    if (usageHistory == null) {
+      throw new IllegalStateException(
+          "You have to configure a ViewTypeUsageHistory to prewarm adaptively");
+    }
+    for (int viewType : usageHistory.getViewTypes()) {
+      prewarm(parent, viewType, usageHistory.getExpectedCount(viewType));
+    }
+  }
+
+  /**
+   * Stops the creation of RendererViewHolder instances and discards the ones already created. If
+   * a ViewTypeUsageHistory is configured, the number of RendererViewHolder instances requested
+   * since the last invocation of this method is recorded.
+   */
+  public void cancel() {
+    stopSession();
+    prewarmGeneration++;
+    readyViewHolders.clear();
+    if (usageHistory != null && !usageCounts.isEmpty()) {
+      usageHistory.recordSession(usageCounts);
+    }
+    usageCounts.clear();
+  }
+
+  /**
+   * Returns one of the RendererViewHolder instances already created for the view type passed as
+   * argument. Every invocation is counted as a RendererViewHolder requested for the view type.
+   *
+   * @param viewType associated to the renderer.
+   * @return a ready to use RendererViewHolder or null if there is no one available.
+   */
+  public RendererViewHolder poll(int viewType) {
+    Integer usageCount = usageCounts.get(viewType);
+    usageCounts.put(viewType, usageCount == null ? 1 : usageCount + 1);
+    ArrayDeque<RendererViewHolder> viewHolders = readyViewHolders.get(viewType);
+    return viewHolders != null ? viewHolders.poll() : null;
+  }
+
+  /**
+   * @param viewType associated to the renderer.
+   * @return the number of RendererViewHolder instances ready to be used for the view type.
+   */
+  public int getReadyCount(int viewType) {
+    ArrayDeque<RendererViewHolder> viewHolders = readyViewHolders.get(viewType);
+    return viewHolders != null ? viewHolders.size() : 0;
+  }
+
+  private void stopSession() {
+    if (session != null) {
+      session.cancelled = true;
+      session = null;
+    }
+  }
+
+  private void onViewHolderCreated(Session session, int viewType, RendererViewHolder viewHolder) {
+    if (!session.cancelled) {
+      addReadyViewHolder(viewType, viewHolder);
+    }
+  }
+
+  /**
+   * Creates in the main thread while it is idle the RendererViewHolder that could not be created
+   * in the background. A Renderer that can't be inflated outside the main thread falls back to the
+   * main thread this way, and any other error is thrown there instead of in the executor.
+   */
+  private void onViewHolderFailed(final Session session, final int viewType) {
+    idleExecutor.execute(new Runnable() {
+      @Override public void run() {
+        if (!session.cancelled) {
+          LayoutInflater layoutInflater = LayoutInflater.from(session.parent.getContext());
+          addReadyViewHolder(viewType,
+              rendererBuilder.createRendererViewHolder(viewType, layoutInflater, session.parent));
+        }
+      }
+    });
+  }
+
+  private void addReadyViewHolder(int viewType, RendererViewHolder viewHolder) {
+    ArrayDeque<RendererViewHolder> viewHolders = readyViewHolders.get(viewType);
+    if (viewHolders == null) {
+      viewHolders = new ArrayDeque<>();
+      readyViewHolders.put(viewType, viewHolders);
+    }
+    viewHolders.add(viewHolder);
+  }
+
+  /**
+   * Background task creating the RendererViewHolder instances pending for every view type.
+   */
+  private final class Session implements Runnable {
+
+    private final ViewGroup parent;
+    private final LayoutInflater layoutInflater;
+    private final Map<Integer, Integer> pendingCounts;
+    private volatile boolean cancelled;
+
+    Session(ViewGroup parent, LayoutInflater layoutInflater, Map<Integer, Integer> pendingCounts) {
+      this.parent = parent;
+      this.layoutInflater = layoutInflater;
+      this.pendingCounts = pendingCounts;
+    }
+
+    @Override public void run() {
+      for (Map.Entry<Integer, Integer> entry : pendingCounts.entrySet()) {
+        final int viewType = entry.getKey();
+        for (int i = 0; i < entry.getValue() && !cancelled; i++) {
+          RendererViewHolder createdViewHolder;
+          try {
+            createdViewHolder =
+                rendererBuilder.createRendererViewHolder(viewType, layoutInflater, parent);
+          } catch (RuntimeException exception) {
+            createdViewHolder = null;
+          }
+          final RendererViewHolder viewHolder = createdViewHolder;
+          mainThreadExecutor.execute(new Runnable() {
+            @Override public void run() {
+              if (viewHolder != null) {
+                onViewHolderCreated(Session.this, viewType, viewHolder);
+              } else {
+                onViewHolderFailed(Session.this, viewType);
+              }
+            }
+          });
+        }
+      }
+    }
+  }
+}
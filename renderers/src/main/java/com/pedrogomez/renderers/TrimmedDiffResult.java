@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+/**
+ * Result of a diff calculated ignoring the items at the beginning and the end of the lists whose
+ * identity and content have not changed. Appends, prepends and truncations are resolved without
+ * using DiffUtil, and in any other case DiffUtil only compares the window of items between the
+ * common prefix and suffix. The updates dispatched are shifted to be relative to the whole list.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+final class TrimmedDiffResult implements ListDiffResult {
+
+  private final int prefixSize;
+  private final int removedCount;
+  private final int insertedCount;
+  private final DiffUtil.DiffResult windowDiffResult;
+
+  private TrimmedDiffResult(int prefixSize, int removedCount, int insertedCount,
+      DiffUtil.DiffResult windowDiffResult) {
+    this.prefixSize = prefixSize;
+    this.removedCount = removedCount;
+    this.insertedCount = insertedCount;
+    this.windowDiffResult = windowDiffResult;
+  }
+
+  /**
+   * Calculates the differences between the lists described by the callback passed as argument.
+   *
+   * @param callback describing the old and new lists.
+   * @param detectMoves true if DiffUtil has to detect the items moved inside the window changed.
+   * @return the differences between both lists.
+   */
+  static TrimmedDiffResult calculate(DiffUtil.Callback callback, boolean detectMoves) {
+    return calculate(callback, detectMoves, 0, 0);
+  }
+
+  /**
+   * Calculates the differences between the lists described by the callback passed as argument
+   * without comparing the number of items at the beginning and the end of the lists already known
+   * to be unchanged.
+   *
+   * @param callback describing the old and new lists.
+   * @param detectMoves true if DiffUtil has to detect the items moved inside the window changed.
+   * @param unchangedPrefixSize number of items at the beginning known to be unchanged.
+   * @param unchangedSuffixSize number of items at the end known to be unchanged.
+   * @return the differences between both lists.
+   */
+  static TrimmedDiffResult calculate(DiffUtil.Callback callback, boolean detectMoves,
+      int unchangedPrefixSize, int unchangedSuffixSize) {
+    int oldSize = callback.getOldListSize();
+    int newSize = callback.getNewListSize();
+    int minSize = Math.min(oldSize, newSize);
+    int prefixSize = Math.min(unchangedPrefixSize, minSize);
+    while (prefixSize < minSize && isUnchanged(callback, prefixSize, prefixSize)) {
+      prefixSize++;
+    }
+    int suffixSize = Math.min(unchangedSuffixSize, minSize - prefixSize);
+    while (suffixSize < minSize - prefixSize
+        && isUnchanged(callback, oldSize - 1 - suffixSize, newSize - 1 - suffixSize)) {
+      suffixSize++;
+    }
+    int oldWindowSize = oldSize - prefixSize - suffixSize;
+    int newWindowSize = newSize - prefixSize - suffixSize;
+    if (oldWindowSize == 0 || newWindowSize == 0) {
+      return new TrimmedDiffResult(prefixSize, oldWindowSize, newWindowSize, null);
+    }
+    DiffUtil.DiffResult windowDiffResult = DiffUtil.calculateDiff(
+        new WindowCallback(callback, prefixSize, oldWindowSize, newWindowSize), detectMoves);
+    return new TrimmedDiffResult(prefixSize, 0, 0, windowDiffResult);
+  }
+
+  /**
+   * Dispatches the updates to the ListUpdateCallback passed as argument.
+   *
+   * @param callback notified with the updates.
+   */
+  @Override public void dispatchUpdatesTo(ListUpdateCallback callback) {
+    if (windowDiffResult != null) {
+      windowDiffResult.dispatchUpdatesTo(new OffsetListUpdateCallback(callback, prefixSize));
+      return;
+    }
+    if (removedCount > 0) {
+      callback.onRemoved(prefixSize, removedCount);
+    }
+    if (insertedCount > 0) {
+      callback.onInserted(prefixSize, insertedCount);
+    }
+  }
+
+  private static boolean isUnchanged(DiffUtil.Callback callback, int oldPosition,
+      int newPosition) {
+    return callback.areItemsTheSame(oldPosition, newPosition)
+        && callback.areContentsTheSame(oldPosition, newPosition);
+  }
+
+  /**
+   * DiffUtil.Callback exposing just the window of items between the common prefix and suffix.
+   */
+  private static final class WindowCallback extends DiffUtil.Callback {
+
+    private final DiffUtil.Callback callback;
+    private final int offset;
+    private final int oldSize;
+    private final int newSize;
+
+    WindowCallback(DiffUtil.Callback callback, int offset, int oldSize, int newSize) {
+      this.callback = callback;
+      this.offset = offset;
+      this.oldSize = oldSize;
+      this.newSize = newSize;
+    }
+
+    @Override public int getOldListSize() {
+      return oldSize;
+    }
+
+    @Override public int getNewListSize() {
+      return newSize;
+    }
+
+    @Override public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+      return callback.areItemsTheSame(offset + oldItemPosition, offset + newItemPosition);
+    }
+
+    @Override public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+      return callback.areContentsTheSame(offset + oldItemPosition, offset + newItemPosition);
+    }
+
+    @Override public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+      return callback.getChangePayload(offset + oldItemPosition, offset + newItemPosition);
+    }
+  }
+
+  /**
+   * ListUpdateCallback shifting every position notified by the offset configured.
+   */
+  private static final class OffsetListUpdateCallback implements ListUpdateCallback {
+
+    private final ListUpdateCallback callback;
+    private final int offset;
+
+    OffsetListUpdateCallback(ListUpdateCallback callback, int offset) {
+      this.callback = callback;
+      this.offset = offset;
+    }
+
+    @Override public void onInserted(int position, int count) {
+      callback.onInserted(offset + position, count);
+    }
+
+    @Override public void onRemoved(int position, int count) {
+      callback.onRemoved(offset + position, count);
+    }
+
+    @Override public void onMoved(int fromPosition, int toPosition) {
+      callback.onMoved(offset + fromPosition, offset + toPosition);
+    }
+
+    @Override public void onChanged(int position, int count, Object payload) {
+      callback.onChanged(offset + position, count, payload);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Gate collapsing the lists submitted to an adapter within a frame, or within the debounce window
+ * configured, into a single update with the latest list submitted. The lists superseded by a newer
+ * one before the update is applied are never diffed. The gate keeps the number of lists submitted,
+ * the number of updates applied and the number of lists coalesced.
+ * <p>
+ * Lists can be submitted from any thread and the updates are applied from the main thread. The
+ * modifications applied directly to the adapter while an update is pending are replaced by the
+ * latest list submitted once the update is applied.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public final class UpdateGate<T> {
+
+  private final Target<T> target;
+  private final Scheduler scheduler;
+  private final AtomicReference<List<T>> pendingList = new AtomicReference<>();
+  private final AtomicBoolean updateScheduled = new AtomicBoolean();
+  private final AtomicLong submittedCount = new AtomicLong();
+  private final AtomicLong appliedCount = new AtomicLong();
+  private final Runnable updateTask = new Runnable() {
+    @Override public void run() {
+      flush();
+    }
+  };
+  private volatile long debounceWindowMillis;
+  private volatile Executor diffExecutor;
+
+  UpdateGate(Target<T> target) {
+    this(target, new MainThreadScheduler());
+  }
+
+  UpdateGate(Target<T> target, Scheduler scheduler) {
+    this.target = target;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Configures the time the gate waits since the first list is submitted before applying the
+   * update. If it is zero, the default value, the update is applied on the next frame.
+   *
+   * @param debounceWindowMillis time to wait in milliseconds.
+   */
+  public void setDebounceWindow(long debounceWindowMillis) {
+    if (debounceWindowMillis < 0) {
+      throw new IllegalArgumentException("The debounce window can't be negative");
+    }
+    this.debounceWindowMillis = debounceWindowMillis;
+  }
+
+  /**
+   * Configures the executor used to calculate the differences between the list rendered and the
+   * list applied. If it is null, the default value, RVRendererAdapter calculates them in the main
+   * thread. RVListRendererAdapter always calculates them in the background executor of its differ,
+   * so it doesn't use this executor.
+   *
+   * @param diffExecutor where the differences are calculated. It can be null.
+   */
+  public void setDiffExecutor(Executor diffExecutor) {
+    this.diffExecutor = diffExecutor;
+  }
+
+  /**
+   * Submits the list passed as argument replacing any other list pending to be applied.
+   *
+   * @param list to render.
+   */
+  public void submit(List<T> list) {
+    if (list == null) {
+      throw new IllegalArgumentException("The list submitted can't be null");
+    }
+    submittedCount.incrementAndGet();
+    pendingList.set(list);
+    if (updateScheduled.compareAndSet(false, true)) {
+      scheduler.schedule(updateTask, debounceWindowMillis);
+    }
+  }
+
+  /**
+   * Applies the latest list submitted, if any, without waiting for the next frame or the end of
+   * the debounce window. This method has to be invoked from the main thread.
+   */
+  public void flush() {
+    updateScheduled.set(false);
+    List<T> list = pendingList.getAndSet(null);
+    if (list != null) {
+      appliedCount.incrementAndGet();
+      target.update(list, diffExecutor);
+    }
+  }
+
+  /**
+   * Returns the number of lists submitted.
+   */
+  public long getSubmittedCount() {
+    return submittedCount.get();
+  }
+
+  /**
+   * Returns the number of updates applied to the adapter.
+   */
+  public long getAppliedCount() {
+    return appliedCount.get();
+  }
+
+  /**
+   * Returns the number of lists submitted that have been replaced by a newer one before being
+   * applied.
+   */
+  public long getCoalescedCount() {
+    long pending = pendingList.get() != null ? 1 : 0;
+    return Math.max(0, submittedCount.get() - appliedCount.get() - pending);
+  }
+
+  /**
+   * Adapter operation applying the list submitted.
+   */
+  interface Target<T> {
+
+    void update(List<T> list, Executor diffExecutor);
+  }
+
+  /**
+   * Schedules the updates in the main thread.
+   */
+  interface Scheduler {
+
+    void schedule(Runnable task, long delayMillis);
+  }
+
+  /**
+   * Scheduler running the tasks on the next frame, or after the delay passed as argument, in the
+   * main thread. It has to be created from the main thread.
+   */
+  private static final class MainThreadScheduler implements Scheduler {
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Executor frameExecutor = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+        ? new ChoreographerExecutor() : new MainThreadExecutor();
+
+    @Override public void schedule(Runnable task, long delayMillis) {
+      if (delayMillis == 0) {
+        frameExecutor.execute(task);
+      } else {
+        handler.postDelayed(task, delayMillis);
+      }
+    }
+  }
+}
@@ -25,7 +25,9 @@ import com.pedrogomez.renderers.exception.NullRendererBuiltException;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * PagerAdapter extension created to work RendererBuilders and Renderer instances. Other
@@ -43,6 +45,11 @@ public class VPRendererAdapter<T> extends PagerAdapter {
 
     private final RendererBuilder<T> rendererBuilder;
     private List<T> list;
+    private ItemIdProvider<T> itemIdProvider;
+    private boolean checkItemIdCollisions;
+    private final Map<Object, Long> pageIds = new IdentityHashMap<>();
+    private int batchDepth;
+    private boolean batchModified;
 
     public VPRendererAdapter(RendererBuilder<T> rendererBuilder) {
         this(rendererBuilder, new ArrayList<T>());
@@ -92,8 +99,12 @@ public class VPRendererAdapter<T> extends PagerAdapter {
         }
         updateRendererExtraValues(content, renderer, position);
         renderer.render();
+        renderer.releaseFlyweightContent();
         View view = renderer.getRootView();
         parent.addView(view);
+        if (itemIdProvider != null) {
+            pageIds.put(view, getItemId(position));
+        }
         return view;
     }
 
@@ -108,6 +119,7 @@ public class VPRendererAdapter<T> extends PagerAdapter {
      */
     @Override public void destroyItem(ViewGroup container, int position, Object object) {
         container.removeView((View) object);
+        pageIds.remove(object);
     }
 
     @Override public boolean isViewFromObject(View view, Object o) {
@@ -122,6 +134,55 @@ public class VPRendererAdapter<T> extends PagerAdapter {
         return list.get(position);
     }
 
+    /**
+     * Returns the position of the item associated to a page using the ItemIdProvider configured.
+     * If there is no ItemIdProvider configured every page is kept in the same position.
+     *
+     * @param object page returned by instantiateItem.
+     * @return the new position of the page or POSITION_NONE if the item is not in the list.
+     */
+    @Override public int getItemPosition(Object object) {
+        Long pageId = pageIds.get(object);
+        if (itemIdProvider == null || pageId == null) {
+            return super.getItemPosition(object);
+        }
+        for (int i = 0; i < list.size(); i++) {
+            if (getItemId(i) == pageId) {
+                return i;
+            }
+        }
+        return POSITION_NONE;
+    }
+
+    /**
+     * @param position of the item.
+     * @return the id provided by the ItemIdProvider configured or the position if there is none.
+     */
+    public long getItemId(int position) {
+        return ItemIds.getItemId(itemIdProvider, list, position, checkItemIdCollisions);
+    }
+
+    /**
+     * Configures the ItemIdProvider used to resolve the id of every item. Once configured, the
+     * pages of the items still in the list are kept when notifyDataSetChanged is invoked.
+     *
+     * @param itemIdProvider used to resolve the item ids or null to use the item positions.
+     */
+    public void setItemIdProvider(ItemIdProvider<T> itemIdProvider) {
+        this.itemIdProvider = itemIdProvider;
+    }
+
+    /**
+     * Enables checks ensuring the ItemIdProvider configured does not return the same id for two
+     * different items. A DuplicatedItemIdException is thrown if a collision is found. Every check
+     * traverses the whole list, so they should be enabled just in debug builds.
+     *
+     * @param enabled true to check the item ids.
+     */
+    public void setItemIdCollisionChecksEnabled(boolean enabled) {
+        this.checkItemIdCollisions = enabled;
+    }
+
     /**
      * Add an element to the AdapteeCollection.
      *
@@ -129,7 +190,7 @@ public class VPRendererAdapter<T> extends PagerAdapter {
      * @return if the element has been added.
      */
     public boolean add(T element) {
-        return list.add(element);
+        return onListModified(list.add(element));
     }
 
     /**
@@ -139,7 +200,7 @@ public class VPRendererAdapter<T> extends PagerAdapter {
      * @return if the element has been removed.
      */
     public boolean remove(Object element) {
-        return list.remove(element);
+        return onListModified(list.remove(element));
     }
 
     /**
@@ -148,7 +209,7 @@ public class VPRendererAdapter<T> extends PagerAdapter {
      * @param elements to add.
      */
     public void addAll(Collection<? extends T> elements) {
-        list.addAll(elements);
+        onListModified(list.addAll(elements));
     }
 
     /**
@@ -158,7 +219,7 @@ public class VPRendererAdapter<T> extends PagerAdapter {
      * @return if the elements have been removed.
      */
     public boolean removeAll(Collection<?> elements) {
-        return list.removeAll(elements);
+        return onListModified(list.removeAll(elements));
     }
 
     /**
@@ -166,6 +227,39 @@ public class VPRendererAdapter<T> extends PagerAdapter {
      */
     public void clear() {
         list.clear();
+        onListModified(true);
+    }
+
+    /**
+     * Starts a batch of modifications. If the list is modified using add, remove, addAll, removeAll
+     * or clear before commit is invoked, the ViewPager is refreshed once on commit. Batches can be
+     * nested and the ViewPager is refreshed when the outermost batch is committed.
+     */
+    public void beginBatch() {
+        if (batchDepth++ == 0) {
+            batchModified = false;
+        }
+    }
+
+    /**
+     * Finishes the batch of modifications started with beginBatch invoking notifyDataSetChanged if
+     * the list has been modified and it is the outermost batch.
+     */
+    public void commit() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("commit invoked without invoking beginBatch before");
+        }
+        if (--batchDepth == 0 && batchModified) {
+            batchModified = false;
+            notifyDataSetChanged();
+        }
+    }
+
+    private boolean onListModified(boolean modified) {
+        if (modified && batchDepth > 0) {
+            batchModified = true;
+        }
+        return modified;
     }
 
     /**
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+/**
+ * Interface to be implemented by the items whose content is identified by a version number. The
+ * version of an item has to increase every time its content changes, so the adapters diffing two
+ * versions of the same item compare their versions instead of using equals.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public interface Versioned {
+
+  /**
+   * @return the version of the item content.
+   */
+  long getVersion();
+}
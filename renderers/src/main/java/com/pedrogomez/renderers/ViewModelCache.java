@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the view models created by PreparedRenderer instances. The view models are
+ * keyed by the item id and version, so just the content implementing Versioned is cached, and only
+ * if the adapter has an ItemIdProvider configured. A new version of an item is prepared again and
+ * the previous view model is never reused for it. Any other content is prepared every time it is
+ * rendered, because the content itself can't be used as key: a mutable item would get the view
+ * model of its previous state, and an item whose hashCode changes would never be found again.
+ * <p>
+ * The size of every view model is the one returned by the PreparedRenderer sizeOf method. It is
+ * one by default, so the max size is the number of view models kept, but renderers can return the
+ * estimated bytes of their view models to bound the memory used instead. When the cache is full
+ * the least recently used view models are evicted. The cache is shrunk when the system asks the
+ * application to trim its memory while the adapter is attached to a RecyclerView.
+ * <p>
+ * The number of hits, misses and evictions is kept to tune the cache size. The view models can be
+ * stored from any thread.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public final class ViewModelCache implements ComponentCallbacks2 {
+
+  private final Map<VersionedKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private ItemIdProvider itemIdProvider;
+  private int maxSize;
+  private int size;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  ViewModelCache(int maxSize) {
+    setMaxSize(maxSize);
+  }
+
+  /**
+   * Configures the max size of the view models kept, evicting the least recently used ones if
+   * the view models already cached exceed it.
+   *
+   * @param maxSize of the view models kept.
+   */
+  public synchronized void setMaxSize(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("The view model cache size has to be greater than zero");
+    }
+    this.maxSize = maxSize;
+    trimToSize(maxSize);
+  }
+
+  /**
+   * Returns the max size of the view models kept.
+   */
+  public synchronized int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Returns the sum of the sizes of the view models kept.
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of times a view model has been found in the cache while rendering.
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Returns the number of times a view model has not been found in the cache while rendering.
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Returns the number of view models evicted because the cache was full or the system asked to
+   * trim the memory.
+   */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Removes all the view models kept.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    size = 0;
+  }
+
+  /**
+   * Shrinks the cache depending on the level passed as argument. All the view models are evicted
+   * if the process is likely to be killed or the device is running critically low on memory, and
+   * half of the cache is evicted if the process is in the background or the device is running low
+   * on memory.
+   *
+   * @param level of the memory trim requested.
+   */
+  @Override public synchronized void onTrimMemory(int level) {
+    if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+      trimToSize(0);
+    } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+      trimToSize(maxSize / 2);
+    }
+  }
+
+  @Override public synchronized void onLowMemory() {
+    trimToSize(0);
+  }
+
+  @Override public void onConfigurationChanged(Configuration newConfig) {
+    //Empty
+  }
+
+  synchronized void setItemIdProvider(ItemIdProvider itemIdProvider) {
+    if (this.itemIdProvider != itemIdProvider) {
+      this.itemIdProvider = itemIdProvider;
+      clear();
+    }
+  }
+
+  /**
+   * Returns true if the view model of the content passed as argument can be cached, because it
+   * implements Versioned and there is an ItemIdProvider configured.
+   */
+  synchronized boolean isCacheable(Object content) {
+    return itemIdProvider != null && content instanceof Versioned;
+  }
+
+  /**
+   * Returns the view model associated to the content while rendering, updating the hit and miss
+   * counters. The content that can't be cached is not counted.
+   */
+  synchronized Object get(Object content) {
+    if (!isCacheable(content)) {
+      return null;
+    }
+    Entry entry = entries.get(getKey(content));
+    if (entry == null) {
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    return entry.viewModel;
+  }
+
+  synchronized boolean contains(Object content) {
+    return isCacheable(content) && entries.containsKey(getKey(content));
+  }
+
+  synchronized void put(Object content, Object viewModel, int viewModelSize) {
+    if (viewModelSize < 0) {
+      throw new IllegalArgumentException("The view model size can't be negative");
+    }
+    if (!isCacheable(content)) {
+      return;
+    }
+    Entry previous = entries.put(getKey(content), new Entry(viewModel, viewModelSize));
+    if (previous != null) {
+      size -= previous.size;
+    }
+    size += viewModelSize;
+    trimToSize(maxSize);
+  }
+
+  @SuppressWarnings("unchecked") private VersionedKey getKey(Object content) {
+    return new VersionedKey(itemIdProvider.getItemId(content), ((Versioned) content).getVersion());
+  }
+
+  private void trimToSize(int maxSize) {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      size -= iterator.next().size;
+      iterator.remove();
+      evictionCount++;
+    }
+  }
+
+  private static final class Entry {
+
+    private final Object viewModel;
+    private final int size;
+
+    Entry(Object viewModel, int size) {
+      this.viewModel = viewModel;
+      this.size = size;
+    }
+  }
+
+  private static final class VersionedKey {
+
+    private final long itemId;
+    private final long version;
+
+    VersionedKey(long itemId, long version) {
+      this.itemId = itemId;
+      this.version = version;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof VersionedKey)) {
+        return false;
+      }
+      VersionedKey that = (VersionedKey) o;
+      return itemId == that.itemId && version == that.version;
+    }
+
+    @Override public int hashCode() {
+      int result = (int) (itemId ^ (itemId >>> 32));
+      return 31 * result + (int) (version ^ (version >>> 32));
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import android.content.Context;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Prepares the view models of the items rendered by PreparedRenderer instances before they are
+ * bound. Every time a position is bound the next positions in the scroll direction, inferred from
+ * the positions bound before, are prepared in the executor configured and stored in the cache
+ * shared with the renderers. The cache is registered to trim its memory while the adapter is
+ * attached to a RecyclerView. This class has to be used from the main thread.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+final class ViewModelPreparer<T> {
+
+  private static final int DEFAULT_CACHE_SIZE = 64;
+  private static final int DEFAULT_PREPARE_DISTANCE = 4;
+  private static final int NO_POSITION = -1;
+
+  private final RendererBuilder<T> rendererBuilder;
+  private final ViewModelCache viewModelCache = new ViewModelCache(DEFAULT_CACHE_SIZE);
+  private final Set<Object> pendingItems = Collections.synchronizedSet(new HashSet<Object>());
+  private Executor executor;
+  private int prepareDistance = DEFAULT_PREPARE_DISTANCE;
+  private int lastPosition = NO_POSITION;
+  private int attachedCount;
+  private Context applicationContext;
+
+  ViewModelPreparer(RendererBuilder<T> rendererBuilder) {
+    this.rendererBuilder = rendererBuilder;
+  }
+
+  ViewModelCache getViewModelCache() {
+    return viewModelCache;
+  }
+
+  void setItemIdProvider(ItemIdProvider<T> itemIdProvider) {
+    viewModelCache.setItemIdProvider(itemIdProvider);
+  }
+
+  /**
+   * Registers the cache to be shrunk when the system asks to trim the memory while the adapter is
+   * attached to at least one RecyclerView.
+   *
+   * @param context of the RecyclerView attached.
+   */
+  void onAttached(Context context) {
+    if (context != null && attachedCount++ == 0) {
+      applicationContext = context.getApplicationContext();
+      applicationContext.registerComponentCallbacks(viewModelCache);
+    }
+  }
+
+  /**
+   * Unregisters the cache once the adapter is detached from the last RecyclerView.
+   *
+   * @param context of the RecyclerView detached.
+   */
+  void onDetached(Context context) {
+    if (context != null && attachedCount > 0 && --attachedCount == 0) {
+      applicationContext.unregisterComponentCallbacks(viewModelCache);
+      applicationContext = null;
+    }
+  }
+
+  void setExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
+  void setPrepareDistance(int prepareDistance) {
+    if (prepareDistance < 0) {
+      throw new IllegalArgumentException("The prepare distance can't be negative");
+    }
+    this.prepareDistance = prepareDistance;
+  }
+
+  /**
+   * Prepares the view models of the items placed after the position bound in the scroll
+   * direction that are not in the cache yet.
+   *
+   * @param list rendered.
+   * @param position bound.
+   */
+  void prepareAround(List<T> list, int position) {
+    int direction = position >= lastPosition ? 1 : -1;
+    lastPosition = position;
+    if (executor == null) {
+      return;
+    }
+    for (int i = 1; i <= prepareDistance; i++) {
+      int nextPosition = position + direction * i;
+      if (nextPosition < 0 || nextPosition >= list.size()) {
+        return;
+      }
+      prepare(list.get(nextPosition));
+    }
+  }
+
+  @SuppressWarnings("unchecked") private void prepare(final T item) {
+    if (item == null || item instanceof Flyweight || !viewModelCache.isCacheable(item)
+        || viewModelCache.contains(item)) {
+      return;
+    }
+    Renderer prototype = rendererBuilder.getPrototype(item);
+    if (!(prototype instanceof PreparedRenderer) || !pendingItems.add(item)) {
+      return;
+    }
+    final PreparedRenderer<T, Object> preparedRenderer = (PreparedRenderer<T, Object>) prototype;
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        try {
+          Object viewModel = preparedRenderer.prepare(item);
+          viewModelCache.put(item, viewModel, preparedRenderer.sizeOf(viewModel));
+        } finally {
+          pendingItems.remove(item);
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Cache of the view types associated to every adapter position stored in a primitive int array.
+ * RecyclerView asks for the view type of every position on each layout pass and resolving it
+ * means invoking RendererBuilder getPrototypeClass implementation. Using this cache the view type
+ * of every position is resolved just once and kept until the position changes.
+ *
+ * The cache has to be notified about every structural change of the list. Insertions, removals and
+ * moves shift the cached values and changes invalidate them. The first fill of the cache can be
+ * performed in a background thread using the preload method.
+ *
+ * This class is not thread safe and has to be used from the main thread.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+final class ViewTypeCache {
+
+  static final int UNKNOWN_VIEW_TYPE = Integer.MIN_VALUE;
+
+  private static final int MIN_CAPACITY = 16;
+
+  private int[] viewTypes = new int[0];
+  private int size;
+  private int generation;
+  private Handler mainHandler;
+
+  /**
+   * Return the view type cached for a position.
+   *
+   * @param position to search.
+   * @return the cached view type or UNKNOWN_VIEW_TYPE if the view type has not been cached yet.
+   */
+  int get(int position) {
+    if (position < 0 || position >= size) {
+      return UNKNOWN_VIEW_TYPE;
+    }
+    return viewTypes[position];
+  }
+
+  /**
+   * Store the view type resolved for a position.
+   *
+   * @param position associated to the view type.
+   * @param viewType to store.
+   */
+  void put(int position, int viewType) {
+    if (position < 0) {
+      return;
+    }
+    if (position >= size) {
+      ensureCapacity(position + 1);
+      Arrays.fill(viewTypes, size, position, UNKNOWN_VIEW_TYPE);
+      size = position + 1;
+    }
+    viewTypes[position] = viewType;
+  }
+
+  /**
+   * Shift the cached view types to make room for new elements inserted in the list.
+   *
+   * @param position where the elements have been inserted.
+   * @param count number of elements inserted.
+   */
+  void onInserted(int position, int count) {
+    generation++;
+    if (count <= 0 || position < 0 || position >= size) {
+      return;
+    }
+    ensureCapacity(size + count);
+    System.arraycopy(viewTypes, position, viewTypes, position + count, size - position);
+    Arrays.fill(viewTypes, position, position + count, UNKNOWN_VIEW_TYPE);
+    size += count;
+  }
+
+  /**
+   * Shift the cached view types to discard the elements removed from the list.
+   *
+   * @param position where the elements have been removed.
+   * @param count number of elements removed.
+   */
+  void onRemoved(int position, int count) {
+    generation++;
+    if (count <= 0 || position < 0 || position >= size) {
+      return;
+    }
+    int end = Math.min(position + count, size);
+    System.arraycopy(viewTypes, end, viewTypes, position, size - end);
+    size -= end - position;
+  }
+
+  /**
+   * Move the view type cached for one element moved inside the list.
+   *
+   * @param fromPosition previous position of the element.
+   * @param toPosition new position of the element.
+   */
+  void onMoved(int fromPosition, int toPosition) {
+    int viewType = get(fromPosition);
+    onRemoved(fromPosition, 1);
+    onInserted(toPosition, 1);
+    if (viewType != UNKNOWN_VIEW_TYPE) {
+      put(toPosition, viewType);
+    }
+  }
+
+  /**
+   * Invalidate the view types cached for a range of elements whose content has changed.
+   *
+   * @param position of the first element changed.
+   * @param count number of elements changed.
+   */
+  void onChanged(int position, int count) {
+    generation++;
+    int end = Math.min(position + count, size);
+    if (position >= 0 && position < end) {
+      Arrays.fill(viewTypes, position, end, UNKNOWN_VIEW_TYPE);
+    }
+  }
+
+  /**
+   * Discard every view type cached.
+   */
+  void clear() {
+    generation++;
+    size = 0;
+  }
+
+  /**
+   * Wraps a ListUpdateCallback to keep this cache in sync with the updates dispatched to it.
+   *
+   * @param callback to notify after updating the cache.
+   * @return a ListUpdateCallback updating the cache before notifying the callback passed.
+   */
+  ListUpdateCallback wrap(final ListUpdateCallback callback) {
+    return new ListUpdateCallback() {
+      @Override public void onInserted(int position, int count) {
+        ViewTypeCache.this.onInserted(position, count);
+        callback.onInserted(position, count);
+      }
+
+      @Override public void onRemoved(int position, int count) {
+        ViewTypeCache.this.onRemoved(position, count);
+        callback.onRemoved(position, count);
+      }
+
+      @Override public void onMoved(int fromPosition, int toPosition) {
+        ViewTypeCache.this.onMoved(fromPosition, toPosition);
+        callback.onMoved(fromPosition, toPosition);
+      }
+
+      @Override public void onChanged(int position, int count, Object payload) {
+        ViewTypeCache.this.onChanged(position, count);
+        callback.onChanged(position, count, payload);
+      }
+    };
+  }
+
+  /**
+   * Resolve the view type of every element in the list passed as argument using the executor
+   * given and fill the cache with the result from the main thread. If the list changes before the
+   * view types are resolved the result will be discarded. Keep in mind the RendererBuilder
+   * getPrototypeClass implementation will be invoked from the executor thread. MappedRecordList
+   * instances are not preloaded because it would decode every record, and lists of Flyweight
+   * content, like a ColumnarList, are not preloaded because a copy would keep the same instance
+   * once per position. The view types of these lists are resolved as the positions are rendered.
+   *
+   * @param list whose view types are going to be resolved.
+   * @param rendererBuilder used to resolve the view types.
+   * @param executor where the view types are going to be resolved.
+   */
+  <T> void preload(List<T> list, final RendererBuilder<T> rendererBuilder, Executor executor) {
+    if (list instanceof MappedRecordList || ColumnarList.containsFlyweights(list)) {
+      return;
+    }
+    if (mainHandler == null) {
+      mainHandler = new Handler(Looper.getMainLooper());
+    }
+    final List<T> snapshot = new ArrayList<>(list);
+    final int expectedGeneration = generation;
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        final int[] resolvedViewTypes = new int[snapshot.size()];
+        for (int i = 0; i < resolvedViewTypes.length; i++) {
+          resolvedViewTypes[i] = rendererBuilder.getAdapterViewType(snapshot.get(i));
+        }
+        mainHandler.post(new Runnable() {
+          @Override public void run() {
+            if (generation == expectedGeneration) {
+              viewTypes = resolvedViewTypes;
+              size = resolvedViewTypes.length;
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > viewTypes.length) {
+      int newCapacity = Math.max(Math.max(capacity, viewTypes.length * 2), MIN_CAPACITY);
+      viewTypes = Arrays.copyOf(viewTypes, newCapacity);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process wide registry associating a stable view type to every Renderer class. RendererBuilder
+ * instances configured to use shared view types use this registry to return the same view type
+ * for the same Renderer class, so different RVRendererAdapter or RVListRendererAdapter instances
+ * can share a RecyclerView.RecycledViewPool safely.
+ *
+ * The view types are assigned starting from a value far from the prototype indexes used as view
+ * types by default to avoid collisions with adapters not using shared view types.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public final class ViewTypeRegistry {
+
+  private static final int FIRST_VIEW_TYPE = 1 << 16;
+  private static final Map<Class, Integer> VIEW_TYPES = new HashMap<>();
+
+  private ViewTypeRegistry() {
+    //Empty
+  }
+
+  /**
+   * Returns the view type associated to the Renderer class passed as argument, assigning a new one
+   * if the class has not been registered before.
+   *
+   * @param rendererClass used to search the view type.
+   * @return the view type associated to the Renderer class.
+   */
+  public static synchronized int getViewType(Class<? extends Renderer> rendererClass) {
+    if (rendererClass == null) {
+      throw new IllegalArgumentException("The Renderer class can't be null");
+    }
+    Integer viewType = VIEW_TYPES.get(rendererClass);
+    if (viewType == null) {
+      viewType = FIRST_VIEW_TYPE + VIEW_TYPES.size();
+      VIEW_TYPES.put(rendererClass, viewType);
+    }
+    return viewType;
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the number of RendererViewHolder instances of every view type a screen needed during its
+ * last sessions. RendererPreInflater uses this information to prewarm as many RendererViewHolder
+ * instances as the screen needed the last times it was shown.
+ *
+ * Histories obtained using forScreen are kept in memory while the application process is alive.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public final class ViewTypeUsageHistory {
+
+  private static final int DEFAULT_SESSIONS_TO_KEEP = 3;
+  private static final Map<String, ViewTypeUsageHistory> HISTORIES = new HashMap<>();
+
+  private final int sessionsToKeep;
+  private final LinkedList<Map<Integer, Integer>> sessions = new LinkedList<>();
+
+  public ViewTypeUsageHistory() {
+    this(DEFAULT_SESSIONS_TO_KEEP);
+  }
+
+  public ViewTypeUsageHistory(int sessionsToKeep) {
+    if (sessionsToKeep <= 0) {
+      throw new IllegalArgumentException("The number of sessions to keep has to be positive");
+    }
+    this.sessionsToKeep = sessionsToKeep;
+  }
+
+  /**
+   * Returns the history associated to the screen name passed as argument, creating it if needed.
+   *
+   * @param screen name used to identify the history.
+   * @return the history associated to the screen.
+   */
+  public static synchronized ViewTypeUsageHistory forScreen(String screen) {
+    ViewTypeUsageHistory history = HISTORIES.get(screen);
+    if (history == null) {
+      history = new ViewTypeUsageHistory();
+      HISTORIES.put(screen, history);
+    }
+    return history;
+  }
+
+  /**
+   * Records the number of RendererViewHolder instances per view type used during a session. Only
+   * the last sessions are kept.
+   *
+   * @param usage number of RendererViewHolder instances used per view type.
+   */
+  public synchronized void recordSession(Map<Integer, Integer> usage) {
+    sessions.addFirst(new HashMap<>(usage));
+    while (sessions.size() > sessionsToKeep) {
+      sessions.removeLast();
+    }
+  }
+
+  /**
+   * @param viewType associated to the renderer.
+   * @return the maximum number of RendererViewHolder instances used for the view type during the
+   * sessions recorded.
+   */
+  public synchronized int getExpectedCount(int viewType) {
+    int expectedCount = 0;
+    for (Map<Integer, Integer> session : sessions) {
+      Integer count = session.get(viewType);
+      if (count != null && count > expectedCount) {
+        expectedCount = count;
+      }
+    }
+    return expectedCount;
+  }
+
+  /**
+   * @return every view type used during the sessions recorded.
+   */
+  public synchronized Set<Integer> getViewTypes() {
+    Set<Integer> viewTypes = new HashSet<>();
+    for (Map<Integer, Integer> session : sessions) {
+      viewTypes.addAll(session.keySet());
+    }
+    return viewTypes;
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation used to declare the binding between a model class and a Renderer at compile time.
+ * Adding the renderers-compiler annotation processor to your build, a RendererBuilder subtype named
+ * after the model class, ModelName_RendererBuilder, is generated in the model package for every
+ * model class used in this annotation. The generated RendererBuilder resolves the view type using
+ * a switch statement and creates new Renderer instances invoking the Renderer constructor instead
+ * of cloning prototypes.
+ *
+ * The annotated Renderer has to be a public and non abstract class with a public constructor
+ * without arguments. If a predicate is declared, the model class has to declare a public method
+ * without arguments with the predicate name returning a boolean. Predicates are evaluated from the
+ * highest priority to the lowest one and the Renderer declared without predicate is used when
+ * none of them matches. Any error in this configuration will fail the build.
+ *
+ * <pre>
+ * {@literal @}RendererFor(value = Video.class, predicate = "isFavorite")
+ * public class FavoriteVideoRenderer extends Renderer&lt;Video&gt; { ... }
+ * </pre>
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+@Retention(RetentionPolicy.CLASS) @Target(ElementType.TYPE)
+public @interface RendererFor {
+
+  /**
+   * @return model class rendered by the annotated Renderer.
+   */
+  Class<?> value();
+
+  /**
+   * @return name of the model method used to decide if the annotated Renderer has to be used.
+   */
+  String predicate() default "";
+
+  /**
+   * @return priority used to sort the evaluation of the predicates declared for the same model.
+   */
+  int priority() default 0;
+}
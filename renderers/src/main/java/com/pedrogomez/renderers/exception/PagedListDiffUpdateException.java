@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers.exception;
+
+/**
+ * Exception created to be thrown when a diff update is requested from or to a PagedList, whose
+ * positions not loaded yet return the same placeholder and which can't be copied without losing
+ * the items loaded on demand.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class PagedListDiffUpdateException extends RendererException {
+
+  public PagedListDiffUpdateException(String detailMessage) {
+    super(detailMessage);
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import com.pedrogomez.renderers.exception.FlyweightDiffUpdateException;
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Test class created to check the correct behaviour of ColumnarList.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class ColumnarListTest {
+
+  private static final int ANY_SIZE = 1000;
+
+  private ColumnarList list;
+  private ColumnarList.StringColumn title;
+  private ColumnarList.IntColumn likes;
+  private ColumnarList.LongColumn duration;
+  private ColumnarList.DoubleColumn rating;
+  private ColumnarList.BooleanColumn favorite;
+
+  @Before public void setUp() {
+    list = new ColumnarList();
+    title = list.addStringColumn();
+    likes = list.addIntColumn();
+    duration = list.addLongColumn();
+    rating = list.addDoubleColumn();
+    favorite = list.addBooleanColumn();
+  }
+
+  @Test public void shouldReturnTheValuesOfEveryRow() {
+    givenTheRowsAdded(ANY_SIZE);
+
+    for (int i = 0; i < ANY_SIZE; i++) {
+      ColumnarList.Row row = list.get(i);
+      assertEquals(i, row.getPosition());
+      assertEquals("Video " + i % 10, row.get(title));
+      assertEquals(i, row.get(likes));
+      assertEquals(i * 1000L, row.get(duration));
+      assertEquals(i / 2d, row.get(rating), 0d);
+      assertEquals(i % 2 == 0, row.get(favorite));
+    }
+  }
+
+  @Test public void shouldReturnTheDefaultValuesOfTheRowsNotConfigured() {
+    list.addRow();
+
+    ColumnarList.Row row = list.get(0);
+
+    assertNull(row.get(title));
+    assertEquals(0, row.get(likes));
+    assertFalse(row.get(favorite));
+  }
+
+  @Test public void shouldStoreEveryDifferentStringJustOnce() {
+    givenTheRowsAdded(ANY_SIZE);
+
+    assertEquals(10, title.getPoolSize());
+  }
+
+  @Test public void shouldReuseTheSameRowForEveryPosition() {
+    givenTheRowsAdded(2);
+
+    assertSame(list.get(0), list.get(1));
+  }
+
+  @Test public void shouldRemoveEveryRowOnClear() {
+    givenTheRowsAdded(ANY_SIZE);
+
+    list.clear();
+
+    assertTrue(list.isEmpty());
+    assertEquals(0, title.getPoolSize());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void shouldThrowIndexOutOfBoundsExceptionGettingAnInvalidPosition() {
+    givenTheRowsAdded(2);
+
+    list.get(2);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void shouldThrowIndexOutOfBoundsExceptionSettingAnInvalidPosition() {
+    givenTheRowsAdded(2);
+
+    likes.set(2, 1);
+  }
+
+  @Test public void shouldNotPreloadTheViewTypesOfTheRows() {
+    givenTheRowsAdded(ANY_SIZE);
+    Executor executor = mock(Executor.class);
+
+    new ViewTypeCache().preload(list, givenARendererBuilder(), executor);
+
+    verifyZeroInteractions(executor);
+  }
+
+  @Test(expected = FlyweightDiffUpdateException.class)
+  public void shouldThrowFlyweightDiffUpdateExceptionOnDiffUpdateToTheRows() {
+    givenTheRowsAdded(ANY_SIZE);
+    RVRendererAdapter<ColumnarList.Row> adapter =
+        new RVRendererAdapter<>(givenARendererBuilder(), new ArrayList<ColumnarList.Row>());
+
+    adapter.diffUpdate(list);
+  }
+
+  @Test(expected = FlyweightDiffUpdateException.class)
+  public void shouldThrowFlyweightDiffUpdateExceptionOnAsyncDiffUpdateFromTheRows() {
+    givenTheRowsAdded(ANY_SIZE);
+    RVRendererAdapter<ColumnarList.Row> adapter =
+        new RVRendererAdapter<>(givenARendererBuilder(), list);
+    Executor executor = mock(Executor.class);
+
+    adapter.diffUpdate(new ArrayList<ColumnarList.Row>(), executor, executor, null);
+  }
+
+  private RendererBuilder<ColumnarList.Row> givenARendererBuilder() {
+    return new RendererBuilder<ColumnarList.Row>();
+  }
+
+  private void givenTheRowsAdded(int count) {
+    for (int i = 0; i < count; i++) {
+      int position = list.addRow();
+      title.set(position, "Video " + i % 10);
+      likes.set(position, i);
+      duration.set(position, i * 1000L);
+      rating.set(position, i / 2d);
+      favorite.set(position, i % 2 == 0);
+    }
+  }
+}
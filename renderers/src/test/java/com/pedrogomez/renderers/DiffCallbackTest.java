@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class created to check the correct behaviour of DiffCallback.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class DiffCallbackTest {
+
+  private static final ItemIdProvider<String> FIRST_CHAR_ID_PROVIDER =
+      new ItemIdProvider<String>() {
+        @Override public long getItemId(String item) {
+          return item.charAt(0);
+        }
+      };
+  private static final ChangePayloadProvider<String> NEW_ITEM_PAYLOAD_PROVIDER =
+      new ChangePayloadProvider<String>() {
+        @Override public Object getChangePayload(String oldItem, String newItem) {
+          return newItem;
+        }
+      };
+
+  private final List<String> oldList = Arrays.asList("a1", "b1");
+  private final List<String> newList = Arrays.asList("a2", "c1");
+
+  @Test public void shouldIdentifyTheItemsUsingTheItemIdProviderConfigured() {
+    DiffCallback<String> diffCallback =
+        new DiffCallback<>(oldList, newList, FIRST_CHAR_ID_PROVIDER, null);
+
+    assertTrue(diffCallback.areItemsTheSame(0, 0));
+    assertFalse(diffCallback.areItemsTheSame(1, 1));
+  }
+
+  @Test public void shouldReturnThePayloadProvidedForTheItemsChanged() {
+    DiffCallback<String> diffCallback =
+        new DiffCallback<>(oldList, newList, FIRST_CHAR_ID_PROVIDER, NEW_ITEM_PAYLOAD_PROVIDER);
+
+    assertEquals("a2", diffCallback.getChangePayload(0, 0));
+  }
+
+  @Test public void shouldNotReturnPayloadsIfThereIsNoChangePayloadProvider() {
+    DiffCallback<String> diffCallback = new DiffCallback<>(oldList, newList);
+
+    assertNull(diffCallback.getChangePayload(0, 0));
+  }
+
+  @Test public void shouldCalculateTheHashCodeOfEveryItemJustOnce() {
+    CountingItem item = new CountingItem(1);
+    CountingItem otherItem = new CountingItem(2);
+    DiffCallback<CountingItem> diffCallback = new DiffCallback<>(
+        Arrays.asList(item, otherItem), Arrays.asList(otherItem, item));
+
+    for (int i = 0; i < 2; i++) {
+      for (int j = 0; j < 2; j++) {
+        diffCallback.areItemsTheSame(i, j);
+      }
+    }
+
+    assertEquals(2, item.hashCodeCalls);
+    assertEquals(2, otherItem.hashCodeCalls);
+  }
+
+  @Test public void shouldNotCalculateTheHashCodeOfTheItemsNotCompared() {
+    CountingItem item = new CountingItem(1);
+    CountingItem otherItem = new CountingItem(2);
+    CountingItem appendedItem = new CountingItem(3);
+    DiffCallback<CountingItem> diffCallback = new DiffCallback<>(
+        Arrays.asList(item, otherItem), Arrays.asList(item, otherItem, appendedItem));
+
+    diffCallback.areItemsTheSame(1, 2);
+
+    assertEquals(0, item.hashCodeCalls);
+    assertEquals(1, otherItem.hashCodeCalls);
+    assertEquals(1, appendedItem.hashCodeCalls);
+  }
+
+  @Test public void shouldCompareTheContentOfVersionedItemsUsingTheirVersions() {
+    VersionedItem item = new VersionedItem(1);
+    DiffCallback<VersionedItem> diffCallback = new DiffCallback<>(
+        Arrays.asList(item, new VersionedItem(1)), Arrays.asList(new VersionedItem(1), item));
+
+    assertTrue(diffCallback.areContentsTheSame(0, 0));
+    assertTrue(diffCallback.areContentsTheSame(1, 1));
+    assertFalse(DiffCallback.haveTheSameContent(item, new VersionedItem(2)));
+  }
+
+  private static class CountingItem {
+
+    private final int hashCode;
+    private int hashCodeCalls;
+
+    CountingItem(int hashCode) {
+      this.hashCode = hashCode;
+    }
+
+    @Override public int hashCode() {
+      hashCodeCalls++;
+      return hashCode;
+    }
+  }
+
+  private static class VersionedItem implements Versioned {
+
+    private final long version;
+
+    VersionedItem(long version) {
+      this.version = version;
+    }
+
+    @Override public long getVersion() {
+      return version;
+    }
+
+    @Override public boolean equals(Object o) {
+      throw new UnsupportedOperationException("Versioned items are not compared using equals");
+    }
+
+    @Override public int hashCode() {
+      return 0;
+    }
+  }
+}
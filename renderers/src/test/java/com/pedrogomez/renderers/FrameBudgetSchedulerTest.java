@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class created to check the correct behaviour of FrameBudgetScheduler.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class FrameBudgetSchedulerTest {
+
+  private static final long ANY_FRAME_BUDGET_MILLIS = 4;
+  private static final long ANY_WORK_DURATION_MILLIS = 1;
+  private static final int ANY_WORK_COUNT = 10;
+
+  private final List<Runnable> pendingFrames = new LinkedList<>();
+  private final Executor frameExecutor = new Executor() {
+    @Override public void execute(Runnable command) {
+      pendingFrames.add(command);
+    }
+  };
+  private final FrameBudgetScheduler.Clock clock = new FrameBudgetScheduler.Clock() {
+    @Override public long nanoTime() {
+      return now;
+    }
+  };
+  private final List<Integer> executedWork = new ArrayList<>();
+
+  private long now;
+  private FrameBudgetScheduler scheduler;
+  private ObjectRenderer renderer;
+  private ObjectRenderer otherRenderer;
+
+  @Before public void setUp() {
+    scheduler = new FrameBudgetScheduler(frameExecutor, clock);
+    scheduler.setFrameBudget(ANY_FRAME_BUDGET_MILLIS);
+    renderer = new ObjectRenderer();
+    otherRenderer = new ObjectRenderer();
+  }
+
+  @Test public void shouldNotExecuteTheWorkDeferredUntilTheNextFrame() {
+    scheduler.schedule(renderer, givenWork(0, ANY_WORK_DURATION_MILLIS));
+
+    assertEquals(0, executedWork.size());
+    assertEquals(1, scheduler.getPendingCount());
+    assertEquals(1, pendingFrames.size());
+  }
+
+  @Test public void shouldScheduleJustOneFrameForAllTheWorkDeferredBeforeIt() {
+    givenDeferredWork(ANY_WORK_COUNT, ANY_WORK_DURATION_MILLIS);
+
+    assertEquals(1, pendingFrames.size());
+  }
+
+  @Test public void shouldExecuteTheWorkDeferredInOrderUntilTheFrameBudgetIsConsumed() {
+    givenDeferredWork(ANY_WORK_COUNT, ANY_WORK_DURATION_MILLIS);
+
+    runNextFrame();
+
+    assertEquals(ANY_FRAME_BUDGET_MILLIS, executedWork.size());
+    assertEquals(ANY_WORK_COUNT - ANY_FRAME_BUDGET_MILLIS, scheduler.getPendingCount());
+    assertEquals(1, pendingFrames.size());
+  }
+
+  @Test public void shouldExecuteAllTheWorkDeferredAcrossFrames() {
+    givenDeferredWork(ANY_WORK_COUNT, ANY_WORK_DURATION_MILLIS);
+
+    int frames = 0;
+    while (!pendingFrames.isEmpty()) {
+      runNextFrame();
+      frames++;
+    }
+
+    assertEquals(3, frames);
+    for (int i = 0; i < ANY_WORK_COUNT; i++) {
+      assertEquals(i, (int) executedWork.get(i));
+    }
+  }
+
+  @Test public void shouldExecuteAtLeastOnePieceOfWorkPerFrame() {
+    givenDeferredWork(2, ANY_FRAME_BUDGET_MILLIS * 2);
+
+    runNextFrame();
+
+    assertEquals(1, executedWork.size());
+    assertEquals(1, scheduler.getPendingCount());
+  }
+
+  @Test public void shouldDiscardTheWorkDeferredByTheRendererCancelled() {
+    scheduler.schedule(renderer, givenWork(0, ANY_WORK_DURATION_MILLIS));
+    scheduler.schedule(otherRenderer, givenWork(1, ANY_WORK_DURATION_MILLIS));
+
+    scheduler.cancel(renderer);
+    runNextFrame();
+
+    assertEquals(1, executedWork.size());
+    assertEquals(1, (int) executedWork.get(0));
+  }
+
+  @Test public void shouldExecuteAllThePendingWorkOnFlush() {
+    givenDeferredWork(ANY_WORK_COUNT, ANY_WORK_DURATION_MILLIS);
+
+    scheduler.flush();
+
+    assertEquals(ANY_WORK_COUNT, executedWork.size());
+    assertEquals(0, scheduler.getPendingCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptNonPositiveFrameBudgets() {
+    scheduler.setFrameBudget(0);
+  }
+
+  private void givenDeferredWork(int count, long durationMillis) {
+    for (int i = 0; i < count; i++) {
+      scheduler.schedule(i % 2 == 0 ? renderer : otherRenderer, givenWork(i, durationMillis));
+    }
+  }
+
+  private Runnable givenWork(final int id, final long durationMillis) {
+    return new Runnable() {
+      @Override public void run() {
+        executedWork.add(id);
+        now += TimeUnit.MILLISECONDS.toNanos(durationMillis);
+      }
+    };
+  }
+
+  private void runNextFrame() {
+    pendingFrames.remove(0).run();
+  }
+}
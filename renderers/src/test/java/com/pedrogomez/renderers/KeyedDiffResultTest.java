@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+import com.pedrogomez.renderers.exception.DuplicatedItemIdException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class created to check the correct behaviour of KeyedDiffResult.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class KeyedDiffResultTest {
+
+  private static final ItemIdProvider<String> FIRST_CHAR_ID_PROVIDER =
+      new ItemIdProvider<String>() {
+        @Override public long getItemId(String item) {
+          return item.charAt(0);
+        }
+      };
+  private static final ChangePayloadProvider<String> NEW_ITEM_PAYLOAD_PROVIDER =
+      new ChangePayloadProvider<String>() {
+        @Override public Object getChangePayload(String oldItem, String newItem) {
+          return newItem;
+        }
+      };
+
+  @Test public void shouldTransformTheOldListIntoTheNewOne() {
+    List<String> oldList = Arrays.asList("a", "b", "c", "d", "e");
+    List<String> newList = Arrays.asList("f", "d", "a", "c", "g", "e");
+
+    RecordingListUpdateCallback callback = dispatchUpdates(oldList, newList);
+
+    assertEquals(newList, callback.getResult());
+  }
+
+  @Test public void shouldMoveJustTheItemsOutOfTheLongestIncreasingSubsequence() {
+    List<String> oldList = Arrays.asList("a", "b", "c", "d", "e");
+    List<String> newList = Arrays.asList("e", "a", "b", "c", "d");
+
+    RecordingListUpdateCallback callback = dispatchUpdates(oldList, newList);
+
+    assertEquals(1, callback.moves);
+    assertEquals(newList, callback.getResult());
+  }
+
+  @Test public void shouldCoalesceTheItemsRemovedAndInsertedTogether() {
+    List<String> oldList = Arrays.asList("a", "b", "c", "d");
+    List<String> newList = Arrays.asList("a", "e", "f", "g", "d");
+
+    RecordingListUpdateCallback callback = dispatchUpdates(oldList, newList);
+
+    assertEquals(1, callback.removals);
+    assertEquals(1, callback.insertions);
+    assertEquals(newList, callback.getResult());
+  }
+
+  @Test public void shouldNotifyTheItemsChangedWithThePayloadProvided() {
+    List<String> oldList = Arrays.asList("a1", "b1");
+    List<String> newList = Arrays.asList("b2", "a1");
+
+    RecordingListUpdateCallback callback = dispatchUpdates(oldList, newList);
+
+    assertEquals(Collections.<Object>singletonList("b2"), callback.payloads);
+    assertEquals(newList, callback.getResult());
+  }
+
+  @Test public void shouldTransformRandomListsIntoTheNewOnes() {
+    Random random = new Random(42);
+    for (int i = 0; i < 200; i++) {
+      List<String> oldList = givenARandomList(random);
+      List<String> newList = givenARandomList(random);
+
+      RecordingListUpdateCallback callback = dispatchUpdates(oldList, newList);
+
+      assertEquals(newList, callback.getResult());
+    }
+  }
+
+  @Test(expected = DuplicatedItemIdException.class)
+  public void shouldThrowExceptionIfTheNewListContainsRepeatedIds() {
+    dispatchUpdates(Arrays.asList("a"), Arrays.asList("b1", "b2"));
+  }
+
+  private RecordingListUpdateCallback dispatchUpdates(List<String> oldList,
+      List<String> newList) {
+    RecordingListUpdateCallback callback = new RecordingListUpdateCallback(oldList, newList);
+    KeyedDiffResult.calculate(oldList, newList, FIRST_CHAR_ID_PROVIDER, NEW_ITEM_PAYLOAD_PROVIDER)
+        .dispatchUpdatesTo(callback);
+    return callback;
+  }
+
+  private List<String> givenARandomList(Random random) {
+    List<String> keys = new ArrayList<>();
+    for (char key = 'a'; key <= 'z'; key++) {
+      if (random.nextBoolean()) {
+        keys.add(key + String.valueOf(random.nextInt(2)));
+      }
+    }
+    Collections.shuffle(keys, random);
+    return keys;
+  }
+
+  /**
+   * ListUpdateCallback applying the updates to a copy of the old list. The items changed are taken
+   * from the new list and the items inserted are taken from the new list once every update has
+   * been applied.
+   */
+  private static class RecordingListUpdateCallback implements ListUpdateCallback {
+
+    private final List<String> list;
+    private final List<String> newList;
+    private final List<Object> payloads = new ArrayList<>();
+    private int insertions;
+    private int removals;
+    private int moves;
+
+    RecordingListUpdateCallback(List<String> oldList, List<String> newList) {
+      this.list = new ArrayList<>(oldList);
+      this.newList = newList;
+    }
+
+    @Override public void onInserted(int position, int count) {
+      insertions++;
+      for (int i = 0; i < count; i++) {
+        list.add(position, null);
+      }
+    }
+
+    @Override public void onRemoved(int position, int count) {
+      removals++;
+      for (int i = 0; i < count; i++) {
+        list.remove(position);
+      }
+    }
+
+    @Override public void onMoved(int fromPosition, int toPosition) {
+      moves++;
+      list.add(toPosition, list.remove(fromPosition));
+    }
+
+    @Override public void onChanged(int position, int count, Object payload) {
+      payloads.add(payload);
+      for (int i = position; i < position + count; i++) {
+        list.set(i, newList.get(i));
+      }
+    }
+
+    List<String> getResult() {
+      List<String> result = new ArrayList<>(list);
+      for (int i = 0; i < result.size(); i++) {
+        if (result.get(i) == null) {
+          result.set(i, newList.get(i));
+        }
+      }
+      return result;
+    }
+  }
+}
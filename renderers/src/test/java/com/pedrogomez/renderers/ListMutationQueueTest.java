@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import androidx.recyclerview.widget.RecyclerView;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Test class created to check the correct behaviour of ListMutationQueue.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+@Config(sdk = 16) @RunWith(RobolectricTestRunner.class) public class ListMutationQueueTest {
+
+  private static final int ANY_PRODUCERS_COUNT = 4;
+  private static final int ANY_MUTATIONS_PER_PRODUCER = 1000;
+
+  @Mock private RendererBuilder<Object> mockedRendererBuilder;
+  @Mock private RecyclerView.AdapterDataObserver mockedAdapterDataObserver;
+
+  private final List<Runnable> pendingFrames = new LinkedList<>();
+  private final Executor frameExecutor = new Executor() {
+    @Override public synchronized void execute(Runnable command) {
+      pendingFrames.add(command);
+    }
+  };
+
+  private RVRendererAdapter<Object> adapter;
+  private ListMutationQueue<Object> mutationQueue;
+
+  @Before public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    adapter = new RVRendererAdapter<>(mockedRendererBuilder, new ArrayList<Object>());
+    adapter.registerAdapterDataObserver(mockedAdapterDataObserver);
+    mutationQueue = new ListMutationQueue<>(adapter, frameExecutor);
+  }
+
+  @Test public void shouldApplyTheMutationsInOrderOnTheNextFrame() {
+    mutationQueue.addAll(Arrays.<Object>asList("a", "b", "c"));
+    mutationQueue.remove("b");
+    mutationQueue.add("d");
+
+    assertEquals(0, adapter.getItemCount());
+    runNextFrame();
+
+    assertEquals(Arrays.<Object>asList("a", "c", "d"), adapter.getList());
+  }
+
+  @Test public void shouldScheduleJustOneFrameForTheMutationsEnqueuedBeforeIt() {
+    mutationQueue.add("a");
+    mutationQueue.add("b");
+    mutationQueue.clear();
+
+    assertEquals(1, pendingFrames.size());
+  }
+
+  @Test public void shouldNotifyTheRangesModifiedMergedOnceTheFrameIsDrained() {
+    mutationQueue.add("a");
+    mutationQueue.add("b");
+    mutationQueue.add("c");
+
+    runNextFrame();
+
+    verify(mockedAdapterDataObserver).onItemRangeInserted(0, 3);
+    verifyNoMoreInteractions(mockedAdapterDataObserver);
+  }
+
+  @Test public void shouldApplyTheMutationsExceedingTheLimitInTheNextFrames() {
+    mutationQueue.setMaxMutationsPerFrame(2);
+    mutationQueue.add("a");
+    mutationQueue.add("b");
+    mutationQueue.add("c");
+
+    runNextFrame();
+    assertEquals(2, adapter.getItemCount());
+    runNextFrame();
+
+    assertEquals(3, adapter.getItemCount());
+  }
+
+  @Test public void shouldApplyTheMutationsEnqueuedFromSeveralThreads()
+      throws InterruptedException {
+    List<Thread> producers = new ArrayList<>();
+    for (int i = 0; i < ANY_PRODUCERS_COUNT; i++) {
+      producers.add(new Thread(new Runnable() {
+        @Override public void run() {
+          for (int j = 0; j < ANY_MUTATIONS_PER_PRODUCER; j++) {
+            mutationQueue.add(j);
+          }
+        }
+      }));
+    }
+
+    for (Thread producer : producers) {
+      producer.start();
+    }
+    for (Thread producer : producers) {
+      producer.join();
+    }
+    while (!pendingFrames.isEmpty()) {
+      runNextFrame();
+    }
+
+    assertEquals(ANY_PRODUCERS_COUNT * ANY_MUTATIONS_PER_PRODUCER, adapter.getItemCount());
+  }
+
+  private void runNextFrame() {
+    Runnable frame;
+    synchronized (frameExecutor) {
+      frame = pendingFrames.remove(0);
+    }
+    frame.run();
+  }
+}
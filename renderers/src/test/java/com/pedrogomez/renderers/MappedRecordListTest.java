@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Test class created to check the correct behaviour of MappedRecordList and MappedRecordWriter.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class MappedRecordListTest {
+
+  private static final int ANY_SIZE = 1000;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File dataFile;
+  private File indexFile;
+  private CountingStringCodec stringCodec;
+
+  @Before public void setUp() throws IOException {
+    dataFile = temporaryFolder.newFile("records.dat");
+    indexFile = temporaryFolder.newFile("records.idx");
+    stringCodec = new CountingStringCodec();
+  }
+
+  @Test public void shouldReadTheRecordsOfVariableSizeWritten() throws IOException {
+    List<String> items = givenTheItemsWritten(ANY_SIZE);
+
+    MappedRecordList<String> list = MappedRecordList.open(dataFile, indexFile, stringCodec);
+
+    assertEquals(items, list);
+  }
+
+  @Test public void shouldNotDecodeAnyRecordOnOpen() throws IOException {
+    givenTheItemsWritten(ANY_SIZE);
+
+    MappedRecordList.open(dataFile, indexFile, stringCodec);
+
+    assertEquals(0, stringCodec.decodedCount);
+  }
+
+  @Test public void shouldReturnTheItemDecodedIfItIsCached() throws IOException {
+    givenTheItemsWritten(ANY_SIZE);
+    MappedRecordList<String> list = MappedRecordList.open(dataFile, indexFile, stringCodec);
+
+    String item = list.get(10);
+
+    assertSame(item, list.get(10));
+    assertEquals(1, stringCodec.decodedCount);
+  }
+
+  @Test public void shouldDecodeAgainTheItemsEvictedFromTheCache() throws IOException {
+    givenTheItemsWritten(ANY_SIZE);
+    MappedRecordList<String> list = MappedRecordList.open(dataFile, indexFile, stringCodec);
+    list.setCacheSize(2);
+
+    list.get(0);
+    list.get(1);
+    list.get(0);
+    list.get(2);
+    list.get(0);
+    list.get(1);
+
+    assertEquals(4, stringCodec.decodedCount);
+  }
+
+  @Test public void shouldReadTheRecordsOfFixedSize() throws IOException {
+    RecordCodec<Integer> intCodec = new RecordCodec<Integer>() {
+      @Override public void encode(Integer item, DataOutput output) throws IOException {
+        output.writeInt(item);
+      }
+
+      @Override public Integer decode(ByteBuffer record) {
+        return record.getInt();
+      }
+    };
+    List<Integer> items = new ArrayList<>();
+    MappedRecordWriter<Integer> writer = new MappedRecordWriter<>(dataFile, indexFile, intCodec);
+    for (int i = 0; i < ANY_SIZE; i++) {
+      items.add(i * 3);
+      writer.append(i * 3);
+    }
+    writer.close();
+
+    MappedRecordList<Integer> list = MappedRecordList.openFixedSize(dataFile, 4, intCodec);
+
+    assertEquals(items, list);
+  }
+
+  @Test public void shouldBeEmptyIfNoRecordsHaveBeenWritten() throws IOException {
+    givenTheItemsWritten(0);
+
+    MappedRecordList<String> list = MappedRecordList.open(dataFile, indexFile, stringCodec);
+
+    assertEquals(0, list.size());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void shouldThrowIndexOutOfBoundsExceptionGettingAnInvalidPosition() throws IOException {
+    givenTheItemsWritten(ANY_SIZE);
+    MappedRecordList<String> list = MappedRecordList.open(dataFile, indexFile, stringCodec);
+
+    list.get(ANY_SIZE);
+  }
+
+  @Test public void shouldNotDecodeAnyRecordWhenPreloadingViewTypes() throws IOException {
+    givenTheItemsWritten(ANY_SIZE);
+    MappedRecordList<String> list = MappedRecordList.open(dataFile, indexFile, stringCodec);
+    Executor executor = mock(Executor.class);
+
+    new ViewTypeCache().preload(list, new RendererBuilder<String>(new StringRenderer()), executor);
+
+    verifyZeroInteractions(executor);
+    assertEquals(0, stringCodec.decodedCount);
+  }
+
+  @Test public void shouldBeReplacedByTheNewListOnDiffUpdate() throws IOException {
+    List<String> items = givenTheItemsWritten(ANY_SIZE);
+    MappedRecordList<String> list = MappedRecordList.open(dataFile, indexFile, stringCodec);
+    RVRendererAdapter<String> adapter =
+        new RVRendererAdapter<>(new RendererBuilder<String>(new StringRenderer()), list);
+    List<String> newItems = new ArrayList<>(items);
+    newItems.add("New video");
+
+    adapter.diffUpdate(newItems);
+
+    assertEquals(ANY_SIZE + 1, adapter.getItemCount());
+    assertEquals("New video", adapter.getItem(ANY_SIZE));
+  }
+
+  private List<String> givenTheItemsWritten(int count) throws IOException {
+    List<String> items = new ArrayList<>();
+    MappedRecordWriter<String> writer =
+        new MappedRecordWriter<>(dataFile, indexFile, stringCodec);
+    for (int i = 0; i < count; i++) {
+      String item = "Video " + i + (i % 2 == 0 ? " with a longer title" : "");
+      items.add(item);
+      writer.append(item);
+    }
+    writer.close();
+    return items;
+  }
+
+  private static class CountingStringCodec implements RecordCodec<String> {
+
+    private int decodedCount;
+
+    @Override public void encode(String item, DataOutput output) throws IOException {
+      output.write(item.getBytes(UTF_8));
+    }
+
+    @Override public String decode(ByteBuffer record) {
+      decodedCount++;
+      byte[] bytes = new byte[record.remaining()];
+      record.get(bytes);
+      return new String(bytes, UTF_8);
+    }
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test class created to check the correct behaviour of PagedList.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class PagedListTest {
+
+  private static final int ANY_COUNT = 1000;
+  private static final int ANY_PAGE_SIZE = 10;
+  private static final String PLACEHOLDER = "placeholder";
+
+  private final List<Runnable> pendingTasks = new LinkedList<>();
+  private final Executor queueExecutor = new Executor() {
+    @Override public void execute(Runnable command) {
+      pendingTasks.add(command);
+    }
+  };
+
+  private FakeDataSource dataSource;
+  private PagedList<String> pagedList;
+
+  @Before public void setUp() {
+    dataSource = new FakeDataSource(ANY_COUNT);
+    pagedList = new PagedList<>(dataSource, PLACEHOLDER, queueExecutor, queueExecutor);
+    pagedList.setPageSize(ANY_PAGE_SIZE);
+    pagedList.setPrefetchDistance(ANY_PAGE_SIZE);
+  }
+
+  @Test public void shouldHaveTheDataSourceCountAsSize() {
+    assertEquals(ANY_COUNT, pagedList.size());
+  }
+
+  @Test public void shouldReturnThePlaceholderForThePositionsNotLoaded() {
+    pagedList.loadAround(0);
+
+    assertEquals(PLACEHOLDER, pagedList.get(0));
+    assertFalse(pagedList.isLoaded(0));
+  }
+
+  @Test public void shouldReturnTheItemsOnceTheirPageIsLoaded() {
+    pagedList.loadAround(0);
+    runPendingTasks();
+
+    assertEquals("item 5", pagedList.get(5));
+    assertTrue(pagedList.isLoaded(5));
+  }
+
+  @Test public void shouldLoadJustThePagesWithinThePrefetchDistance() {
+    pagedList.loadAround(55);
+    runPendingTasks();
+
+    assertEquals(3, dataSource.loadedPositions.size());
+    assertEquals(PLACEHOLDER, pagedList.get(39));
+    assertEquals("item 40", pagedList.get(40));
+    assertEquals("item 69", pagedList.get(69));
+    assertEquals(PLACEHOLDER, pagedList.get(70));
+  }
+
+  @Test public void shouldNotLoadTheSamePageTwiceWhileItIsBeingLoaded() {
+    pagedList.loadAround(55);
+    pagedList.loadAround(56);
+    runPendingTasks();
+    pagedList.loadAround(57);
+
+    assertEquals(3, dataSource.loadedPositions.size());
+  }
+
+  @Test public void shouldNotifyTheRangeOfPositionsLoaded() {
+    PagedList.Listener listener = mock(PagedList.Listener.class);
+    pagedList.setListener(listener);
+    pagedList.setPrefetchDistance(0);
+
+    pagedList.loadAround(15);
+    runPendingTasks();
+
+    verify(listener).onItemRangeChanged(10, ANY_PAGE_SIZE);
+  }
+
+  @Test public void shouldEvictThePagesFarthestFromTheLastPositionRendered() {
+    PagedList.Listener listener = mock(PagedList.Listener.class);
+    pagedList.setListener(listener);
+    pagedList.setPrefetchDistance(0);
+    pagedList.setMaxLoadedPages(2);
+
+    pagedList.loadAround(0);
+    pagedList.loadAround(100);
+    pagedList.loadAround(200);
+    runPendingTasks();
+
+    assertFalse(pagedList.isLoaded(0));
+    assertTrue(pagedList.isLoaded(100));
+    assertTrue(pagedList.isLoaded(200));
+    verify(listener, times(2)).onItemRangeChanged(0, ANY_PAGE_SIZE);
+  }
+
+  @Test public void shouldNotEvictThePagesWithinThePrefetchDistance() {
+    pagedList.setPrefetchDistance(2 * ANY_PAGE_SIZE);
+    pagedList.setMaxLoadedPages(1);
+
+    pagedList.loadAround(50);
+    runPendingTasks();
+    pagedList.loadAround(50);
+    runPendingTasks();
+
+    for (int position = 30; position < 80; position++) {
+      assertTrue(pagedList.isLoaded(position));
+    }
+    assertEquals(5, dataSource.loadedPositions.size());
+  }
+
+  @Test public void shouldNotifyTheErrorListenerWhenAPageCanNotBeLoaded() {
+    PagedList.ErrorListener errorListener = mock(PagedList.ErrorListener.class);
+    pagedList.setErrorListener(errorListener);
+    pagedList.setPrefetchDistance(0);
+    dataSource.error = new IllegalStateException();
+
+    pagedList.loadAround(0);
+    runPendingTasks();
+
+    assertFalse(pagedList.isLoaded(0));
+    verify(errorListener).onPageLoadFailed(0, ANY_PAGE_SIZE, dataSource.error);
+  }
+
+  @Test public void shouldLoadAgainThePagesThatCouldNotBeLoaded() {
+    pagedList.setPrefetchDistance(0);
+    dataSource.error = new IllegalStateException();
+    pagedList.loadAround(0);
+    runPendingTasks();
+
+    dataSource.error = null;
+    pagedList.loadAround(0);
+    runPendingTasks();
+
+    assertTrue(pagedList.isLoaded(0));
+  }
+
+  @Test public void shouldDiscardThePagesBeingLoadedOnInvalidate() {
+    pagedList.loadAround(0);
+
+    pagedList.invalidate();
+    runPendingTasks();
+
+    assertFalse(pagedList.isLoaded(0));
+  }
+
+  @Test public void shouldLoadAShorterLastPage() {
+    pagedList.loadAround(ANY_COUNT - 1);
+    runPendingTasks();
+
+    assertEquals("item " + (ANY_COUNT - 1), pagedList.get(ANY_COUNT - 1));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void shouldThrowIndexOutOfBoundsExceptionGettingAnInvalidPosition() {
+    pagedList.get(ANY_COUNT);
+  }
+
+  private void runPendingTasks() {
+    while (!pendingTasks.isEmpty()) {
+      pendingTasks.remove(0).run();
+    }
+  }
+
+  private static class FakeDataSource implements PagedDataSource<String> {
+
+    private final int count;
+    private final List<Integer> loadedPositions = new ArrayList<>();
+    private RuntimeException error;
+
+    FakeDataSource(int count) {
+      this.count = count;
+    }
+
+    @Override public int getCount() {
+      return count;
+    }
+
+    @Override public List<String> loadPage(int position, int count) {
+      if (error != null) {
+        throw error;
+      }
+      loadedPositions.add(position);
+      List<String> items = new ArrayList<>();
+      for (int i = position; i < position + count; i++) {
+        items.add("item " + i);
+      }
+      return items;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class created to check the correct behaviour of PersistentList.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class PersistentListTest {
+
+  private static final int ANY_LARGE_SIZE = 5000;
+
+  @Test public void shouldContainTheElementsCopied() {
+    List<Integer> elements = givenAListOfSize(ANY_LARGE_SIZE);
+
+    PersistentList<Integer> list = PersistentList.copyOf(elements);
+
+    assertEquals(elements, list);
+  }
+
+  @Test public void shouldReturnThePersistentListPassedAsArgumentWithoutCopyingIt() {
+    PersistentList<Integer> list = PersistentList.copyOf(givenAListOfSize(ANY_LARGE_SIZE));
+
+    assertSame(list, PersistentList.copyOf(list));
+  }
+
+  @Test public void shouldNotModifyThePreviousVersions() {
+    List<Integer> elements = givenAListOfSize(ANY_LARGE_SIZE);
+    PersistentList<Integer> list = PersistentList.copyOf(elements);
+
+    list.plus(0, -1).with(10, -1).minus(ANY_LARGE_SIZE - 1).plus(-1);
+
+    assertEquals(elements, list);
+  }
+
+  @Test public void shouldBehaveLikeAnArrayListAfterRandomModifications() {
+    Random random = new Random(42);
+    List<Integer> expected = new ArrayList<>();
+    PersistentList<Integer> list = PersistentList.empty();
+
+    for (int i = 0; i < 20000; i++) {
+      int operation = random.nextInt(4);
+      if (operation == 0 && !expected.isEmpty()) {
+        int index = random.nextInt(expected.size());
+        expected.remove(index);
+        list = list.minus(index);
+      } else if (operation == 1 && !expected.isEmpty()) {
+        int index = random.nextInt(expected.size());
+        expected.set(index, i);
+        list = list.with(index, i);
+      } else {
+        int index = random.nextInt(expected.size() + 1);
+        expected.add(index, i);
+        list = list.plus(index, i);
+      }
+    }
+
+    assertEquals(expected, list);
+  }
+
+  @Test public void shouldBeEmptyOnceEveryElementIsRemoved() {
+    PersistentList<Integer> list = PersistentList.copyOf(givenAListOfSize(ANY_LARGE_SIZE));
+
+    for (int i = 0; i < ANY_LARGE_SIZE; i++) {
+      list = list.minus(list.size() / 2);
+    }
+
+    assertTrue(list.isEmpty());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void shouldThrowIndexOutOfBoundsExceptionGettingAnInvalidPosition() {
+    PersistentList<Integer> list = PersistentList.copyOf(Arrays.asList(1, 2, 3));
+
+    list.get(3);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldNotSupportTheListMutatorMethods() {
+    PersistentList<Integer> list = PersistentList.copyOf(Arrays.asList(1, 2, 3));
+
+    list.add(4);
+  }
+
+  @Test public void shouldReturnTheSharedPrefixAndSuffixSizesOfTwoVersions() {
+    PersistentList<Integer> oldList = PersistentList.copyOf(givenAListOfSize(ANY_LARGE_SIZE));
+
+    PersistentList<Integer> newList = oldList.with(2000, -1);
+
+    assertEquals(2000, PersistentList.sharedPrefixSize(oldList, newList));
+    assertEquals(ANY_LARGE_SIZE - 2001, PersistentList.sharedSuffixSize(oldList, newList));
+  }
+
+  @Test public void shouldReturnTheWholeSizeAsSharedPrefixOfTheSameVersion() {
+    PersistentList<Integer> list = PersistentList.copyOf(givenAListOfSize(ANY_LARGE_SIZE));
+
+    assertEquals(ANY_LARGE_SIZE, PersistentList.sharedPrefixSize(list, list));
+  }
+
+  @Test public void shouldNotReturnSharedElementsOfUnrelatedLists() {
+    PersistentList<Integer> list = PersistentList.copyOf(Collections.nCopies(100, 1));
+    PersistentList<Integer> otherList = PersistentList.copyOf(Collections.nCopies(100, 2));
+
+    assertEquals(0, PersistentList.sharedPrefixSize(list, otherList));
+    assertEquals(0, PersistentList.sharedSuffixSize(list, otherList));
+  }
+
+  private static List<Integer> givenAListOfSize(int size) {
+    List<Integer> list = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      list.add(i);
+    }
+    return list;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * PreparedRenderer created only for testing purposes. The view model prepared is the length of
+ * the item text.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class PreparedItemRenderer extends PreparedRenderer<VersionedItem, Integer> {
+
+  private final List<VersionedItem> preparedContents = Collections.synchronizedList(
+      new ArrayList<VersionedItem>());
+  private final List<Integer> appliedViewModels = new ArrayList<>();
+
+  @Override protected View inflate(LayoutInflater inflater, ViewGroup parent) {
+    return null;
+  }
+
+  @Override public Integer prepare(VersionedItem content) {
+    preparedContents.add(content);
+    return content.getText().length();
+  }
+
+  @Override protected void apply(Integer viewModel) {
+    appliedViewModels.add(viewModel);
+  }
+
+  public List<VersionedItem> getPreparedContents() {
+    return preparedContents;
+  }
+
+  public List<Integer> getAppliedViewModels() {
+    return appliedViewModels;
+  }
+}
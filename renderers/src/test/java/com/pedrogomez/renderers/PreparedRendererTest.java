@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class created to check the correct behaviour of PreparedRenderer.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class PreparedRendererTest {
+
+  private static final VersionedItem ANY_CONTENT = new VersionedItem(1, 1, "Renderers");
+  private static final int ANY_CACHE_SIZE = 2;
+
+  private PreparedItemRenderer renderer;
+  private ViewModelCache viewModelCache;
+
+  @Before public void setUp() {
+    renderer = new PreparedItemRenderer();
+    viewModelCache = new ViewModelCache(ANY_CACHE_SIZE);
+    viewModelCache.setItemIdProvider(VersionedItem.ID_PROVIDER);
+  }
+
+  @Test public void shouldPrepareTheViewModelWhileRenderingWithoutCache() {
+    renderer.setContent(ANY_CONTENT);
+
+    renderer.render();
+    renderer.render();
+
+    assertEquals(Arrays.asList(ANY_CONTENT, ANY_CONTENT), renderer.getPreparedContents());
+    assertEquals(Arrays.asList(ANY_CONTENT.getText().length(), ANY_CONTENT.getText().length()),
+        renderer.getAppliedViewModels());
+  }
+
+  @Test public void shouldApplyTheViewModelCachedWithoutPreparingIt() {
+    viewModelCache.put(ANY_CONTENT, 42, 1);
+    renderer.attachViewModelCache(viewModelCache);
+    renderer.setContent(ANY_CONTENT);
+
+    renderer.render();
+
+    assertEquals(0, renderer.getPreparedContents().size());
+    assertEquals(Collections.singletonList(42), renderer.getAppliedViewModels());
+  }
+
+  @Test public void shouldCacheTheViewModelPreparedWhileRendering() {
+    renderer.attachViewModelCache(viewModelCache);
+    renderer.setContent(ANY_CONTENT);
+
+    renderer.render();
+    renderer.render();
+
+    assertEquals(Collections.singletonList(ANY_CONTENT), renderer.getPreparedContents());
+    assertEquals(ANY_CONTENT.getText().length(), viewModelCache.get(ANY_CONTENT));
+  }
+
+  @Test public void shouldPrepareTheViewModelEveryTimeIfTheContentIsNotCacheable() {
+    viewModelCache.setItemIdProvider(null);
+    renderer.attachViewModelCache(viewModelCache);
+    renderer.setContent(ANY_CONTENT);
+
+    renderer.render();
+    renderer.render();
+
+    assertEquals(Arrays.asList(ANY_CONTENT, ANY_CONTENT), renderer.getPreparedContents());
+    assertEquals(0, viewModelCache.size());
+  }
+
+  @Test public void shouldRenderTheViewModelWhenRenderingPayloads() {
+    renderer.setContent(ANY_CONTENT);
+
+    renderer.render(Collections.<Object>singletonList(ANY_CONTENT));
+
+    assertEquals(Collections.singletonList(ANY_CONTENT.getText().length()),
+        renderer.getAppliedViewModels());
+  }
+}
@@ -3,33 +3,39 @@ package com.pedrogomez.renderers;
 import androidx.recyclerview.widget.DiffUtil;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
+import com.pedrogomez.renderers.exception.FlyweightDiffUpdateException;
 import com.pedrogomez.renderers.exception.NullRendererBuiltException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
-import java.util.Collection;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 
 @Config(sdk = 16) @RunWith(RobolectricTestRunner.class) public class RVListRendererAdapterTest {
 
     private static final int ANY_SIZE = 11;
     private static final int ANY_POSITION = 2;
     private static final Object ANY_OBJECT = new Object();
-    private static final Collection<Object> ANY_OBJECT_COLLECTION = new LinkedList<>();
+    private static final Object OTHER_OBJECT = new Object();
     private static final int ANY_ITEM_VIEW_TYPE = 3;
 
     private RVListRendererAdapter<Object> adapter;
@@ -48,8 +54,20 @@ import static org.mockito.Mockito.spy;
     }
 
     @Test
-    public void shouldReturnTheList() {
-        assertEquals(mockedList, adapter.getList());
+    public void shouldRenderTheListPassedInTheConstructor() {
+        RVListRendererAdapter<Object> adapter = givenAnAdapterWith(ANY_OBJECT, OTHER_OBJECT);
+
+        assertEquals(2, adapter.getItemCount());
+        assertEquals(ANY_OBJECT, adapter.getItem(0));
+        assertEquals(OTHER_OBJECT, adapter.getItem(1));
+        assertEquals(Arrays.asList(ANY_OBJECT, OTHER_OBJECT), adapter.getList());
+    }
+
+    @Test
+    public void shouldReturnTheItemPlacedInThePositionOfTheListRendered() {
+        when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
+
+        assertEquals(ANY_OBJECT, adapter.getItem(ANY_POSITION));
     }
 
     @Test
@@ -67,7 +85,7 @@ import static org.mockito.Mockito.spy;
     @Test
     public void shouldDelegateIntoRendererBuilderToGetItemViewType() {
         when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
-        when(mockedRendererBuilder.getItemViewType(ANY_OBJECT)).thenReturn(ANY_ITEM_VIEW_TYPE);
+        when(mockedRendererBuilder.getAdapterViewType(ANY_OBJECT)).thenReturn(ANY_ITEM_VIEW_TYPE);
 
         assertEquals(ANY_ITEM_VIEW_TYPE, adapter.getItemViewType(ANY_POSITION));
     }
@@ -101,38 +119,110 @@ import static org.mockito.Mockito.spy;
     }
 
     @Test
-    public void shouldAddElementToList() {
-        adapter.add(ANY_OBJECT);
+    public void shouldSubmitACopyOfTheListWithTheElementAdded() {
+        RVListRendererAdapter<Object> adapter = givenAnAdapterWith(ANY_OBJECT);
+
+        adapter.add(OTHER_OBJECT);
 
-        verify(mockedList).add(ANY_OBJECT);
+        verify(adapter).submitList(Arrays.asList(ANY_OBJECT, OTHER_OBJECT));
     }
 
     @Test
-    public void shouldAddAllElementsToList() {
-        adapter.addAll(ANY_OBJECT_COLLECTION);
+    public void shouldSubmitACopyOfTheListWithAllTheElementsAdded() {
+        RVListRendererAdapter<Object> adapter = givenAnAdapterWith(ANY_OBJECT);
+
+        adapter.addAll(Arrays.asList(OTHER_OBJECT, ANY_OBJECT));
 
-        verify(mockedList).addAll(ANY_OBJECT_COLLECTION);
+        verify(adapter).submitList(Arrays.asList(ANY_OBJECT, OTHER_OBJECT, ANY_OBJECT));
     }
 
     @Test
-    public void shouldRemoveElementFromList() {
+    public void shouldSubmitACopyOfTheListWithoutTheElementRemoved() {
+        RVListRendererAdapter<Object> adapter = givenAnAdapterWith(ANY_OBJECT, OTHER_OBJECT);
+
         adapter.remove(ANY_OBJECT);
 
-        verify(mockedList).remove(ANY_OBJECT);
+        verify(adapter).submitList(Arrays.asList(OTHER_OBJECT));
     }
 
     @Test
-    public void shouldRemoveAllElementsFromList() {
-        adapter.removeAll(ANY_OBJECT_COLLECTION);
+    public void shouldNotSubmitAnyListIfTheElementToRemoveIsNotInTheList() {
+        RVListRendererAdapter<Object> adapter = givenAnAdapterWith(ANY_OBJECT);
+
+        boolean removed = adapter.remove(OTHER_OBJECT);
 
-        verify(mockedList).removeAll(ANY_OBJECT_COLLECTION);
+        assertFalse(removed);
+        verify(adapter, never()).submitList(ArgumentMatchers.<List<Object>>any());
     }
 
     @Test
-    public void shouldClearElementsFromList() {
+    public void shouldSubmitACopyOfTheListWithoutAllTheElementsRemoved() {
+        RVListRendererAdapter<Object> adapter =
+                givenAnAdapterWith(ANY_OBJECT, OTHER_OBJECT, ANY_OBJECT);
+
+        adapter.removeAll(Arrays.asList(ANY_OBJECT));
+
+        verify(adapter).submitList(Arrays.asList(OTHER_OBJECT));
+    }
+
+    @Test
+    public void shouldSubmitAnEmptyListOnClear() {
+        RVListRendererAdapter<Object> adapter = givenAnAdapterWith(ANY_OBJECT);
+
         adapter.clear();
 
-        verify(mockedList).clear();
+        verify(adapter).submitList(Collections.emptyList());
+    }
+
+    @Test
+    public void shouldApplyEveryModificationToTheLatestListSubmitted() {
+        RVListRendererAdapter<Object> adapter = givenAnAdapterWith(ANY_OBJECT);
+
+        adapter.add(OTHER_OBJECT);
+        adapter.add(ANY_OBJECT);
+
+        verify(adapter).submitList(Arrays.asList(ANY_OBJECT, OTHER_OBJECT, ANY_OBJECT));
+    }
+
+    @Test
+    public void shouldSubmitTheListOnceWhenABatchIsCommitted() {
+        RVListRendererAdapter<Object> adapter = givenAnAdapterWith(ANY_OBJECT);
+
+        adapter.beginBatch();
+        adapter.add(OTHER_OBJECT);
+        adapter.remove(ANY_OBJECT);
+        adapter.addAll(Arrays.asList(ANY_OBJECT, ANY_OBJECT));
+        adapter.commit();
+
+        verify(adapter).submitList(Arrays.asList(OTHER_OBJECT, ANY_OBJECT, ANY_OBJECT));
+        verify(adapter, times(1)).submitList(ArgumentMatchers.<List<Object>>any());
+    }
+
+    @Test
+    public void shouldNotModifyTheListSubmitted() {
+        List<Object> list = new ArrayList<>(Arrays.asList(ANY_OBJECT));
+        RVListRendererAdapter<Object> adapter = spy(
+                new RVListRendererAdapter<>(mockedRendererBuilder, mockedDiffItemCallback, list));
+
+        adapter.add(OTHER_OBJECT);
+        adapter.remove(ANY_OBJECT);
+
+        assertEquals(Arrays.asList(ANY_OBJECT), list);
+        verify(adapter).submitList(Arrays.asList(ANY_OBJECT, OTHER_OBJECT));
+        verify(adapter).submitList(Arrays.asList(OTHER_OBJECT));
+    }
+
+    @Test
+    public void shouldSubmitTheLatestListSubmittedToTheUpdateGate() {
+        RVListRendererAdapter<Object> adapter = spy(new RVListRendererAdapter<>(
+                mockedRendererBuilder, mockedDiffItemCallback, new ArrayList<Object>()));
+        UpdateGate<Object> updateGate = adapter.getUpdateGate();
+
+        updateGate.submit(Arrays.asList(ANY_OBJECT));
+        updateGate.submit(Arrays.asList(ANY_OBJECT, OTHER_OBJECT));
+        updateGate.flush();
+
+        verify(adapter).submitList(Arrays.asList(ANY_OBJECT, OTHER_OBJECT));
     }
 
     @Test
@@ -155,6 +245,28 @@ import static org.mockito.Mockito.spy;
         verify(mockedRenderer).render();
     }
 
+    @Test
+    public void shouldAttachTheViewModelCacheOnBindIfThereArePreparedRenderers() {
+        when(mockedRendererBuilder.hasPreparedPrototypes()).thenReturn(true);
+        when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
+        when(mockedRendererViewHolder.getRenderer()).thenReturn(mockedRenderer);
+
+        adapter.onBindViewHolder(mockedRendererViewHolder, ANY_POSITION);
+
+        verify(mockedRenderer).attachViewModelCache(notNull(ViewModelCache.class));
+    }
+
+    @Test
+    public void shouldNotAttachAnyViewModelCacheOnBindWithoutPreparedRenderers() {
+        when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
+        when(mockedRendererViewHolder.getRenderer()).thenReturn(mockedRenderer);
+
+        adapter.onBindViewHolder(mockedRendererViewHolder, ANY_POSITION);
+
+        verify(mockedRenderer, never()).attachViewModelCache(
+                ArgumentMatchers.any(ViewModelCache.class));
+    }
+
     @Test
     public void shouldSetAdapteeCollection() {
         ListAdapteeCollection collection = new ListAdapteeCollection();
@@ -172,9 +284,11 @@ import static org.mockito.Mockito.spy;
         RVListRendererAdapter<Object> adapter = new RVListRendererAdapter<Object>(mockedRendererBuilder,
                 mockedDiffItemCallback);
 
-        adapter.setList(mockedList);
+        List<Object> list = Arrays.asList(ANY_OBJECT, OTHER_OBJECT);
 
-        assertEquals(mockedList, adapter.getList());
+        adapter.setList(list);
+
+        assertEquals(list, adapter.getList());
     }
 
     @Test
@@ -201,6 +315,63 @@ import static org.mockito.Mockito.spy;
         adapter.setList(null);
     }
 
+    @Test
+    public void shouldRenderAColumnarListSubmittedToAnEmptyAdapter() {
+        RVListRendererAdapter<Object> adapter = givenAnAdapterWith();
+
+        adapter.setList(givenAColumnarList());
+
+        assertEquals(ANY_SIZE, adapter.getItemCount());
+    }
+
+    @Test(expected = FlyweightDiffUpdateException.class)
+    public void shouldThrowFlyweightDiffUpdateExceptionReplacingAColumnarList() {
+        RVListRendererAdapter<Object> adapter = new RVListRendererAdapter<>(mockedRendererBuilder,
+                mockedDiffItemCallback, givenAColumnarList());
+
+        adapter.submitList(Arrays.asList(ANY_OBJECT));
+    }
+
+    @Test(expected = FlyweightDiffUpdateException.class)
+    public void shouldThrowFlyweightDiffUpdateExceptionSubmittingAColumnarListToANonEmptyAdapter() {
+        RVListRendererAdapter<Object> adapter = givenAnAdapterWith(ANY_OBJECT);
+
+        adapter.submitList(givenAColumnarList());
+    }
+
+    @Test(expected = FlyweightDiffUpdateException.class)
+    public void shouldThrowFlyweightDiffUpdateExceptionModifyingAColumnarList() {
+        RVListRendererAdapter<Object> adapter = new RVListRendererAdapter<>(mockedRendererBuilder,
+                mockedDiffItemCallback, givenAColumnarList());
+
+        adapter.add(ANY_OBJECT);
+    }
+
+    @Test
+    public void shouldClearAColumnarList() {
+        RVListRendererAdapter<Object> adapter = new RVListRendererAdapter<>(mockedRendererBuilder,
+                mockedDiffItemCallback, givenAColumnarList());
+
+        adapter.clear();
+
+        assertEquals(0, adapter.getItemCount());
+    }
+
+    private RVListRendererAdapter<Object> givenAnAdapterWith(Object... elements) {
+        List<Object> list = new ArrayList<>(Arrays.asList(elements));
+        return spy(new RVListRendererAdapter<>(mockedRendererBuilder, mockedDiffItemCallback, list));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> givenAColumnarList() {
+        ColumnarList list = new ColumnarList();
+        ColumnarList.IntColumn likes = list.addIntColumn();
+        for (int i = 0; i < ANY_SIZE; i++) {
+            likes.set(list.addRow(), i);
+        }
+        return (List) list;
+    }
+
     private void initializeMocks() {
         MockitoAnnotations.initMocks(this);
         when(mockedParent.getContext()).thenReturn(RuntimeEnvironment.application);
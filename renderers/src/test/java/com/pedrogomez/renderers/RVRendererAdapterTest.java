@@ -15,27 +15,47 @@
  */
 package com.pedrogomez.renderers;
 
+import androidx.recyclerview.widget.RecyclerView;
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.ContextWrapper;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
+import com.pedrogomez.renderers.exception.DuplicatedItemIdException;
 import com.pedrogomez.renderers.exception.NullRendererBuiltException;
+import com.pedrogomez.renderers.exception.PagedListDiffUpdateException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.notNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -59,6 +79,16 @@ import static org.mockito.Mockito.when;
   @Mock private ViewGroup mockedParent;
   @Mock private ObjectRenderer mockedRenderer;
   @Mock private RendererViewHolder mockedRendererViewHolder;
+  @Mock private RendererPreInflater<Object> mockedPreInflater;
+  @Mock private DiffUpdateListener mockedDiffUpdateListener;
+  @Mock private RecyclerView.AdapterDataObserver mockedAdapterDataObserver;
+
+  private final List<Runnable> pendingTasks = new LinkedList<>();
+  private final Executor queueExecutor = new Executor() {
+    @Override public void execute(Runnable command) {
+      pendingTasks.add(command);
+    }
+  };
 
   @Before public void setUp() {
     initializeMocks();
@@ -79,11 +109,54 @@ import static org.mockito.Mockito.when;
     assertEquals(ANY_POSITION, adapter.getItemId(ANY_POSITION));
   }
 
+  @Test public void shouldReturnTheIdProvidedAsItemIdAndEnableStableIds() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder,
+        Arrays.<Object>asList("a", "abc"));
+
+    adapter.setItemIdProvider(STRING_LENGTH_ID_PROVIDER);
+
+    assertEquals(3, adapter.getItemId(1));
+    assertTrue(adapter.hasStableIds());
+  }
+
+  @Test(expected = DuplicatedItemIdException.class)
+  public void shouldThrowExceptionIfTwoItemsHaveTheSameIdAndCollisionChecksAreEnabled() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder,
+        Arrays.<Object>asList("a", "abc", "b"));
+    adapter.setItemIdProvider(STRING_LENGTH_ID_PROVIDER);
+
+    adapter.setItemIdCollisionChecksEnabled(true);
+
+    adapter.getItemId(0);
+  }
+
   @Test public void shouldDelegateIntoRendererBuilderToGetItemViewType() {
     when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
-    when(mockedRendererBuilder.getItemViewType(ANY_OBJECT)).thenReturn(ANY_ITEM_VIEW_TYPE);
+    when(mockedRendererBuilder.getAdapterViewType(ANY_OBJECT)).thenReturn(ANY_ITEM_VIEW_TYPE);
+
+    assertEquals(ANY_ITEM_VIEW_TYPE, adapter.getItemViewType(ANY_POSITION));
+  }
+
+  @Test public void shouldResolveTheItemViewTypeJustOnceIfTheViewTypeCacheIsEnabled() {
+    when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
+    when(mockedRendererBuilder.getAdapterViewType(ANY_OBJECT)).thenReturn(ANY_ITEM_VIEW_TYPE);
+    adapter.setViewTypeCacheEnabled(true);
+
+    adapter.getItemViewType(ANY_POSITION);
 
     assertEquals(ANY_ITEM_VIEW_TYPE, adapter.getItemViewType(ANY_POSITION));
+    verify(mockedRendererBuilder, times(1)).getAdapterViewType(ANY_OBJECT);
+  }
+
+  @Test public void shouldResolveTheItemViewTypeAgainAfterClearingTheList() {
+    when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
+    adapter.setViewTypeCacheEnabled(true);
+    adapter.getItemViewType(ANY_POSITION);
+
+    adapter.clear();
+    adapter.getItemViewType(ANY_POSITION);
+
+    verify(mockedRendererBuilder, times(2)).getAdapterViewType(ANY_OBJECT);
   }
 
   @Test public void shouldBuildRendererUsingAllNeededDependencies() {
@@ -98,6 +171,16 @@ import static org.mockito.Mockito.when;
     verify(mockedRendererBuilder).buildRendererViewHolder();
   }
 
+  @Test public void shouldReturnThePreInflatedViewHolderIfThereIsOneReady() {
+    when(mockedPreInflater.poll(ANY_ITEM_VIEW_TYPE)).thenReturn(mockedRendererViewHolder);
+    adapter.setPreInflater(mockedPreInflater);
+
+    RendererViewHolder viewHolder = adapter.onCreateViewHolder(mockedParent, ANY_ITEM_VIEW_TYPE);
+
+    assertEquals(mockedRendererViewHolder, viewHolder);
+    verify(mockedRendererBuilder, never()).buildRendererViewHolder();
+  }
+
   @Test public void shouldGetRendererFromViewHolderAndCallUpdateRendererExtraValuesOnBind() {
     when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
     when(mockedRendererViewHolder.getRenderer()).thenReturn(mockedRenderer);
@@ -160,6 +243,112 @@ import static org.mockito.Mockito.when;
     verify(mockedRenderer).render();
   }
 
+  @Test public void shouldReleaseTheFlyweightContentOnceRenderedOnBind() {
+    when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
+    when(mockedRendererViewHolder.getRenderer()).thenReturn(mockedRenderer);
+
+    adapter.onBindViewHolder(mockedRendererViewHolder, ANY_POSITION);
+
+    InOrder inOrder = inOrder(mockedRenderer);
+    inOrder.verify(mockedRenderer).render();
+    inOrder.verify(mockedRenderer).releaseFlyweightContent();
+  }
+
+  @Test public void shouldPrepareTheRendererWithTheFrameBudgetSchedulerBeforeRenderingOnBind() {
+    FrameBudgetScheduler scheduler = new FrameBudgetScheduler(mock(Executor.class),
+        mock(FrameBudgetScheduler.Clock.class));
+    adapter.setFrameBudgetScheduler(scheduler);
+    when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
+    when(mockedRendererViewHolder.getRenderer()).thenReturn(mockedRenderer);
+
+    adapter.onBindViewHolder(mockedRendererViewHolder, ANY_POSITION);
+
+    InOrder inOrder = inOrder(mockedRenderer);
+    inOrder.verify(mockedRenderer).prepareRender(scheduler);
+    inOrder.verify(mockedRenderer).render();
+  }
+
+  @Test public void shouldAttachTheViewModelCacheBeforeRenderingOnBind() {
+    when(mockedRendererBuilder.hasPreparedPrototypes()).thenReturn(true);
+    when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
+    when(mockedRendererViewHolder.getRenderer()).thenReturn(mockedRenderer);
+
+    adapter.onBindViewHolder(mockedRendererViewHolder, ANY_POSITION);
+
+    InOrder inOrder = inOrder(mockedRenderer);
+    inOrder.verify(mockedRenderer).attachViewModelCache(notNull(ViewModelCache.class));
+    inOrder.verify(mockedRenderer).render();
+  }
+
+  @Test public void shouldAttachTheViewModelCacheOnBindIfThereIsAPrepareExecutor() {
+    adapter.setPrepareExecutor(queueExecutor);
+    when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
+    when(mockedRendererViewHolder.getRenderer()).thenReturn(mockedRenderer);
+
+    adapter.onBindViewHolder(mockedRendererViewHolder, ANY_POSITION);
+
+    verify(mockedRenderer).attachViewModelCache(notNull(ViewModelCache.class));
+  }
+
+  @Test public void shouldNotAttachAnyViewModelCacheOnBindWithoutPreparedRenderers() {
+    when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
+    when(mockedRendererViewHolder.getRenderer()).thenReturn(mockedRenderer);
+
+    adapter.onBindViewHolder(mockedRendererViewHolder, ANY_POSITION);
+
+    verify(mockedRenderer, never()).attachViewModelCache(any(ViewModelCache.class));
+  }
+
+  @Test public void shouldNotRegisterTheViewModelCacheOnAttachWithoutPreparedRenderers() {
+    CallbacksCountingContext context = new CallbacksCountingContext();
+
+    adapter.onAttachedToRecyclerView(new RecyclerView(context));
+
+    assertEquals(0, context.registeredCallbacks);
+  }
+
+  @Test public void shouldRegisterTheViewModelCacheOnAttachIfThereArePreparedRenderers() {
+    when(mockedRendererBuilder.hasPreparedPrototypes()).thenReturn(true);
+    CallbacksCountingContext context = new CallbacksCountingContext();
+
+    adapter.onAttachedToRecyclerView(new RecyclerView(context));
+
+    assertEquals(1, context.registeredCallbacks);
+  }
+
+  @Test public void shouldRegisterTheViewModelCacheOnceAttachedIfAPrepareExecutorIsConfigured() {
+    CallbacksCountingContext context = new CallbacksCountingContext();
+    RecyclerView recyclerView = new RecyclerView(context);
+    adapter.onAttachedToRecyclerView(recyclerView);
+
+    adapter.setPrepareExecutor(queueExecutor);
+    adapter.onDetachedFromRecyclerView(recyclerView);
+
+    assertEquals(1, context.registeredCallbacks);
+    assertEquals(1, context.unregisteredCallbacks);
+  }
+
+  @Test public void shouldRenderThePayloadsOnBindIfThereAreAny() {
+    when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
+    when(mockedRendererViewHolder.getRenderer()).thenReturn(mockedRenderer);
+    List<Object> payloads = Collections.<Object>singletonList(ANY_OBJECT);
+
+    adapter.onBindViewHolder(mockedRendererViewHolder, ANY_POSITION, payloads);
+
+    verify(mockedRenderer).render(payloads);
+    verify(mockedRenderer, never()).render();
+  }
+
+  @Test public void shouldRenderTheWholeItemOnBindIfThereAreNoPayloads() {
+    when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
+    when(mockedRendererViewHolder.getRenderer()).thenReturn(mockedRenderer);
+
+    adapter.onBindViewHolder(mockedRendererViewHolder, ANY_POSITION,
+        Collections.<Object>emptyList());
+
+    verify(mockedRenderer).render();
+  }
+
   @Test public void shouldSetAdapteeCollection() {
     ListAdapteeCollection collection = new ListAdapteeCollection();
     collection.add("test");
@@ -198,6 +387,237 @@ import static org.mockito.Mockito.when;
     adapter.setList(null);
   }
 
+  @Test public void shouldApplyTheNewListOnceTheAsynchronousDiffUpdateFinishes() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder,
+        new ArrayList<Object>(Arrays.<Object>asList("a", "b")));
+    List<Object> newList = Arrays.<Object>asList("b", "c");
+
+    adapter.diffUpdate(newList, queueExecutor, queueExecutor, mockedDiffUpdateListener);
+
+    assertEquals("a", adapter.getItem(0));
+    runPendingTasks();
+    assertEquals(newList, adapter.getList());
+    verify(mockedDiffUpdateListener).onDiffUpdateApplied();
+  }
+
+  @Test public void shouldDiscardTheAsynchronousDiffUpdateIfANewerOneArrives() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder,
+        new ArrayList<Object>(Arrays.<Object>asList("a", "b")));
+    DiffUpdateListener otherDiffUpdateListener = mock(DiffUpdateListener.class);
+
+    adapter.diffUpdate(Arrays.<Object>asList("c"), queueExecutor, queueExecutor,
+        mockedDiffUpdateListener);
+    adapter.diffUpdate(Arrays.<Object>asList("d"), queueExecutor, queueExecutor,
+        otherDiffUpdateListener);
+    runPendingTasks();
+
+    assertEquals(Arrays.<Object>asList("d"), adapter.getList());
+    verify(mockedDiffUpdateListener).onDiffUpdateDiscarded();
+    verify(otherDiffUpdateListener).onDiffUpdateApplied();
+  }
+
+  @Test public void shouldDiscardTheAsynchronousDiffUpdateIfTheListIsModified() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder,
+        new ArrayList<Object>(Arrays.<Object>asList("a", "b")));
+
+    adapter.diffUpdate(Arrays.<Object>asList("c"), queueExecutor, queueExecutor,
+        mockedDiffUpdateListener);
+    adapter.add("d");
+    runPendingTasks();
+
+    assertEquals(Arrays.<Object>asList("a", "b", "d"), adapter.getList());
+    verify(mockedDiffUpdateListener).onDiffUpdateDiscarded();
+  }
+
+  @Test public void shouldApplyTheLatestListSubmittedToTheUpdateGate() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder,
+        new ArrayList<Object>(Arrays.<Object>asList("a", "b")));
+    UpdateGate<Object> updateGate = adapter.getUpdateGate();
+
+    updateGate.submit(Arrays.<Object>asList("c"));
+    updateGate.submit(Arrays.<Object>asList("b", "d"));
+    updateGate.flush();
+
+    assertEquals(Arrays.<Object>asList("b", "d"), adapter.getList());
+  }
+
+  @Test public void shouldDiffTheListsSubmittedToTheUpdateGateInTheDiffExecutorConfigured() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder,
+        new ArrayList<Object>(Arrays.<Object>asList("a", "b")));
+    UpdateGate<Object> updateGate = adapter.getUpdateGate();
+    updateGate.setDiffExecutor(queueExecutor);
+
+    updateGate.submit(Arrays.<Object>asList("b", "c"));
+    updateGate.flush();
+
+    assertEquals(Arrays.<Object>asList("a", "b"), adapter.getList());
+    runPendingTasks();
+    assertEquals(Arrays.<Object>asList("b", "c"), adapter.getList());
+  }
+
+  @Test public void shouldKeepThePersistentListAppliedWithoutCopyingIt() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder,
+        new ArrayList<Object>(Arrays.<Object>asList("a", "b")));
+    PersistentList<Object> newList = PersistentList.copyOf(Arrays.<Object>asList("b", "c"));
+
+    adapter.diffUpdate(newList, queueExecutor, queueExecutor, mockedDiffUpdateListener);
+    runPendingTasks();
+
+    assertSame(newList, adapter.getList());
+  }
+
+  @Test public void shouldCreateNewVersionsOfThePersistentListRendered() {
+    PersistentList<Object> list = PersistentList.copyOf(Arrays.<Object>asList("a", "b"));
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder, list);
+
+    adapter.add("c");
+    adapter.remove("a");
+
+    assertEquals(Arrays.<Object>asList("b", "c"), adapter.getList());
+    assertEquals(Arrays.<Object>asList("a", "b"), list);
+  }
+
+  @Test public void shouldLoadTheItemsAroundThePositionBoundIfTheListIsAPagedList() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder, givenAPagedList());
+    when(mockedRendererViewHolder.getRenderer()).thenReturn(mockedRenderer);
+
+    adapter.onBindViewHolder(mockedRendererViewHolder, ANY_POSITION);
+    runPendingTasks();
+
+    verify(mockedRenderer).setContent("placeholder");
+    assertEquals(ANY_OBJECT, adapter.getItem(ANY_POSITION));
+  }
+
+  @Test(expected = PagedListDiffUpdateException.class)
+  public void shouldThrowPagedListDiffUpdateExceptionOnDiffUpdateFromAPagedList() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder, givenAPagedList());
+
+    adapter.diffUpdate(Arrays.<Object>asList("a"));
+  }
+
+  @Test(expected = PagedListDiffUpdateException.class)
+  public void shouldThrowPagedListDiffUpdateExceptionOnAsyncDiffUpdateToAPagedList() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder,
+        new ArrayList<Object>(Arrays.<Object>asList("a", "b")));
+
+    adapter.diffUpdate(givenAPagedList(), queueExecutor, queueExecutor, mockedDiffUpdateListener);
+  }
+
+  @Test public void shouldUseAPlaceholderIdPerPositionForThePagedListPositionsNotLoaded() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder, givenAPagedList());
+    adapter.setItemIdProvider(STRING_LENGTH_ID_PROVIDER);
+    adapter.setItemIdCollisionChecksEnabled(true);
+
+    assertEquals(PagedList.getPlaceholderId(0), adapter.getItemId(0));
+    assertEquals(PagedList.getPlaceholderId(1), adapter.getItemId(1));
+  }
+
+  @Test public void shouldUseTheItemIdProviderForThePagedListPositionsLoaded() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder, givenAPagedList());
+    adapter.setItemIdProvider(STRING_LENGTH_ID_PROVIDER);
+    when(mockedRendererViewHolder.getRenderer()).thenReturn(mockedRenderer);
+
+    adapter.onBindViewHolder(mockedRendererViewHolder, ANY_POSITION);
+    runPendingTasks();
+
+    assertEquals(ANY_OBJECT.toString().length(), adapter.getItemId(ANY_POSITION));
+  }
+
+  @Test public void shouldNotNotifyThePagesLoadedByThePagedListReplaced() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder, givenAPagedList());
+    adapter.registerAdapterDataObserver(mockedAdapterDataObserver);
+    when(mockedRendererViewHolder.getRenderer()).thenReturn(mockedRenderer);
+    adapter.onBindViewHolder(mockedRendererViewHolder, ANY_POSITION);
+
+    adapter.setList(new ArrayList<Object>(Arrays.<Object>asList("a", "b")));
+    runPendingTasks();
+
+    verifyZeroInteractions(mockedAdapterDataObserver);
+  }
+
+  @Test public void shouldNotifyTheMergedInsertionsOnCommit() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder,
+        new ArrayList<Object>(Arrays.<Object>asList("a", "b")));
+    adapter.registerAdapterDataObserver(mockedAdapterDataObserver);
+
+    adapter.beginBatch();
+    adapter.add("c");
+    adapter.add("d");
+    adapter.addAll(Arrays.<Object>asList("e", "f"));
+    verifyZeroInteractions(mockedAdapterDataObserver);
+    adapter.commit();
+
+    verify(mockedAdapterDataObserver).onItemRangeInserted(2, 4);
+    verifyNoMoreInteractions(mockedAdapterDataObserver);
+  }
+
+  @Test public void shouldNotifyTheMergedRemovalsOnCommit() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder,
+        new ArrayList<Object>(Arrays.<Object>asList("a", "b", "c", "d", "e")));
+    adapter.registerAdapterDataObserver(mockedAdapterDataObserver);
+
+    adapter.beginBatch();
+    adapter.removeAll(Arrays.<Object>asList("b", "c"));
+    adapter.remove("d");
+    adapter.commit();
+
+    verify(mockedAdapterDataObserver).onItemRangeRemoved(1, 3);
+    verifyNoMoreInteractions(mockedAdapterDataObserver);
+  }
+
+  @Test public void shouldNotifyTheModificationsWhenTheOutermostBatchIsCommitted() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder, new ArrayList<Object>());
+    adapter.registerAdapterDataObserver(mockedAdapterDataObserver);
+
+    adapter.beginBatch();
+    adapter.beginBatch();
+    adapter.add("a");
+    adapter.commit();
+    verifyZeroInteractions(mockedAdapterDataObserver);
+    adapter.commit();
+
+    verify(mockedAdapterDataObserver).onItemRangeInserted(0, 1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldThrowExceptionIfCommitIsInvokedWithoutBeginBatch() {
+    adapter.commit();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldThrowExceptionIfTheKeyedDiffIsUsedWithoutItemIdProvider() {
+    adapter = new RVRendererAdapter<Object>(mockedRendererBuilder,
+        new ArrayList<Object>(Arrays.<Object>asList("a", "b")));
+    adapter.setKeyedDiffEnabled(true);
+
+    adapter.diffUpdate(Arrays.<Object>asList("b", "a"));
+  }
+
+  private PagedList<Object> givenAPagedList() {
+    return new PagedList<>(new PagedDataSource<Object>() {
+      @Override public int getCount() {
+        return 100;
+      }
+
+      @Override public List<Object> loadPage(int position, int count) {
+        return Collections.nCopies(count, ANY_OBJECT);
+      }
+    }, (Object) "placeholder", queueExecutor, queueExecutor);
+  }
+
+  private void runPendingTasks() {
+    while (!pendingTasks.isEmpty()) {
+      pendingTasks.remove(0).run();
+    }
+  }
+
+  private static final ItemIdProvider<Object> STRING_LENGTH_ID_PROVIDER =
+      new ItemIdProvider<Object>() {
+        @Override public long getItemId(Object item) {
+          return item.toString().length();
+        }
+      };
+
   private void initializeMocks() {
     MockitoAnnotations.initMocks(this);
     when(mockedParent.getContext()).thenReturn(RuntimeEnvironment.application);
@@ -207,4 +627,26 @@ import static org.mockito.Mockito.when;
     adapter = new RVRendererAdapter<Object>(mockedRendererBuilder, mockedList);
     adapter = spy(adapter);
   }
+
+  private static class CallbacksCountingContext extends ContextWrapper {
+
+    private int registeredCallbacks;
+    private int unregisteredCallbacks;
+
+    CallbacksCountingContext() {
+      super(RuntimeEnvironment.application);
+    }
+
+    @Override public Context getApplicationContext() {
+      return this;
+    }
+
+    @Override public void registerComponentCallbacks(ComponentCallbacks callback) {
+      registeredCallbacks++;
+    }
+
+    @Override public void unregisterComponentCallbacks(ComponentCallbacks callback) {
+      unregisteredCallbacks++;
+    }
+  }
 }
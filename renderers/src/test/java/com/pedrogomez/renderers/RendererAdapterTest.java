@@ -13,13 +13,16 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.notNull;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -66,6 +69,16 @@ import static org.mockito.Mockito.when;
     assertEquals(ANY_POSITION, rendererAdapter.getItemId(ANY_POSITION));
   }
 
+  @Test public void shouldReturnTheIdProvidedAsItemIdAndEnableStableIds() {
+    rendererAdapter = new RendererAdapter<Object>(mockedRendererBuilder,
+        Arrays.<Object>asList("a", "abc"));
+
+    rendererAdapter.setItemIdProvider(STRING_LENGTH_ID_PROVIDER);
+
+    assertEquals(3, rendererAdapter.getItemId(1));
+    assertTrue(rendererAdapter.hasStableIds());
+  }
+
   @Test public void shouldDelegateIntoRendererBuilderToGetItemViewType() {
     when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
     when(mockedRendererBuilder.getItemViewType(ANY_OBJECT)).thenReturn(ANY_ITEM_VIEW_TYPE);
@@ -152,6 +165,23 @@ import static org.mockito.Mockito.when;
     verify(mockedList).clear();
   }
 
+  @Test public void shouldNotifyDataSetChangedOnceWhenABatchIsCommitted() {
+    rendererAdapter.beginBatch();
+    rendererAdapter.add(ANY_OBJECT);
+    rendererAdapter.clear();
+    rendererAdapter.commit();
+
+    verify(rendererAdapter).notifyDataSetChanged();
+  }
+
+  @Test public void shouldNotNotifyDataSetChangedIfTheBatchDidNotModifyTheList() {
+    rendererAdapter.beginBatch();
+    rendererAdapter.remove(ANY_OBJECT);
+    rendererAdapter.commit();
+
+    verify(rendererAdapter, never()).notifyDataSetChanged();
+  }
+
   @Test public void shouldSetAdapteeCollection() {
     AdapteeCollection collection = new ListAdapteeCollection();
     collection.add("test");
@@ -191,6 +221,13 @@ import static org.mockito.Mockito.when;
     adapter.setList(null);
   }
 
+  private static final ItemIdProvider<Object> STRING_LENGTH_ID_PROVIDER =
+      new ItemIdProvider<Object>() {
+        @Override public long getItemId(Object item) {
+          return item.toString().length();
+        }
+      };
+
   private void initializeMocks() {
     MockitoAnnotations.initMocks(this);
     when(mockedParent.getContext()).thenReturn(RuntimeEnvironment.application);
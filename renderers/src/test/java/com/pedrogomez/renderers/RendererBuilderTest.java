@@ -1,13 +1,17 @@
 package com.pedrogomez.renderers;
 
+import androidx.recyclerview.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import com.pedrogomez.renderers.exception.AmbiguousBindingException;
 import com.pedrogomez.renderers.exception.NeedsPrototypesException;
 import com.pedrogomez.renderers.exception.NullContentException;
 import com.pedrogomez.renderers.exception.NullLayoutInflaterException;
 import com.pedrogomez.renderers.exception.NullParentException;
 import com.pedrogomez.renderers.exception.NullPrototypeClassException;
+import com.pedrogomez.renderers.exception.NullRendererBuiltException;
+import com.pedrogomez.renderers.exception.PrototypeNotFoundException;
 
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -18,7 +22,10 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -96,6 +103,54 @@ public class RendererBuilderTest {
     assertEquals(objectRenderer.getClass(), renderer.getClass());
   }
 
+  @Test public void shouldCreateRenderersUsingTheInstantiateRendererImplementation() {
+    final ObjectRenderer newRenderer = new ObjectRenderer();
+    newRenderer.setView(mockedRendererdView);
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>(objectRenderer) {
+      @Override protected Renderer instantiateRenderer(int viewType) {
+        return newRenderer;
+      }
+    };
+    rendererBuilder.withContent(mockedContent);
+    rendererBuilder.withParent(mockedParent);
+    rendererBuilder.withLayoutInflater(mockedLayoutInflater);
+
+    Renderer<Object> renderer = rendererBuilder.build();
+
+    assertEquals(newRenderer, renderer);
+  }
+
+  @Test public void shouldCreateRenderersUsingTheRendererFactoryBound() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>();
+    rendererBuilder.bind(Object.class, new RendererFactory<Object>() {
+      @Override public Renderer<Object> create() {
+        ObjectRenderer renderer = new ObjectRenderer();
+        renderer.setView(mockedRendererdView);
+        return renderer;
+      }
+    });
+    Renderer<?> prototype = rendererBuilder.getPrototypes().get(0);
+    rendererBuilder.withContent(mockedContent);
+    rendererBuilder.withParent(mockedParent);
+    rendererBuilder.withLayoutInflater(mockedLayoutInflater);
+
+    Renderer<Object> renderer = rendererBuilder.build();
+
+    assertEquals(ObjectRenderer.class, renderer.getClass());
+    assertNotSame(prototype, renderer);
+  }
+
+  @Test(expected = NullRendererBuiltException.class)
+  public void shouldThrowNullRendererBuiltExceptionIfTheRendererFactoryReturnsNull() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>();
+
+    rendererBuilder.withFactory(new RendererFactory<Object>() {
+      @Override public Renderer<Object> create() {
+        return null;
+      }
+    });
+  }
+
   @Test public void shouldReturnRecycledRenderer() {
     when(rendererBuilder.getPrototypeClass(mockedContent)).thenReturn(ObjectRenderer.class);
     when(mockedConvertView.getTag()).thenReturn(objectRenderer);
@@ -193,12 +248,212 @@ public class RendererBuilderTest {
     assertEquals(IntegerRenderer.class, rendererBuilder.getPrototypeClass(0));
   }
 
+  @Test public void shouldUseTheBindingOfTheSuperclassIfTheContentClassIsNotBound() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>();
+
+    rendererBuilder.bind(Number.class, new IntegerRenderer());
+    rendererBuilder.bind(String.class, new StringRenderer());
+
+    assertEquals(IntegerRenderer.class, rendererBuilder.getPrototypeClass(0L));
+  }
+
+  @Test public void shouldUseTheBindingOfTheInterfaceIfTheContentClassIsNotBound() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>();
+
+    rendererBuilder.bind(Object.class, new ObjectRenderer());
+    rendererBuilder.bind(CharSequence.class, new StringRenderer());
+
+    assertEquals(StringRenderer.class, rendererBuilder.getPrototypeClass(new StringBuilder()));
+  }
+
+  @Test public void shouldUseTheMostSpecificBindingNoMatterTheBindingOrder() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>();
+
+    rendererBuilder.bind(Number.class, new IntegerRenderer());
+    rendererBuilder.bind(Object.class, new ObjectRenderer());
+    rendererBuilder.bind(String.class, new StringRenderer());
+
+    assertEquals(StringRenderer.class, rendererBuilder.getPrototypeClass(""));
+    assertEquals(IntegerRenderer.class, rendererBuilder.getPrototypeClass(0));
+    assertEquals(ObjectRenderer.class, rendererBuilder.getPrototypeClass(new Object()));
+  }
+
+  @Test(expected = AmbiguousBindingException.class)
+  public void shouldThrowAmbiguousBindingExceptionIfTwoUnrelatedInterfacesMatchTheContent() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>();
+    rendererBuilder.bind(CharSequence.class, new StringRenderer());
+    rendererBuilder.bind(Comparable.class, new IntegerRenderer());
+
+    rendererBuilder.getPrototypeClass("");
+  }
+
+  @Test(expected = AmbiguousBindingException.class)
+  public void shouldThrowAmbiguousBindingExceptionIfASuperclassAndAnUnrelatedInterfaceMatch() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>();
+    rendererBuilder.bind(Number.class, new IntegerRenderer());
+    rendererBuilder.bind(Comparable.class, new StringRenderer());
+
+    rendererBuilder.getPrototypeClass(0);
+  }
+
+  @Test public void shouldUseTheContentClassBindingIfTheSuperclassesMatchingItAreAmbiguous() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>();
+    rendererBuilder.bind(Number.class, new IntegerRenderer());
+    rendererBuilder.bind(Comparable.class, new StringRenderer());
+
+    rendererBuilder.bind(Integer.class, IntegerRenderer.class);
+
+    assertEquals(IntegerRenderer.class, rendererBuilder.getPrototypeClass(0));
+  }
+
+  @Test public void shouldNotThrowIfTheUnrelatedClassesMatchingTheContentUseTheSameRenderer() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>();
+    rendererBuilder.bind(Object.class, new ObjectRenderer());
+    rendererBuilder.bind(Comparable.class, new StringRenderer());
+    rendererBuilder.bind(CharSequence.class, new StringRenderer());
+
+    assertEquals(StringRenderer.class, rendererBuilder.getPrototypeClass(""));
+    assertEquals(ObjectRenderer.class, rendererBuilder.getPrototypeClass(new Object()));
+  }
+
+  @Test public void shouldResolveTheViewTypeAgainWhenANewBindingByClassIsConfigured() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>(
+        Arrays.<Renderer<?>>asList(new ObjectRenderer(), new IntegerRenderer()));
+    rendererBuilder.bind(Object.class, ObjectRenderer.class);
+    rendererBuilder.getItemViewType(0);
+
+    rendererBuilder.bind(Integer.class, IntegerRenderer.class);
+
+    assertEquals(1, rendererBuilder.getItemViewType(0));
+  }
+
+  @Test public void shouldNotReuseTheViewTypeOfTheContentClassIfGetPrototypeClassIsOverridden() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>(
+        Arrays.<Renderer<?>>asList(new ObjectRenderer(), new StringRenderer())) {
+      @Override protected Class getPrototypeClass(Object content) {
+        return content.equals("") ? ObjectRenderer.class : StringRenderer.class;
+      }
+    };
+
+    assertEquals(0, rendererBuilder.getItemViewType(""));
+    assertEquals(1, rendererBuilder.getItemViewType("a"));
+  }
+
+  @Test public void shouldResolveTheBindingAgainWhenANewBindingIsConfigured() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>();
+    rendererBuilder.bind(Object.class, new ObjectRenderer());
+    rendererBuilder.getPrototypeClass(0);
+
+    rendererBuilder.bind(Integer.class, new IntegerRenderer());
+
+    assertEquals(IntegerRenderer.class, rendererBuilder.getPrototypeClass(0));
+  }
+
   @Test public void shouldAddPrototyeAndconfigureBindingOnConstruction() {
     RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>(new ObjectRenderer());
 
     assertEquals(ObjectRenderer.class, rendererBuilder.getPrototypeClass(new Object()));
   }
 
+  @Test public void shouldReturnThePrototypeIndexAsItemViewType() {
+    when(rendererBuilder.getPrototypeClass(mockedContent)).thenReturn(SubObjectRenderer.class);
+
+    assertEquals(1, rendererBuilder.getItemViewType(mockedContent));
+  }
+
+  @Test public void shouldReturnTheFirstPrototypeIndexIfThereAreRepeatedPrototypeClasses() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>(
+        Arrays.<Renderer<Object>>asList(new ObjectRenderer(), new SubObjectRenderer(),
+            new ObjectRenderer()));
+
+    rendererBuilder.bind(Object.class, ObjectRenderer.class);
+
+    assertEquals(0, rendererBuilder.getItemViewType(new Object()));
+    assertEquals(3, rendererBuilder.getViewTypeCount());
+  }
+
+  @Test public void shouldUpdateItemViewTypesWhenNewPrototypesAreAdded() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>();
+    rendererBuilder.bind(String.class, new StringRenderer());
+    rendererBuilder.getItemViewType("");
+
+    rendererBuilder.bind(Integer.class, new IntegerRenderer());
+
+    assertEquals(1, rendererBuilder.getItemViewType(0));
+    assertEquals(2, rendererBuilder.getViewTypeCount());
+  }
+
+  @Test(expected = PrototypeNotFoundException.class)
+  public void shouldThrowPrototypeNotFoundExceptionIfThePrototypeClassIsNotRegistered() {
+    when(rendererBuilder.getPrototypeClass(mockedContent)).thenReturn(StringRenderer.class);
+
+    rendererBuilder.getItemViewType(mockedContent);
+  }
+
+  @Test public void shouldReturnThePrototypeIndexAsAdapterViewTypeByDefault() {
+    when(rendererBuilder.getPrototypeClass(mockedContent)).thenReturn(SubObjectRenderer.class);
+
+    assertEquals(1, rendererBuilder.getAdapterViewType(mockedContent));
+  }
+
+  @Test public void shouldReturnTheSameSharedViewTypeForTheSameRendererClassInDifferentBuilders() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>().withSharedViewTypes();
+    rendererBuilder.bind(String.class, new StringRenderer());
+    rendererBuilder.bind(Integer.class, new IntegerRenderer());
+    RendererBuilder<Object> otherRendererBuilder =
+        new RendererBuilder<Object>().withSharedViewTypes();
+    otherRendererBuilder.bind(Integer.class, new IntegerRenderer());
+
+    int viewType = rendererBuilder.getAdapterViewType(0);
+
+    assertEquals(ViewTypeRegistry.getViewType(IntegerRenderer.class), viewType);
+    assertEquals(viewType, otherRendererBuilder.getAdapterViewType(0));
+  }
+
+  @Test public void shouldConfigureTheMaxRecycledViewsUsingTheAdapterViewTypes() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>().withSharedViewTypes();
+    rendererBuilder.bind(String.class, new StringRenderer());
+    rendererBuilder.withMaxRecycledViews(StringRenderer.class, 12);
+    RecyclerView.RecycledViewPool recycledViewPool = mock(RecyclerView.RecycledViewPool.class);
+
+    rendererBuilder.configureRecycledViewPool(recycledViewPool);
+
+    verify(recycledViewPool).setMaxRecycledViews(
+        ViewTypeRegistry.getViewType(StringRenderer.class), 12);
+  }
+
+  @Test public void shouldCreateTheRendererAssociatedToEverySharedViewType() {
+    int subObjectViewType = ViewTypeRegistry.getViewType(SubObjectRenderer.class);
+    int objectViewType = ViewTypeRegistry.getViewType(ObjectRenderer.class);
+    RendererBuilder<Object> rendererBuilder =
+        new RendererBuilder<Object>(prototypes).withSharedViewTypes();
+
+    RendererViewHolder objectViewHolder = rendererBuilder.createRendererViewHolder(
+        objectViewType, mockedLayoutInflater, mockedParent);
+    RendererViewHolder subObjectViewHolder = rendererBuilder.createRendererViewHolder(
+        subObjectViewType, mockedLayoutInflater, mockedParent);
+
+    assertEquals(ObjectRenderer.class, objectViewHolder.getRenderer().getClass());
+    assertEquals(SubObjectRenderer.class, subObjectViewHolder.getRenderer().getClass());
+  }
+
+  @Test(expected = PrototypeNotFoundException.class)
+  public void shouldThrowPrototypeNotFoundExceptionIfTheViewTypeIsNotShared() {
+    RendererBuilder<Object> rendererBuilder =
+        new RendererBuilder<Object>(prototypes).withSharedViewTypes();
+
+    rendererBuilder.createRendererViewHolder(0, mockedLayoutInflater, mockedParent);
+  }
+
+  @Test(expected = PrototypeNotFoundException.class)
+  public void shouldThrowPrototypeNotFoundExceptionIfTheSharedViewTypeIsNotRegistered() {
+    RendererBuilder<Object> rendererBuilder = new RendererBuilder<Object>().withSharedViewTypes();
+    rendererBuilder.bind(String.class, new StringRenderer());
+
+    rendererBuilder.createRendererViewHolder(ViewTypeRegistry.getViewType(IntegerRenderer.class),
+        mockedLayoutInflater, mockedParent);
+  }
+
   private void initializeMocks() {
     MockitoAnnotations.initMocks(this);
   }
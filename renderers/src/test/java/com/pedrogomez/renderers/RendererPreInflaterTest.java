@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class created to check the correct behaviour of RendererPreInflater.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+@Config(sdk = 16) @RunWith(RobolectricTestRunner.class) public class RendererPreInflaterTest {
+
+  private static final int ANY_VIEW_TYPE = 0;
+  private static final int ANY_OTHER_VIEW_TYPE = 1;
+
+  private final Executor directExecutor = new Executor() {
+    @Override public void execute(Runnable command) {
+      command.run();
+    }
+  };
+  private final List<Runnable> mainThreadTasks = new LinkedList<>();
+  private final Executor mainThreadExecutor = new Executor() {
+    @Override public void execute(Runnable command) {
+      mainThreadTasks.add(command);
+    }
+  };
+
+  private RendererPreInflater<Object> preInflater;
+
+  @Mock private RendererBuilder<Object> mockedRendererBuilder;
+  @Mock private ViewGroup mockedParent;
+  @Mock private RendererViewHolder mockedRendererViewHolder;
+  @Mock private RendererViewHolder mockedOtherRendererViewHolder;
+
+  @Before public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    when(mockedParent.getContext()).thenReturn(RuntimeEnvironment.application);
+    when(mockedRendererBuilder.createRendererViewHolder(eq(ANY_VIEW_TYPE), any(LayoutInflater.class),
+        eq(mockedParent))).thenReturn(mockedRendererViewHolder);
+    when(mockedRendererBuilder.createRendererViewHolder(eq(ANY_OTHER_VIEW_TYPE),
+        any(LayoutInflater.class), eq(mockedParent))).thenReturn(mockedOtherRendererViewHolder);
+    preInflater = new RendererPreInflater<>(mockedRendererBuilder, mainThreadExecutor,
+        mainThreadExecutor);
+  }
+
+  @Test public void shouldCreateTheTargetCountOfViewHoldersForEveryViewType() {
+    preInflater.setTargetCount(ANY_VIEW_TYPE, 3).setTargetCount(ANY_OTHER_VIEW_TYPE, 1);
+
+    preInflater.start(mockedParent, directExecutor);
+    runMainThreadTasks();
+
+    assertEquals(3, preInflater.getReadyCount(ANY_VIEW_TYPE));
+    assertEquals(1, preInflater.getReadyCount(ANY_OTHER_VIEW_TYPE));
+  }
+
+  @Test public void shouldReturnTheViewHoldersCreatedForTheViewTypeRequested() {
+    preInflater.setTargetCount(ANY_VIEW_TYPE, 1).setTargetCount(ANY_OTHER_VIEW_TYPE, 1);
+    preInflater.start(mockedParent, directExecutor);
+    runMainThreadTasks();
+
+    assertEquals(mockedOtherRendererViewHolder, preInflater.poll(ANY_OTHER_VIEW_TYPE));
+    assertNull(preInflater.poll(ANY_OTHER_VIEW_TYPE));
+  }
+
+  @Test public void shouldNotHandViewHoldersToTheMainThreadBeforeTheyAreDelivered() {
+    preInflater.setTargetCount(ANY_VIEW_TYPE, 2);
+
+    preInflater.start(mockedParent, directExecutor);
+
+    assertNull(preInflater.poll(ANY_VIEW_TYPE));
+  }
+
+  @Test public void shouldDiscardTheViewHoldersCreatedOnceCancelled() {
+    preInflater.setTargetCount(ANY_VIEW_TYPE, 2);
+    preInflater.start(mockedParent, directExecutor);
+
+    preInflater.cancel();
+    runMainThreadTasks();
+
+    assertEquals(0, preInflater.getReadyCount(ANY_VIEW_TYPE));
+  }
+
+  @Test public void shouldOnlyCreateTheViewHoldersPendingWhenStartedAgain() {
+    preInflater.setTargetCount(ANY_VIEW_TYPE, 2);
+    preInflater.start(mockedParent, directExecutor);
+    runMainThreadTasks();
+    preInflater.poll(ANY_VIEW_TYPE);
+
+    preInflater.start(mockedParent, directExecutor);
+    runMainThreadTasks();
+
+    assertEquals(2, preInflater.getReadyCount(ANY_VIEW_TYPE));
+  }
+
+  @Test public void shouldKeepCreatingTheViewHoldersIfOneCanNotBeCreatedInTheExecutor() {
+    when(mockedRendererBuilder.createRendererViewHolder(eq(ANY_VIEW_TYPE),
+        any(LayoutInflater.class), eq(mockedParent))).thenThrow(new IllegalStateException())
+        .thenReturn(mockedRendererViewHolder);
+    preInflater.setTargetCount(ANY_VIEW_TYPE, 2).setTargetCount(ANY_OTHER_VIEW_TYPE, 1);
+
+    preInflater.start(mockedParent, directExecutor);
+    runMainThreadTasks();
+
+    assertEquals(2, preInflater.getReadyCount(ANY_VIEW_TYPE));
+    assertEquals(1, preInflater.getReadyCount(ANY_OTHER_VIEW_TYPE));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldThrowTheErrorInTheMainThreadIfTheViewHolderCanNotBeCreatedThereEither() {
+    when(mockedRendererBuilder.createRendererViewHolder(eq(ANY_VIEW_TYPE),
+        any(LayoutInflater.class), eq(mockedParent))).thenThrow(new IllegalStateException());
+    preInflater.setTargetCount(ANY_VIEW_TYPE, 1);
+    preInflater.start(mockedParent, directExecutor);
+
+    runMainThreadTasks();
+  }
+
+  @Test public void shouldNotCreateTheViewHoldersFailedInTheMainThreadOnceCancelled() {
+    when(mockedRendererBuilder.createRendererViewHolder(eq(ANY_VIEW_TYPE),
+        any(LayoutInflater.class), eq(mockedParent))).thenThrow(new IllegalStateException());
+    preInflater.setTargetCount(ANY_VIEW_TYPE, 1);
+    preInflater.start(mockedParent, directExecutor);
+
+    preInflater.cancel();
+    runMainThreadTasks();
+
+    assertEquals(0, preInflater.getReadyCount(ANY_VIEW_TYPE));
+  }
+
+  @Test public void shouldPrewarmTheViewHoldersRequestedWhenTheMainThreadIsIdle() {
+    preInflater.prewarm(mockedParent, ANY_VIEW_TYPE, 2);
+
+    assertEquals(0, preInflater.getReadyCount(ANY_VIEW_TYPE));
+    runMainThreadTasks();
+
+    assertEquals(2, preInflater.getReadyCount(ANY_VIEW_TYPE));
+  }
+
+  @Test public void shouldNotPrewarmViewHoldersOnceCancelled() {
+    preInflater.prewarm(mockedParent, ANY_VIEW_TYPE, 2);
+
+    preInflater.cancel();
+    runMainThreadTasks();
+
+    assertEquals(0, preInflater.getReadyCount(ANY_VIEW_TYPE));
+  }
+
+  @Test public void shouldPrewarmTheViewHoldersRequestedDuringTheLastSession() {
+    preInflater.setUsageHistory(new ViewTypeUsageHistory());
+    preInflater.poll(ANY_VIEW_TYPE);
+    preInflater.poll(ANY_VIEW_TYPE);
+    preInflater.poll(ANY_OTHER_VIEW_TYPE);
+    preInflater.cancel();
+
+    preInflater.prewarm(mockedParent);
+    runMainThreadTasks();
+
+    assertEquals(2, preInflater.getReadyCount(ANY_VIEW_TYPE));
+    assertEquals(1, preInflater.getReadyCount(ANY_OTHER_VIEW_TYPE));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldThrowExceptionIfPrewarmsAdaptivelyWithoutUsageHistory() {
+    preInflater.prewarm(mockedParent);
+  }
+
+  private void runMainThreadTasks() {
+    while (!mainThreadTasks.isEmpty()) {
+      mainThreadTasks.remove(0).run();
+    }
+  }
+}
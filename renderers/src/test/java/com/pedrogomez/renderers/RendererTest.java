@@ -10,7 +10,13 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
 
+import java.util.Collections;
+import java.util.concurrent.Executor;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -89,6 +95,51 @@ public class RendererTest {
     assertEquals(mockedContent, renderer.getContent());
   }
 
+  @Test public void shouldRenderTheWholeContentWhenRenderingPayloadsByDefault() {
+    renderer.render(Collections.<Object>singletonList(mockedContent));
+
+    verify(renderer).render();
+  }
+
+  @Test public void shouldReleaseTheFlyweightContentOnceRendered() {
+    ColumnarList list = new ColumnarList();
+    list.addRow();
+    renderer.setContent(list.get(0));
+
+    renderer.releaseFlyweightContent();
+
+    assertNull(renderer.getContent());
+  }
+
+  @Test public void shouldKeepTheContentOnceRenderedIfItIsNotAFlyweight() {
+    renderer.setContent(mockedContent);
+
+    renderer.releaseFlyweightContent();
+
+    assertEquals(mockedContent, renderer.getContent());
+  }
+
+  @Test public void shouldExecuteTheDeferredWorkImmediatelyWithoutFrameBudgetScheduler() {
+    Runnable work = mock(Runnable.class);
+
+    renderer.defer(work);
+
+    verify(work).run();
+  }
+
+  @Test public void shouldDiscardTheDeferredWorkPendingWhenRenderedAgain() {
+    FrameBudgetScheduler scheduler = new FrameBudgetScheduler(mock(Executor.class),
+        mock(FrameBudgetScheduler.Clock.class));
+    Runnable work = mock(Runnable.class);
+    renderer.prepareRender(scheduler);
+    renderer.defer(work);
+
+    renderer.prepareRender(scheduler);
+    scheduler.flush();
+
+    verify(work, never()).run();
+  }
+
   private void initializeRenderer() {
     renderer = new ObjectRenderer();
   }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Test class created to check the correct behaviour of TrimmedDiffResult.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class TrimmedDiffResultTest {
+
+  @Mock private ListUpdateCallback mockedListUpdateCallback;
+
+  @Before public void setUp() {
+    MockitoAnnotations.initMocks(this);
+  }
+
+  @Test public void shouldNotifyTheItemsAppendedAsAnInsertion() {
+    dispatchUpdates(Arrays.asList("a", "b"), Arrays.asList("a", "b", "c", "d"));
+
+    verify(mockedListUpdateCallback).onInserted(2, 2);
+    verify(mockedListUpdateCallback, never()).onRemoved(anyInt(), anyInt());
+  }
+
+  @Test public void shouldNotifyTheItemsPrependedAsAnInsertion() {
+    dispatchUpdates(Arrays.asList("a", "b"), Arrays.asList("c", "a", "b"));
+
+    verify(mockedListUpdateCallback).onInserted(0, 1);
+    verify(mockedListUpdateCallback, never()).onRemoved(anyInt(), anyInt());
+  }
+
+  @Test public void shouldNotifyTheItemsTruncatedAsARemoval() {
+    dispatchUpdates(Arrays.asList("a", "b", "c"), Arrays.asList("a"));
+
+    verify(mockedListUpdateCallback).onRemoved(1, 2);
+    verify(mockedListUpdateCallback, never()).onInserted(anyInt(), anyInt());
+  }
+
+  @Test public void shouldNotNotifyAnythingIfTheListsAreEqual() {
+    dispatchUpdates(Arrays.asList("a", "b"), Arrays.asList("a", "b"));
+
+    verifyZeroInteractions(mockedListUpdateCallback);
+  }
+
+  private void dispatchUpdates(List<String> oldList, List<String> newList) {
+    TrimmedDiffResult.calculate(new DiffCallback<>(oldList, newList), true)
+        .dispatchUpdatesTo(mockedListUpdateCallback);
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Test class created to check the correct behaviour of UpdateGate.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class UpdateGateTest {
+
+  private static final long ANY_DEBOUNCE_WINDOW = 100;
+  private static final List<Object> ANY_LIST = Arrays.<Object>asList("a");
+  private static final List<Object> ANY_OTHER_LIST = Arrays.<Object>asList("a", "b");
+  private static final List<Object> ANY_LATEST_LIST = Arrays.<Object>asList("a", "b", "c");
+
+  @Mock private UpdateGate.Target<Object> mockedTarget;
+
+  private final List<Runnable> scheduledTasks = new LinkedList<>();
+  private final List<Long> scheduledDelays = new LinkedList<>();
+  private final UpdateGate.Scheduler scheduler = new UpdateGate.Scheduler() {
+    @Override public void schedule(Runnable task, long delayMillis) {
+      scheduledTasks.add(task);
+      scheduledDelays.add(delayMillis);
+    }
+  };
+
+  private UpdateGate<Object> updateGate;
+
+  @Before public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    updateGate = new UpdateGate<>(mockedTarget, scheduler);
+  }
+
+  @Test public void shouldNotApplyTheListSubmittedUntilTheNextFrame() {
+    updateGate.submit(ANY_LIST);
+
+    verifyZeroInteractions(mockedTarget);
+    assertEquals(Arrays.asList(0L), scheduledDelays);
+  }
+
+  @Test public void shouldApplyJustTheLatestListSubmittedWithinAFrame() {
+    updateGate.submit(ANY_LIST);
+    updateGate.submit(ANY_OTHER_LIST);
+    updateGate.submit(ANY_LATEST_LIST);
+
+    runScheduledTasks();
+
+    assertEquals(1, scheduledDelays.size());
+    verify(mockedTarget).update(ANY_LATEST_LIST, null);
+    verifyNoMoreInteractions(mockedTarget);
+  }
+
+  @Test public void shouldScheduleTheUpdateAfterTheDebounceWindowConfigured() {
+    updateGate.setDebounceWindow(ANY_DEBOUNCE_WINDOW);
+
+    updateGate.submit(ANY_LIST);
+    updateGate.submit(ANY_OTHER_LIST);
+
+    assertEquals(Arrays.asList(ANY_DEBOUNCE_WINDOW), scheduledDelays);
+  }
+
+  @Test public void shouldScheduleANewUpdateForTheListsSubmittedOnceTheUpdateIsApplied() {
+    updateGate.submit(ANY_LIST);
+    runScheduledTasks();
+
+    updateGate.submit(ANY_OTHER_LIST);
+    runScheduledTasks();
+
+    verify(mockedTarget).update(ANY_LIST, null);
+    verify(mockedTarget).update(ANY_OTHER_LIST, null);
+    assertEquals(2, scheduledDelays.size());
+  }
+
+  @Test public void shouldApplyTheLatestListSubmittedOnFlush() {
+    updateGate.submit(ANY_LIST);
+    updateGate.submit(ANY_OTHER_LIST);
+
+    updateGate.flush();
+    runScheduledTasks();
+
+    verify(mockedTarget).update(ANY_OTHER_LIST, null);
+    verifyNoMoreInteractions(mockedTarget);
+  }
+
+  @Test public void shouldPassTheDiffExecutorConfiguredToTheTarget() {
+    Executor diffExecutor = mock(Executor.class);
+    updateGate.setDiffExecutor(diffExecutor);
+
+    updateGate.submit(ANY_LIST);
+    runScheduledTasks();
+
+    verify(mockedTarget).update(ANY_LIST, diffExecutor);
+  }
+
+  @Test public void shouldNotApplyAnyUpdateIfThereIsNoListSubmitted() {
+    updateGate.flush();
+
+    verifyZeroInteractions(mockedTarget);
+  }
+
+  @Test public void shouldCountTheListsSubmittedAppliedAndCoalesced() {
+    updateGate.submit(ANY_LIST);
+    updateGate.submit(ANY_OTHER_LIST);
+    runScheduledTasks();
+    updateGate.submit(ANY_LATEST_LIST);
+
+    assertEquals(3, updateGate.getSubmittedCount());
+    assertEquals(1, updateGate.getAppliedCount());
+    assertEquals(1, updateGate.getCoalescedCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptNullLists() {
+    updateGate.submit(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptNegativeDebounceWindows() {
+    updateGate.setDebounceWindow(-1);
+  }
+
+  private void runScheduledTasks() {
+    while (!scheduledTasks.isEmpty()) {
+      scheduledTasks.remove(0).run();
+    }
+  }
+}
@@ -123,6 +123,17 @@ import static org.mockito.Mockito.when;
     verify(mockedList).clear();
   }
 
+  @Test public void shouldNotifyDataSetChangedOnceWhenABatchIsCommitted() {
+    when(mockedList.add(ANY_OBJECT)).thenReturn(true);
+
+    adapter.beginBatch();
+    adapter.add(ANY_OBJECT);
+    adapter.add(ANY_OBJECT);
+    adapter.commit();
+
+    verify(adapter).notifyDataSetChanged();
+  }
+
   @Test public void shouldGetRendererAndRenderIt() {
     when(mockedList.get(ANY_POSITION)).thenReturn(ANY_OBJECT);
     when(mockedRendererBuilder.build()).thenReturn(mockedRenderer);
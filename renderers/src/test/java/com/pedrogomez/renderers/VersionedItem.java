@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+/**
+ * Versioned item created only for testing purposes. Its id is used as item id by ID_PROVIDER.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class VersionedItem implements Versioned {
+
+  public static final ItemIdProvider<VersionedItem> ID_PROVIDER =
+      new ItemIdProvider<VersionedItem>() {
+        @Override public long getItemId(VersionedItem item) {
+          return item.getId();
+        }
+      };
+
+  private final long id;
+  private final long version;
+  private final String text;
+
+  public VersionedItem(long id, long version, String text) {
+    this.id = id;
+    this.version = version;
+    this.text = text;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  @Override public long getVersion() {
+    return version;
+  }
+
+  public String getText() {
+    return text;
+  }
+
+  @Override public String toString() {
+    return text;
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import android.content.ComponentCallbacks2;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class created to check the correct behaviour of ViewModelCache.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class ViewModelCacheTest {
+
+  private static final int ANY_MAX_SIZE = 2;
+  private static final int ANY_MAX_BYTES = 100;
+  private static final long ANY_ID = 7;
+  private static final VersionedItem ANY_ITEM = new VersionedItem(1, 1, "a");
+  private static final VersionedItem ANY_OTHER_ITEM = new VersionedItem(2, 1, "b");
+  private static final VersionedItem ANY_NEW_ITEM = new VersionedItem(3, 1, "c");
+
+  @Test public void shouldReturnTheViewModelStored() {
+    ViewModelCache cache = givenACache(ANY_MAX_SIZE);
+
+    cache.put(ANY_ITEM, 1, 1);
+
+    assertTrue(cache.contains(ANY_ITEM));
+    assertEquals(1, cache.get(ANY_ITEM));
+  }
+
+  @Test public void shouldEvictTheLeastRecentlyUsedViewModelOnceFull() {
+    ViewModelCache cache = givenACache(ANY_MAX_SIZE);
+    cache.put(ANY_ITEM, 1, 1);
+    cache.put(ANY_OTHER_ITEM, 2, 1);
+    cache.get(ANY_ITEM);
+
+    cache.put(ANY_NEW_ITEM, 3, 1);
+
+    assertEquals(ANY_MAX_SIZE, cache.size());
+    assertFalse(cache.contains(ANY_OTHER_ITEM));
+    assertEquals(1, cache.get(ANY_ITEM));
+  }
+
+  @Test public void shouldEvictTheLeastRecentlyUsedViewModelsWhenTheMaxSizeIsReduced() {
+    ViewModelCache cache = givenACache(ANY_MAX_SIZE);
+    cache.put(ANY_ITEM, 1, 1);
+    cache.put(ANY_OTHER_ITEM, 2, 1);
+
+    cache.setMaxSize(1);
+
+    assertNull(cache.get(ANY_ITEM));
+    assertEquals(2, cache.get(ANY_OTHER_ITEM));
+  }
+
+  @Test public void shouldEvictTheViewModelsUntilTheirSizesFitTheMaxSize() {
+    ViewModelCache cache = givenACache(ANY_MAX_BYTES);
+    cache.put(ANY_ITEM, 1, 40);
+    cache.put(ANY_OTHER_ITEM, 2, 40);
+
+    cache.put(ANY_NEW_ITEM, 3, 40);
+
+    assertEquals(80, cache.size());
+    assertFalse(cache.contains(ANY_ITEM));
+    assertEquals(1, cache.getEvictionCount());
+  }
+
+  @Test public void shouldCountTheHitsAndMisses() {
+    ViewModelCache cache = givenACache(ANY_MAX_SIZE);
+    cache.put(ANY_ITEM, 1, 1);
+
+    cache.get(ANY_ITEM);
+    cache.get(ANY_ITEM);
+    cache.get(ANY_OTHER_ITEM);
+
+    assertEquals(2, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test public void shouldKeyTheItemsByIdAndVersion() {
+    ViewModelCache cache = givenACache(ANY_MAX_SIZE);
+    cache.put(new VersionedItem(ANY_ID, 1, "a"), 1, 1);
+
+    assertEquals(1, cache.get(new VersionedItem(ANY_ID, 1, "b")));
+    assertNull(cache.get(new VersionedItem(ANY_ID, 2, "a")));
+  }
+
+  @Test public void shouldNotCacheAnyViewModelWithoutItemIdProvider() {
+    ViewModelCache cache = new ViewModelCache(ANY_MAX_SIZE);
+
+    cache.put(ANY_ITEM, 1, 1);
+
+    assertEquals(0, cache.size());
+    assertNull(cache.get(ANY_ITEM));
+    assertEquals(0, cache.getMissCount());
+  }
+
+  @Test public void shouldNotCacheTheViewModelsOfTheItemsNotVersioned() {
+    ViewModelCache cache = givenACache(ANY_MAX_SIZE);
+
+    cache.put("a", 1, 1);
+
+    assertFalse(cache.isCacheable("a"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test public void shouldClearTheCacheWhenTheItemIdProviderChanges() {
+    ViewModelCache cache = givenACache(ANY_MAX_SIZE);
+    cache.put(ANY_ITEM, 1, 1);
+
+    cache.setItemIdProvider(new ItemIdProvider<VersionedItem>() {
+      @Override public long getItemId(VersionedItem item) {
+        return -item.getId();
+      }
+    });
+
+    assertEquals(0, cache.size());
+  }
+
+  @Test public void shouldEvictHalfOfTheCacheWhenTheProcessGoesToTheBackground() {
+    ViewModelCache cache = givenAFullCache(4);
+
+    cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+    assertEquals(2, cache.size());
+    assertTrue(cache.contains(givenAnItem(3)));
+  }
+
+  @Test public void shouldEvictHalfOfTheCacheWhenRunningLowOnMemory() {
+    ViewModelCache cache = givenAFullCache(4);
+
+    cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+
+    assertEquals(2, cache.size());
+  }
+
+  @Test public void shouldEvictTheWholeCacheWhenRunningCriticallyLowOnMemory() {
+    ViewModelCache cache = givenAFullCache(4);
+
+    cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+
+    assertEquals(0, cache.size());
+    assertEquals(4, cache.getEvictionCount());
+  }
+
+  @Test public void shouldEvictTheWholeCacheWhenTheProcessIsLikelyToBeKilled() {
+    ViewModelCache cache = givenAFullCache(4);
+
+    cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+
+    assertEquals(0, cache.size());
+  }
+
+  @Test public void shouldKeepTheCacheWhenTheUiIsHidden() {
+    ViewModelCache cache = givenAFullCache(4);
+
+    cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    assertEquals(4, cache.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptNonPositiveMaxSizes() {
+    new ViewModelCache(0);
+  }
+
+  private ViewModelCache givenACache(int maxSize) {
+    ViewModelCache cache = new ViewModelCache(maxSize);
+    cache.setItemIdProvider(VersionedItem.ID_PROVIDER);
+    return cache;
+  }
+
+  private ViewModelCache givenAFullCache(int maxSize) {
+    ViewModelCache cache = givenACache(maxSize);
+    for (int i = 0; i < maxSize; i++) {
+      cache.put(givenAnItem(i), i, 1);
+    }
+    return cache;
+  }
+
+  private VersionedItem givenAnItem(int id) {
+    return new VersionedItem(id, 1, String.valueOf(id));
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import android.content.Context;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class created to check the correct behaviour of ViewModelPreparer.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class ViewModelPreparerTest {
+
+  private static final int ANY_PREPARE_DISTANCE = 2;
+  private static final VersionedItem A = new VersionedItem(1, 1, "a");
+  private static final VersionedItem B = new VersionedItem(2, 1, "bb");
+  private static final VersionedItem C = new VersionedItem(3, 1, "ccc");
+  private static final VersionedItem D = new VersionedItem(4, 1, "dddd");
+  private static final VersionedItem E = new VersionedItem(5, 1, "eeeee");
+  private static final List<VersionedItem> ANY_LIST = Arrays.asList(A, B, C, D, E);
+
+  private final Executor directExecutor = new Executor() {
+    @Override public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  private PreparedItemRenderer prototype;
+  private ViewModelPreparer<VersionedItem> viewModelPreparer;
+
+  @Before public void setUp() {
+    prototype = new PreparedItemRenderer();
+    viewModelPreparer = new ViewModelPreparer<>(new RendererBuilder<VersionedItem>(prototype));
+    viewModelPreparer.setItemIdProvider(VersionedItem.ID_PROVIDER);
+    viewModelPreparer.setPrepareDistance(ANY_PREPARE_DISTANCE);
+  }
+
+  @Test public void shouldNotPrepareAnyViewModelWithoutExecutor() {
+    viewModelPreparer.prepareAround(ANY_LIST, 0);
+
+    assertEquals(0, viewModelPreparer.getViewModelCache().size());
+  }
+
+  @Test public void shouldPrepareTheNextPositionsWhenScrollingForward() {
+    viewModelPreparer.setExecutor(directExecutor);
+
+    viewModelPreparer.prepareAround(ANY_LIST, 1);
+
+    assertEquals(Arrays.asList(C, D), prototype.getPreparedContents());
+    assertEquals(3, viewModelPreparer.getViewModelCache().get(C));
+  }
+
+  @Test public void shouldPrepareThePreviousPositionsWhenScrollingBackward() {
+    viewModelPreparer.prepareAround(ANY_LIST, 4);
+    viewModelPreparer.setExecutor(directExecutor);
+
+    viewModelPreparer.prepareAround(ANY_LIST, 3);
+
+    assertEquals(Arrays.asList(C, B), prototype.getPreparedContents());
+  }
+
+  @Test public void shouldNotPrepareTheViewModelsAlreadyCached() {
+    viewModelPreparer.setExecutor(directExecutor);
+    viewModelPreparer.getViewModelCache().put(C, 3, 1);
+
+    viewModelPreparer.prepareAround(ANY_LIST, 1);
+
+    assertEquals(Collections.singletonList(D), prototype.getPreparedContents());
+  }
+
+  @Test public void shouldNotPrepareTheItemsWhoseViewModelsCanNotBeCached() {
+    viewModelPreparer.setItemIdProvider(null);
+    viewModelPreparer.setExecutor(directExecutor);
+
+    viewModelPreparer.prepareAround(ANY_LIST, 1);
+
+    assertTrue(prototype.getPreparedContents().isEmpty());
+  }
+
+  @Test public void shouldNotPrepareTheItemsRenderedByOtherRenderers() {
+    ViewModelPreparer<Object> viewModelPreparer =
+        new ViewModelPreparer<>(new RendererBuilder<Object>(new ObjectRenderer()));
+    viewModelPreparer.setItemIdProvider(new ItemIdProvider<Object>() {
+      @Override public long getItemId(Object item) {
+        return ((VersionedItem) item).getId();
+      }
+    });
+    viewModelPreparer.setExecutor(directExecutor);
+
+    viewModelPreparer.prepareAround(new ArrayList<Object>(ANY_LIST), 0);
+
+    assertEquals(0, viewModelPreparer.getViewModelCache().size());
+  }
+
+  @Test public void shouldStopPreparingAtTheEndOfTheList() {
+    viewModelPreparer.setExecutor(directExecutor);
+
+    viewModelPreparer.prepareAround(ANY_LIST, 4);
+
+    assertTrue(prototype.getPreparedContents().isEmpty());
+  }
+
+  @Test public void shouldRegisterTheCacheToTrimMemoryJustOnceWhileAttached() {
+    Context context = mock(Context.class);
+    when(context.getApplicationContext()).thenReturn(context);
+
+    viewModelPreparer.onAttached(context);
+    viewModelPreparer.onAttached(context);
+    viewModelPreparer.onDetached(context);
+
+    verify(context).registerComponentCallbacks(viewModelPreparer.getViewModelCache());
+    verify(context, never()).unregisterComponentCallbacks(viewModelPreparer.getViewModelCache());
+  }
+
+  @Test public void shouldUnregisterTheCacheOnceDetachedFromEveryRecyclerView() {
+    Context context = mock(Context.class);
+    when(context.getApplicationContext()).thenReturn(context);
+
+    viewModelPreparer.onAttached(context);
+    viewModelPreparer.onAttached(context);
+    viewModelPreparer.onDetached(context);
+    viewModelPreparer.onDetached(context);
+
+    verify(context).unregisterComponentCallbacks(viewModelPreparer.getViewModelCache());
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class created to check the correct behaviour of ViewTypeCache.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class ViewTypeCacheTest {
+
+  private static final int UNKNOWN = ViewTypeCache.UNKNOWN_VIEW_TYPE;
+
+  private ViewTypeCache cache;
+
+  @Before public void setUp() {
+    cache = new ViewTypeCache();
+    for (int i = 0; i < 5; i++) {
+      cache.put(i, i * 10);
+    }
+  }
+
+  @Test public void shouldReturnUnknownViewTypeForPositionsNotCached() {
+    assertEquals(UNKNOWN, new ViewTypeCache().get(0));
+    assertEquals(UNKNOWN, cache.get(5));
+    assertEquals(UNKNOWN, cache.get(-1));
+  }
+
+  @Test public void shouldReturnUnknownViewTypeForGapsLeftWhenCachingDistantPositions() {
+    cache.put(8, 80);
+
+    assertEquals(UNKNOWN, cache.get(6));
+    assertEquals(80, cache.get(8));
+  }
+
+  @Test public void shouldShiftCachedViewTypesOnInsertion() {
+    cache.onInserted(1, 2);
+
+    assertEquals(0, cache.get(0));
+    assertEquals(UNKNOWN, cache.get(1));
+    assertEquals(UNKNOWN, cache.get(2));
+    assertEquals(10, cache.get(3));
+    assertEquals(40, cache.get(6));
+  }
+
+  @Test public void shouldShiftCachedViewTypesOnRemoval() {
+    cache.onRemoved(1, 2);
+
+    assertEquals(0, cache.get(0));
+    assertEquals(30, cache.get(1));
+    assertEquals(40, cache.get(2));
+    assertEquals(UNKNOWN, cache.get(3));
+  }
+
+  @Test public void shouldMoveCachedViewTypes() {
+    cache.onMoved(0, 3);
+
+    assertEquals(10, cache.get(0));
+    assertEquals(30, cache.get(2));
+    assertEquals(0, cache.get(3));
+    assertEquals(40, cache.get(4));
+  }
+
+  @Test public void shouldInvalidateChangedPositions() {
+    cache.onChanged(3, 5);
+
+    assertEquals(20, cache.get(2));
+    assertEquals(UNKNOWN, cache.get(3));
+    assertEquals(UNKNOWN, cache.get(4));
+  }
+
+  @Test public void shouldDiscardEveryViewTypeOnClear() {
+    cache.clear();
+
+    assertEquals(UNKNOWN, cache.get(0));
+  }
+}
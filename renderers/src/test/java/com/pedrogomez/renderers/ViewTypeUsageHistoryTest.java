@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2014 Pedro Vicente Gómez Sánchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pedrogomez.renderers;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class created to check the correct behaviour of ViewTypeUsageHistory.
+ *
+ * @author Pedro Vicente Gómez Sánchez.
+ */
+public class ViewTypeUsageHistoryTest {
+
+  private static final int ANY_VIEW_TYPE = 0;
+  private static final int ANY_OTHER_VIEW_TYPE = 1;
+
+  private ViewTypeUsageHistory history;
+
+  @Before public void setUp() {
+    history = new ViewTypeUsageHistory(2);
+  }
+
+  @Test public void shouldReturnZeroAsExpectedCountIfThereAreNoSessionsRecorded() {
+    assertEquals(0, history.getExpectedCount(ANY_VIEW_TYPE));
+    assertTrue(history.getViewTypes().isEmpty());
+  }
+
+  @Test public void shouldReturnTheMaximumCountUsedDuringTheSessionsRecorded() {
+    history.recordSession(Collections.singletonMap(ANY_VIEW_TYPE, 4));
+    history.recordSession(Collections.singletonMap(ANY_VIEW_TYPE, 2));
+
+    assertEquals(4, history.getExpectedCount(ANY_VIEW_TYPE));
+  }
+
+  @Test public void shouldForgetTheSessionsOlderThanTheNumberOfSessionsToKeep() {
+    history.recordSession(Collections.singletonMap(ANY_VIEW_TYPE, 4));
+    history.recordSession(Collections.singletonMap(ANY_OTHER_VIEW_TYPE, 1));
+    history.recordSession(Collections.singletonMap(ANY_VIEW_TYPE, 2));
+
+    assertEquals(2, history.getExpectedCount(ANY_VIEW_TYPE));
+    assertEquals(1, history.getExpectedCount(ANY_OTHER_VIEW_TYPE));
+  }
+
+  @Test public void shouldReturnTheSameHistoryForTheSameScreen() {
+    assertSame(ViewTypeUsageHistory.forScreen("feed"), ViewTypeUsageHistory.forScreen("feed"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowExceptionIfTheNumberOfSessionsToKeepIsNotPositive() {
+    new ViewTypeUsageHistory(0);
+  }
+}
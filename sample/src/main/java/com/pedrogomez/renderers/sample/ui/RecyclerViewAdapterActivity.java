@@ -21,7 +21,9 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.pedrogomez.renderers.RVRendererAdapter;
+import com.pedrogomez.renderers.Renderer;
 import com.pedrogomez.renderers.RendererBuilder;
+import com.pedrogomez.renderers.RendererFactory;
 import com.pedrogomez.renderers.sample.R;
 import com.pedrogomez.renderers.sample.model.RandomVideoCollectionGenerator;
 import com.pedrogomez.renderers.sample.model.Video;
@@ -60,14 +62,19 @@ public class RecyclerViewAdapterActivity extends BaseActivity {
     RandomVideoCollectionGenerator randomVideoCollectionGenerator =
         new RandomVideoCollectionGenerator();
     final List<Video> videoCollection = randomVideoCollectionGenerator.generate(VIDEO_COUNT);
-    RendererBuilder<Video> rendererBuilder = new RendererBuilder<Video>().withPrototype(
-        new RemovableVideoRenderer(new RemovableVideoRenderer.Listener() {
-          @Override public void onRemoveButtonTapped(Video video) {
-            ArrayList<Video> clonedList = new ArrayList<>(videoCollection);
-            clonedList.remove(video);
-            adapter.diffUpdate(clonedList);
+    final RemovableVideoRenderer.Listener removeListener = new RemovableVideoRenderer.Listener() {
+      @Override public void onRemoveButtonTapped(Video video) {
+        ArrayList<Video> clonedList = new ArrayList<>(videoCollection);
+        clonedList.remove(video);
+        adapter.diffUpdate(clonedList);
+      }
+    };
+    RendererBuilder<Video> rendererBuilder = new RendererBuilder<Video>().bind(Video.class,
+        new RendererFactory<Video>() {
+          @Override public Renderer<Video> create() {
+            return new RemovableVideoRenderer(removeListener);
           }
-        })).bind(Video.class, RemovableVideoRenderer.class);
+        });
 
     adapter = new RVRendererAdapter<>(rendererBuilder, videoCollection);
   }